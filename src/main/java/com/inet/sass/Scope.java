@@ -29,10 +29,17 @@ public class Scope {
 
     private static final Definition MISSING = new Variable( null, null );
 
+    // results of setIfPresent()
+    private static final int NOT_FOUND = 0;
+    private static final int SET       = 1;
+    private static final int FROZEN    = 2;
+
     private static class DefinitionScope<T extends Definition> {
         private DefinitionScope<T> parent;
         // optimization: create map only when needed
         private HashMap<String, T> definitions;
+        // a frozen scope is never changed, the definition is set in the child scope instead (copy-on-write)
+        private boolean frozen;
 
         public DefinitionScope( DefinitionScope<T> parent ) {
             this.parent = parent;
@@ -43,7 +50,7 @@ public class Scope {
          * @param node definition to set
          */
         public void set( T node ) {
-            if( parent == null || !parent.setIfPresent( node ) ) {
+            if( parent == null || parent.setIfPresent( node ) != SET ) {
                 add( node );
             }
         }
@@ -61,19 +68,33 @@ public class Scope {
         }
 
         /**
-         * Sets a definition and returns true if it is already defined in the scope or its parents. Otherwise returns false.
+         * Sets a definition if it is already defined in the scope or its parents. If it is defined in a frozen scope
+         * then it is set in the first scope below that is not frozen.
          * @param node definition to set
-         * @return true if the definition was set
+         * @return SET if the definition was set, FROZEN if it was found in a frozen scope, else NOT_FOUND
          */
-        private boolean setIfPresent( T node ) {
-            if( parent != null && parent.setIfPresent( node ) ) {
-                return true;
+        private int setIfPresent( T node ) {
+            if( parent != null ) {
+                int result = parent.setIfPresent( node );
+                if( result == SET ) {
+                    return SET;
+                }
+                if( result == FROZEN ) {
+                    if( frozen ) {
+                        return FROZEN;
+                    }
+                    add( node );
+                    return SET;
+                }
             }
             HashMap<String, T> definitions = this.definitions;
             if( definitions != null ) {
-                return definitions.replace( node.getName(), node ) != null;
+                if( frozen ) {
+                    return definitions.containsKey( node.getName() ) ? FROZEN : NOT_FOUND;
+                }
+                return definitions.replace( node.getName(), node ) != null ? SET : NOT_FOUND;
             }
-            return false;
+            return NOT_FOUND;
         }
 
         public T get( String name ) {
@@ -103,6 +124,7 @@ public class Scope {
     }
 
     private Scope                                  parent;
+    private boolean                                captured;
     private final DefinitionScope<Variable>        variables;
     private final DefinitionScope<FunctionDefNode> functions;
     private final DefinitionScope<MixinDefNode>    mixins;
@@ -124,6 +146,55 @@ public class Scope {
         return parent;
     }
 
+    /**
+     * Mark this scope and all its parents as referenced by a definition like a mixin or function. A captured scope can
+     * not be reused.
+     */
+    void capture() {
+        // a frozen scope is never reused and can be shared with other threads
+        for( Scope scope = this; scope != null && !scope.captured && !scope.isFrozen(); scope = scope.parent ) {
+            scope.captured = true;
+        }
+    }
+
+    /**
+     * Freeze this scope and its parents. A frozen scope is never changed and can be shared by multiple compiles, also
+     * in parallel threads. A variable of a frozen scope that is set again is defined in the first child scope that is
+     * not frozen.
+     */
+    void freeze() {
+        for( Scope scope = this; scope != null; scope = scope.parent ) {
+            scope.variables.frozen = true;
+            scope.functions.frozen = true;
+            scope.mixins.frozen = true;
+        }
+    }
+
+    /**
+     * If this scope is frozen and can not be changed.
+     * @return true, if frozen
+     */
+    public boolean isFrozen() {
+        return variables.frozen;
+    }
+
+    /**
+     * If this scope is referenced by a definition.
+     * @return true, if captured
+     */
+    boolean isCaptured() {
+        return captured;
+    }
+
+    /**
+     * Remove all definitions of this scope. The parent scopes are not changed.
+     */
+    void clear() {
+        variables.definitions = null;
+        functions.definitions = null;
+        mixins.definitions = null;
+    }
+
     /**
      * Sets a variable value in the largest scope where it is already defined. If the variable isn't defined, set it in the current scope.
      * @param node variable to set
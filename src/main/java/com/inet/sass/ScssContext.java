@@ -16,13 +16,21 @@
  */
 package com.inet.sass;
 
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
+import com.inet.sass.handler.SCSSCompileBudget;
+import com.inet.sass.handler.SCSSProfiler;
+import com.inet.sass.parser.ParseException;
+import com.inet.sass.parser.SassListItem;
 import com.inet.sass.parser.Variable;
+import com.inet.sass.selector.Selector;
 import com.inet.sass.tree.BlockNode;
 import com.inet.sass.tree.FunctionDefNode;
 import com.inet.sass.tree.MixinDefNode;
+import com.inet.sass.tree.Node;
 import com.inet.sass.visitor.Extension;
 
 public class ScssContext {
@@ -44,12 +52,39 @@ public class ScssContext {
 
     private UrlMode urlMode;
 
-    private Scope scope = new Scope();
+    private Scope scope;
+
+    // the frozen scope of a precompiled prelude and the global scope of this compile that is forked from it
+    private final Scope prelude;
+    private final Scope globalScope;
 
     private ScssStylesheet stylesheet;
 
     private BlockNode parentBlock;
 
+    private final SCSSProfiler profiler = SCSSProfiler.get();
+
+    private final SCSSCompileBudget budget = SCSSCompileBudget.get();
+
+    private final long startTime = System.nanoTime();
+
+    private long loopIterations;
+
+    private long loopOutputNodes;
+
+    private int loopDepth;
+
+    private ParseException budgetViolation;
+
+    private Map<String, SassListItem> constantVariables;
+
+    /**
+     * Intern table of the selectors created by nesting during this compile.
+     * Equal selectors share one instance so that the cached hash code is
+     * calculated once and equals() finds them by identity.
+     */
+    private final Map<Selector, Selector> selectors = new HashMap<>();
+
     /**
      * Collection of mappings from an @extend-selector (its simple selector
      * sequence) to a containing block's selectors. E.g. the following
@@ -64,8 +99,26 @@ public class ScssContext {
     private Set<Extension> extendsSet = new LinkedHashSet<Extension>();
 
     public ScssContext(UrlMode urlMode, ScssStylesheet stylesheet ) {
+        this( urlMode, stylesheet, null );
+    }
+
+    /**
+     * Create a context whose global scope is forked from the frozen scope of a
+     * precompiled prelude. The variables, functions and mixins of the prelude
+     * are visible, changes are only visible in this context (copy-on-write).
+     * 
+     * @param urlMode
+     *            the url mode
+     * @param stylesheet
+     *            the compiled style sheet
+     * @param prelude
+     *            the frozen scope of the prelude or null
+     */
+    public ScssContext( UrlMode urlMode, ScssStylesheet stylesheet, Scope prelude ) {
         this.urlMode = urlMode;
         this.stylesheet = stylesheet;
+        this.prelude = prelude;
+        scope = globalScope = prelude == null ? new Scope() : new Scope( prelude );
     }
 
     public void defineFunction(FunctionDefNode function) {
@@ -90,6 +143,10 @@ public class ScssContext {
      */
     public Scope openVariableScope(Scope parent) {
         Scope previousScope = scope;
+        if( parent == prelude && prelude != null ) {
+            // mixins and functions of the prelude see the globals of this compile
+            parent = globalScope;
+        }
         scope = new Scope(parent);
         return previousScope;
     }
@@ -112,6 +169,34 @@ public class ScssContext {
         return scope;
     }
 
+    /**
+     * Returns the current scope and mark it as captured. This must be used if the scope is hold after it was closed,
+     * for example as definition scope of a mixin or function.
+     * 
+     * @return current scope
+     */
+    public Scope captureCurrentScope() {
+        scope.capture();
+        return scope;
+    }
+
+    /**
+     * Start a new scope for the next iteration of a loop. The scope of the previous iteration is reused after removing
+     * its definitions if it was not captured. The scope must be closed with {@link #closeVariableScope()}.
+     * 
+     * @param previousIteration the scope of the previous iteration or null
+     * @return the scope of the new iteration
+     */
+    public Scope openLoopScope( Scope previousIteration ) {
+        if( previousIteration == null || previousIteration.isCaptured() || previousIteration.getParent() != scope ) {
+            scope = new Scope( scope );
+        } else {
+            previousIteration.clear();
+            scope = previousIteration;
+        }
+        return scope;
+    }
+
     /**
      * Start a new scope for variables. Any variables created after opening a
      * new scope are only valid until the scope is closed, at which time they
@@ -213,4 +298,139 @@ public class ScssContext {
     public void setParentBlock( BlockNode node ) {
         parentBlock = node;
     }
+
+    /**
+     * Get the shared instance of an equal selector.
+     * @param selector the selector
+     * @return the first selector of this compile that is equal to the given selector
+     */
+    public Selector intern( Selector selector ) {
+        Selector interned = selectors.putIfAbsent( selector, selector );
+        return interned == null ? selector : interned;
+    }
+
+    /**
+     * Start the evaluation of a loop. Must be followed by {@link #endLoop(int)}.
+     */
+    public void startLoop() {
+        loopDepth++;
+    }
+
+    /**
+     * End the evaluation of a loop. The nodes created by a nested loop are counted again by the enclosing loop.
+     * 
+     * @param outputNodes
+     *            the number of nodes created by the loop
+     */
+    public void endLoop( int outputNodes ) {
+        if( --loopDepth > 0 ) {
+            loopOutputNodes -= outputNodes;
+        }
+    }
+
+    /**
+     * Count an iteration of a loop against the compile budget before it is executed.
+     * 
+     * @param loopNode
+     *            the loop
+     * @throws ParseException
+     *             if the budget is exceeded
+     */
+    public void loopIteration( Node loopNode ) {
+        SCSSCompileBudget budget = this.budget;
+        if( budget == null ) {
+            return;
+        }
+        if( ++loopIterations > budget.getMaxIterations() ) {
+            budgetExceeded( "more than " + budget.getMaxIterations() + " loop iterations", loopNode );
+        }
+        long maxWallTime = budget.getMaxWallTime();
+        if( maxWallTime != Long.MAX_VALUE && (System.nanoTime() - startTime) / 1000000 > maxWallTime ) {
+            budgetExceeded( "compile time of more than " + maxWallTime + " ms", loopNode );
+        }
+    }
+
+    /**
+     * Count the nodes created by an iteration of a loop against the compile budget.
+     * 
+     * @param loopNode
+     *            the loop
+     * @param outputNodes
+     *            the number of created nodes
+     * @throws ParseException
+     *             if the budget is exceeded
+     */
+    public void loopOutput( Node loopNode, int outputNodes ) {
+        SCSSCompileBudget budget = this.budget;
+        if( budget == null ) {
+            return;
+        }
+        loopOutputNodes += outputNodes;
+        if( loopOutputNodes > budget.getMaxOutputNodes() ) {
+            budgetExceeded( "more than " + budget.getMaxOutputNodes() + " nodes created by loops", loopNode );
+        }
+    }
+
+    private void budgetExceeded( String message, Node loopNode ) {
+        ParseException ex = new ParseException( "Compile budget exceeded: " + message, loopNode );
+        if( budgetViolation == null ) {
+            budgetViolation = ex;
+        }
+        throw ex;
+    }
+
+    /**
+     * Throw the first violation of the compile budget. The traversal reports errors to the error handler and
+     * continues, this makes sure that the compile fails.
+     * 
+     * @throws ParseException
+     *             if the budget was exceeded
+     */
+    public void checkBudget() {
+        if( budgetViolation != null ) {
+            throw budgetViolation;
+        }
+    }
+
+    /**
+     * Define global variables before the traversal. This has the same effect
+     * as a prefix file with the assignments: assignments with !default do not
+     * change them.
+     * 
+     * @param variables
+     *            the values by the variable names without the "$"
+     */
+    public void setGlobalVariables( Map<String, SassListItem> variables ) {
+        for( Map.Entry<String, SassListItem> entry : variables.entrySet() ) {
+            scope.setVariable( new Variable( entry.getKey(), entry.getValue() ) );
+        }
+    }
+
+    /**
+     * Set the variables that are constant during this compile. They are not
+     * defined by this method, see {@link #setGlobalVariables(Map)}.
+     * 
+     * @param variables
+     *            the values by the variable names without the "$"
+     */
+    public void setConstantVariables( Map<String, SassListItem> variables ) {
+        constantVariables = variables;
+    }
+
+    /**
+     * Get the variables that are constant during this compile.
+     * 
+     * @return the values by the variable names or null
+     */
+    public Map<String, SassListItem> getConstantVariables() {
+        return constantVariables;
+    }
+
+    /**
+     * Get the profiler of the thread that has created this context.
+     * @return the profiler or null if profiling is disabled
+     */
+    public SCSSProfiler getProfiler() {
+        return profiler;
+    }
 }
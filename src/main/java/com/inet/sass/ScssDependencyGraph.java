@@ -0,0 +1,222 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.inet.sass.parser.ScssImportScanner;
+import com.inet.sass.resolver.ScssStylesheetResolver;
+
+/**
+ * The import dependencies between style sheets, for example for build systems
+ * and cache invalidation. The files are only scanned for @import directives
+ * with {@link ScssImportScanner}, they are not parsed or compiled. The imports
+ * are resolved with the same resolver as in the compiler. Because imports in
+ * all branches of control directives are included, the graph can contain more
+ * files than {@link ScssStylesheet#getSourceUris()} after a compile.
+ * <p>
+ * This class is not thread safe.
+ */
+public class ScssDependencyGraph {
+
+    private final ScssStylesheetResolver    resolver;
+
+    // resolved imports by the URI of the importing file, in the order of the scan
+    private final Map<String, List<String>> imports    = new LinkedHashMap<>();
+
+    // identifiers that could not be resolved by the URI of the importing file
+    private final Map<String, List<String>> unresolved = new HashMap<>();
+
+    /**
+     * Create an empty graph.
+     * 
+     * @param resolver
+     *            the resolver for the style sheets
+     */
+    public ScssDependencyGraph( ScssStylesheetResolver resolver ) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Add a root style sheet and all files that it imports directly or
+     * indirectly. Files that are already part of the graph are not scanned
+     * again.
+     * 
+     * @param identifier
+     *            the identifier of the style sheet like for
+     *            {@link ScssStylesheet#get(String, com.inet.sass.handler.SCSSErrorHandler, ScssStylesheetResolver)}
+     * @return the resolved URI or null if the style sheet was not found
+     * @throws IOException
+     *             if any I/O error occur
+     */
+    public String add( String identifier ) throws IOException {
+        InputSource source = resolver.resolve( null, identifier );
+        if( source == null ) {
+            return null;
+        }
+        String rootUri = source.getURI();
+        Deque<InputSource> pending = new ArrayDeque<>();
+        if( !imports.containsKey( rootUri ) ) {
+            imports.put( rootUri, Collections.<String>emptyList() );
+            pending.add( source );
+        }
+        while( !pending.isEmpty() ) {
+            source = pending.poll();
+            String uri = source.getURI();
+            ScssStylesheet parent = ScssStylesheet.placeholder( uri, resolver );
+            List<String> resolved = new ArrayList<>();
+            for( String importIdentifier : ScssImportScanner.scan( source ) ) {
+                InputSource importSource = resolver.resolve( parent, importIdentifier );
+                if( importSource == null ) {
+                    List<String> missing = unresolved.get( uri );
+                    if( missing == null ) {
+                        unresolved.put( uri, missing = new ArrayList<>() );
+                    }
+                    missing.add( importIdentifier );
+                    continue;
+                }
+                String importUri = importSource.getURI();
+                resolved.add( importUri );
+                if( imports.containsKey( importUri ) ) {
+                    closeStream( importSource ); // already scanned or pending
+                } else {
+                    imports.put( importUri, Collections.<String>emptyList() );
+                    pending.add( importSource );
+                }
+            }
+            imports.put( uri, resolved );
+        }
+        return rootUri;
+    }
+
+    /**
+     * Close the streams of a source that is not scanned.
+     * 
+     * @param source
+     *            the source
+     * @throws IOException
+     *             if any I/O error occur
+     */
+    private static void closeStream( InputSource source ) throws IOException {
+        if( source.getCharacterStream() != null ) {
+            source.getCharacterStream().close();
+        }
+        if( source.getByteStream() != null ) {
+            source.getByteStream().close();
+        }
+    }
+
+    /**
+     * Get the URIs of all files in the graph in the order in which they were found.
+     * 
+     * @return the URIs
+     */
+    public Set<String> getUris() {
+        return Collections.unmodifiableSet( imports.keySet() );
+    }
+
+    /**
+     * Get the files that are imported directly by a file.
+     * 
+     * @param uri
+     *            the URI of the importing file
+     * @return the URIs of the imported files in the order of the @import
+     *         directives, empty if the file is not part of the graph
+     */
+    public List<String> getImports( String uri ) {
+        List<String> list = imports.get( uri );
+        return list == null ? Collections.<String>emptyList() : Collections.unmodifiableList( list );
+    }
+
+    /**
+     * Get the identifiers of the imports of a file that could not be resolved.
+     * Creating such a file can change the result of the compile.
+     * 
+     * @param uri
+     *            the URI of the importing file
+     * @return the identifiers
+     */
+    public List<String> getUnresolvedImports( String uri ) {
+        List<String> list = unresolved.get( uri );
+        return list == null ? Collections.<String>emptyList() : Collections.unmodifiableList( list );
+    }
+
+    /**
+     * Get all files that are imported directly or indirectly by a file.
+     * 
+     * @param uri
+     *            the URI of the importing file
+     * @return the URIs without the file itself
+     */
+    public Set<String> getDependencies( String uri ) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add( uri );
+        while( !pending.isEmpty() ) {
+            for( String importUri : getImports( pending.poll() ) ) {
+                if( !importUri.equals( uri ) && result.add( importUri ) ) {
+                    pending.add( importUri );
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get all files that import a file directly or indirectly. These are the
+     * files which must be compiled again if the file was changed.
+     * 
+     * @param uri
+     *            the URI of the changed file
+     * @return the URIs without the file itself
+     */
+    public Set<String> getDependents( String uri ) {
+        Map<String, List<String>> importedBy = new HashMap<>();
+        for( Map.Entry<String, List<String>> entry : imports.entrySet() ) {
+            for( String importUri : entry.getValue() ) {
+                List<String> list = importedBy.get( importUri );
+                if( list == null ) {
+                    importedBy.put( importUri, list = new ArrayList<>() );
+                }
+                list.add( entry.getKey() );
+            }
+        }
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add( uri );
+        while( !pending.isEmpty() ) {
+            List<String> list = importedBy.get( pending.poll() );
+            if( list != null ) {
+                for( String dependent : list ) {
+                    if( !dependent.equals( uri ) && result.add( dependent ) ) {
+                        pending.add( dependent );
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -18,18 +18,43 @@
 package com.inet.sass;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import com.inet.sass.handler.SCSSDocumentHandler;
 import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.handler.SCSSProfiler;
+import com.inet.sass.parser.SassListItem;
 import com.inet.sass.parser.ScssParser;
 import com.inet.sass.resolver.ScssStylesheetResolver;
+import com.inet.sass.sourcemap.SourceMapGenerator;
+import com.inet.sass.tree.FunctionDefNode;
+import com.inet.sass.tree.ImportNode;
+import com.inet.sass.tree.MixinDefNode;
 import com.inet.sass.tree.Node;
+import com.inet.sass.tree.controldirective.EachDefNode;
+import com.inet.sass.tree.controldirective.ForNode;
+import com.inet.sass.tree.controldirective.IfElseDefNode;
+import com.inet.sass.tree.controldirective.WhileNode;
+import com.inet.sass.visitor.ConstantFoldingHandler;
+import com.inet.sass.visitor.DeadCodeEliminationHandler;
 import com.inet.sass.visitor.ExtendNodeHandler;
+import com.inet.sass.visitor.MediaGroupingHandler;
+import com.inet.sass.visitor.OutputOptimizationHandler;
 
 public class ScssStylesheet extends Node {
 
@@ -44,6 +69,24 @@ public class ScssStylesheet extends Node {
 
     private List<String> sourceUris = new ArrayList<String>();
 
+    // executor for parsing imports in the background, null if imports are parsed on demand
+    private Executor prefetchExecutor;
+
+    // imports that are parsed in the background, by the identifier of the import
+    private Map<String, Queue<Future<ScssStylesheet>>> prefetchedImports;
+
+    // variables for the dead code elimination, null if disabled
+    private Map<String, SassListItem> constantVariables;
+
+    // merge duplicate blocks and remove overridden declarations after the compile
+    private boolean optimizeOutput;
+
+    // group equal @media rules after the compile
+    private boolean groupMedia;
+
+    // parsed imports that are shared by all copies, null if never copied
+    private ConcurrentHashMap<String, ScssStylesheet> parsedImports;
+
     /**
      * Read in a file SCSS and parse it into a ScssStylesheet
      * 
@@ -54,6 +97,84 @@ public class ScssStylesheet extends Node {
         super();
     }
 
+    private ScssStylesheet( ScssStylesheet nodeToCopy ) {
+        super( nodeToCopy );
+        uri = nodeToCopy.uri;
+        charset = nodeToCopy.charset;
+        resolver = nodeToCopy.resolver;
+        prefix = nodeToCopy.prefix;
+        sourceUris.addAll( nodeToCopy.sourceUris );
+        constantVariables = nodeToCopy.constantVariables;
+        optimizeOutput = nodeToCopy.optimizeOutput;
+        groupMedia = nodeToCopy.groupMedia;
+        parsedImports = nodeToCopy.parsedImports;
+    }
+
+    /**
+     * Create an empty style sheet that only holds the location. It is used as
+     * parent for resolving relative imports without parsing the parent.
+     * 
+     * @param uri
+     *            the resolved URI of the style sheet
+     * @param resolver
+     *            the used resolver
+     * @return the style sheet
+     */
+    static ScssStylesheet placeholder( String uri, ScssStylesheetResolver resolver ) {
+        ScssStylesheet stylesheet = new ScssStylesheet();
+        stylesheet.uri = uri;
+        stylesheet.resolver = resolver;
+        return stylesheet;
+    }
+
+    /**
+     * Get an imported style sheet before the traversal, e.g. to inspect the
+     * assignments of the import. The style sheet must not be modified. The
+     * parsed style sheet is kept for the next call of
+     * {@link #importStylesheet(String)} with the same identifier, so the
+     * file is not parsed twice.
+     * 
+     * @param identifier
+     *            the identifier of the import
+     * @return the parsed style sheet or null if not found
+     * @throws IOException
+     *             if any I/O error occur
+     */
+    public ScssStylesheet peekImport( String identifier ) throws IOException {
+        if( prefetchedImports != null ) {
+            Queue<Future<ScssStylesheet>> queue = prefetchedImports.get( identifier );
+            Future<ScssStylesheet> future = queue == null ? null : queue.peek();
+            if( future != null ) {
+                return getPrefetched( future );
+            }
+        }
+        ConcurrentHashMap<String, ScssStylesheet> parsedImports = this.parsedImports;
+        if( parsedImports != null ) {
+            String key = uri + '\n' + identifier;
+            ScssStylesheet imported = parsedImports.get( key );
+            if( imported == null ) {
+                imported = load( identifier, this, resolver, null );
+                if( imported == null ) {
+                    return null;
+                }
+                imported.parsedImports = parsedImports;
+                ScssStylesheet previous = parsedImports.putIfAbsent( key, imported );
+                if( previous != null ) {
+                    imported = previous;
+                }
+            }
+            return imported;
+        }
+        ScssStylesheet imported = load( identifier, this, resolver, prefetchExecutor );
+        if( imported != null ) {
+            if( prefetchedImports == null ) {
+                prefetchedImports = new HashMap<>();
+            }
+            prefetchedImports.computeIfAbsent( identifier, key -> new ArrayDeque<>() ).add( CompletableFuture.completedFuture( imported ) );
+        }
+        return imported;
+    }
+
     /**
      * Main entry point for the SASS compiler. Takes in a file, an optional
      * parent stylesheet, and document and error handlers. Then builds up a
@@ -69,12 +190,65 @@ public class ScssStylesheet extends Node {
      * @throws IOException if any i/O error occur
      */
     public static ScssStylesheet get( String identifier, SCSSErrorHandler errorHandler, ScssStylesheetResolver resolver ) throws IOException {
+        return get( identifier, errorHandler, resolver, null );
+    }
+
+    /**
+     * Main entry point for the SASS compiler which parses the imported files
+     * in the background. After a file was parsed, its @import directives are
+     * resolved and the imported files are parsed with the executor. The
+     * traversal takes the parsed trees in the order of the imports, so the
+     * scope semantics do not change. Imports inside of control directives,
+     * mixins and functions are not prefetched because they are possibly never
+     * used; they are parsed on demand. The resolver and the error handler must
+     * be thread safe.
+     * 
+     * @param identifier
+     *            The file path. If null then null is returned.
+     * @param errorHandler
+     *            Instance of error handler. May not be null.
+     * @param resolver
+     *            the used resolver
+     * @param prefetchExecutor
+     *            the executor for parsing the imports or null to parse the
+     *            imports on demand
+     * @return the loaded ScssStylesheet
+     * @throws IOException
+     *             if any i/O error occur
+     */
+    public static ScssStylesheet get( String identifier, SCSSErrorHandler errorHandler, ScssStylesheetResolver resolver, Executor prefetchExecutor ) throws IOException {
         SCSSErrorHandler.set( errorHandler );
-        return load( identifier, null, resolver );
+        return load( identifier, null, resolver, prefetchExecutor );
     }
 
     public ScssStylesheet importStylesheet( String identifier ) throws IOException {
-        return load( identifier, this, resolver );
+        if( prefetchedImports != null ) {
+            Queue<Future<ScssStylesheet>> queue = prefetchedImports.get( identifier );
+            Future<ScssStylesheet> future = queue == null ? null : queue.poll();
+            if( future != null ) {
+                return getPrefetched( future );
+            }
+        }
+        ConcurrentHashMap<String, ScssStylesheet> parsedImports = this.parsedImports;
+        if( parsedImports != null ) {
+            // the identifier is relative to this style sheet
+            String key = uri + '\n' + identifier;
+            ScssStylesheet imported = parsedImports.get( key );
+            if( imported == null ) {
+                imported = load( identifier, this, resolver, null );
+                if( imported == null ) {
+                    return null;
+                }
+                imported.parsedImports = parsedImports;
+                ScssStylesheet previous = parsedImports.putIfAbsent( key, imported );
+                if( previous != null ) {
+                    imported = previous;
+                }
+            }
+            // the compile modifies the imported tree
+            return imported.copy();
+        }
+        return load( identifier, this, resolver, prefetchExecutor );
     }
 
     /**
@@ -93,7 +267,7 @@ public class ScssStylesheet extends Node {
      * @return
      * @throws IOException
      */
-    private static ScssStylesheet load( String identifier, ScssStylesheet parentStylesheet, ScssStylesheetResolver resolver ) throws IOException {
+    private static ScssStylesheet load( String identifier, ScssStylesheet parentStylesheet, ScssStylesheetResolver resolver, Executor prefetchExecutor ) throws IOException {
         /*
          * The encoding to be used is passed through "encoding" parameter. the
          * imported children scss node will have the same encoding as their
@@ -109,6 +283,7 @@ public class ScssStylesheet extends Node {
 
         ScssStylesheet stylesheet = new ScssStylesheet();
         stylesheet.resolver = resolver;
+        stylesheet.prefetchExecutor = prefetchExecutor;
         SCSSDocumentHandler documentHandler = new SCSSDocumentHandler( stylesheet );
 
         InputSource source = stylesheet.resolveSource( identifier, parentStylesheet );
@@ -121,13 +296,110 @@ public class ScssStylesheet extends Node {
             stylesheet.setCharset(parentStylesheet.getCharset());
         }
         ScssParser parser = new ScssParser();
-        parser.parseStyleSheet(documentHandler,source);
+        SCSSProfiler profiler = SCSSProfiler.get();
+        if( profiler == null ) {
+            parser.parseStyleSheet( documentHandler, source );
+        } else {
+            SCSSProfiler.Phase phase = profiler.startPhase( "parse", source.getURI() );
+            try {
+                parser.parseStyleSheet( documentHandler, source );
+            } finally {
+                profiler.endPhase( phase );
+            }
+        }
 
         stylesheet.sourceUris.add(source.getURI());
 
+        if( prefetchExecutor != null ) {
+            stylesheet.prefetchImports( stylesheet );
+        }
+
         return stylesheet;
     }
 
+    /**
+     * Start the parsing of all files that are imported in the node tree. The
+     * bodies of control directives, mixins and functions are skipped, their
+     * imports depend on the evaluation.
+     * 
+     * @param node
+     *            the current node
+     */
+    private void prefetchImports( Node node ) {
+        for( Node child : node.getChildren() ) {
+            if( child instanceof ImportNode ) {
+                ImportNode importNode = (ImportNode)child;
+                if( !importNode.isPureCssImport() ) {
+                    prefetch( importNode.getUri() );
+                }
+            } else if( !(child instanceof IfElseDefNode || child instanceof ForNode || child instanceof EachDefNode || child instanceof WhileNode
+                            || child instanceof MixinDefNode || child instanceof FunctionDefNode) ) {
+                prefetchImports( child );
+            }
+        }
+    }
+
+    /**
+     * Load an imported style sheet with the executor. The error handler and
+     * the profiler of the current thread are also used for the parsing.
+     * 
+     * @param identifier
+     *            the identifier of the import
+     */
+    private void prefetch( String identifier ) {
+        SCSSErrorHandler errorHandler = SCSSErrorHandler.get();
+        SCSSProfiler profiler = SCSSProfiler.get();
+        FutureTask<ScssStylesheet> task = new FutureTask<>( () -> {
+            SCSSErrorHandler previousErrorHandler = SCSSErrorHandler.get();
+            SCSSProfiler previousProfiler = SCSSProfiler.get();
+            SCSSErrorHandler.set( errorHandler );
+            SCSSProfiler.set( profiler );
+            try {
+                return load( identifier, this, resolver, prefetchExecutor );
+            } finally {
+                SCSSErrorHandler.set( previousErrorHandler );
+                SCSSProfiler.set( previousProfiler );
+            }
+        } );
+        if( prefetchedImports == null ) {
+            prefetchedImports = new HashMap<>();
+        }
+        prefetchedImports.computeIfAbsent( identifier, key -> new ArrayDeque<>() ).add( task );
+        prefetchExecutor.execute( task );
+    }
+
+    /**
+     * Wait until a prefetched style sheet is parsed.
+     * 
+     * @param future
+     *            the parsing task
+     * @return the parsed style sheet or null if not found
+     * @throws IOException
+     *             if any I/O error occur
+     */
+    private static ScssStylesheet getPrefetched( Future<ScssStylesheet> future ) throws IOException {
+        try {
+            return future.get();
+        } catch( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException iex = new InterruptedIOException( ex.getMessage() );
+            iex.initCause( ex );
+            throw iex;
+        } catch( ExecutionException ex ) {
+            Throwable cause = ex.getCause();
+            if( cause instanceof IOException ) {
+                throw (IOException)cause;
+            }
+            if( cause instanceof RuntimeException ) {
+                throw (RuntimeException)cause;
+            }
+            if( cause instanceof Error ) {
+                throw (Error)cause;
+            }
+            throw new IOException( cause );
+        }
+    }
+
     public InputSource resolveSource( String identifier, ScssStylesheet parentStylesheet ) {
         if( resolver != null ) {
             return resolver.resolve( parentStylesheet, identifier );
@@ -144,6 +416,47 @@ public class ScssStylesheet extends Node {
         sourceUris.addAll(uris);
     }
 
+    /**
+     * Enable the dead code elimination for the compile of this style sheet.
+     * The variables are defined as global variables with the given values and
+     * assignments with !default do not change them. Branches of @if/@else in
+     * this style sheet and its imports that can not be executed with these
+     * values are removed before the traversal.
+     * 
+     * @param variables
+     *            the values by the variable names without the "$", e.g. the
+     *            feature flags of a theme, or null to disable
+     */
+    public void eliminateDeadCode( Map<String, SassListItem> variables ) {
+        constantVariables = variables;
+    }
+
+    /**
+     * Enable an additional pass after the compile that makes the CSS output
+     * smaller. Blocks with the same selectors or the same declarations are
+     * merged and declarations which are overridden in the same block are
+     * removed, as far as this does not change the cascade.
+     * 
+     * @param optimize
+     *            true, to enable the optimization
+     */
+    public void optimizeOutput( boolean optimize ) {
+        optimizeOutput = optimize;
+    }
+
+    /**
+     * Enable an additional pass after the compile that groups @media rules
+     * with equal media queries into one @media, as far as this does not
+     * change the cascade. Nested @media rules and responsive mixins create a
+     * separate @media for every block.
+     * 
+     * @param group
+     *            true, to enable the grouping
+     */
+    public void groupMedia( boolean group ) {
+        groupMedia = group;
+    }
+
     /**
      * Applies all the visitors and compiles SCSS into Css.
      * 
@@ -174,9 +487,135 @@ public class ScssStylesheet extends Node {
      * @throws Exception
      */
     public void compile(ScssContext.UrlMode urlMode) throws Exception {
+        compile( urlMode, null );
+    }
+
+    /**
+     * Compiles SCSS into CSS with additional global variables, e.g. the colors
+     * and fonts of a tenant. The variables are defined before the traversal
+     * like with a prefix file that contains the assignments: assignments with
+     * !default do not change them. To compile the same parsed style sheet
+     * with different variables, compile a {@link #copy()} for every set of
+     * variables.
+     * 
+     * @param urlMode
+     *            Specifies whether urls appearing in an scss style sheet are
+     *            taken to be absolute or relative, see
+     *            {@link #compile(com.inet.sass.ScssContext.UrlMode)}
+     * @param variables
+     *            the values by the variable names without the "$" or null
+     * @throws Exception
+     *             if the compile fails
+     */
+    public void compile( ScssContext.UrlMode urlMode, Map<String, SassListItem> variables ) throws Exception {
+        compile( urlMode, variables, null );
+    }
+
+    /**
+     * Compiles SCSS into CSS on top of a precompiled prelude. The variables,
+     * functions and mixins of the prelude are visible as if the prelude was
+     * imported at the start of this style sheet, but the prelude is not
+     * evaluated again. Changes of the prelude variables are only visible in
+     * this compile.
+     * 
+     * @param urlMode
+     *            Specifies whether urls appearing in an scss style sheet are
+     *            taken to be absolute or relative, see
+     *            {@link #compile(com.inet.sass.ScssContext.UrlMode)}
+     * @param variables
+     *            the values by the variable names without the "$" or null
+     * @param prelude
+     *            the scope returned from
+     *            {@link #compilePrelude(com.inet.sass.ScssContext.UrlMode, Map)}
+     *            or null
+     * @throws Exception
+     *             if the compile fails
+     */
+    public void compile( ScssContext.UrlMode urlMode, Map<String, SassListItem> variables, Scope prelude ) throws Exception {
+        compile( new ScssContext( urlMode, this, prelude ), variables );
+    }
+
+    /**
+     * Compiles this style sheet as a prelude that defines only variables,
+     * functions and mixins, e.g. the functions, variables and mixins of a
+     * theme. The returned scope is frozen and can be shared by any number of
+     * later compiles, also in parallel threads. The variables of the prelude
+     * are evaluated once, variables that are given to a later compile do not
+     * change values that the prelude has calculated from them.
+     * 
+     * @param urlMode
+     *            Specifies whether urls appearing in an scss style sheet are
+     *            taken to be absolute or relative, see
+     *            {@link #compile(com.inet.sass.ScssContext.UrlMode)}
+     * @param variables
+     *            the values by the variable names without the "$" or null
+     * @return the frozen global scope
+     * @throws Exception
+     *             if the compile fails
+     */
+    public Scope compilePrelude( ScssContext.UrlMode urlMode, Map<String, SassListItem> variables ) throws Exception {
         ScssContext context = new ScssContext( urlMode, this );
-        traverse(context);
-        ExtendNodeHandler.modifyTree(context, this);
+        compile( context, variables );
+        Scope scope = context.getCurrentScope();
+        scope.freeze();
+        return scope;
+    }
+
+    private void compile( ScssContext context, Map<String, SassListItem> variables ) throws Exception {
+        if( variables != null ) {
+            context.setGlobalVariables( variables );
+        }
+        if( constantVariables != null ) {
+            // all variables are defined, but only the variables without an assignment are used to remove branches
+            context.setGlobalVariables( constantVariables );
+            context.setConstantVariables( DeadCodeEliminationHandler.getConstants( this, constantVariables ) );
+        }
+        SCSSProfiler profiler = context.getProfiler();
+        phase( profiler, "fold", () -> {
+            DeadCodeEliminationHandler.modifyTree( context, this );
+            ConstantFoldingHandler.modifyTree( context, this );
+        } );
+        phase( profiler, "traverse", () -> traverse( context ) );
+        context.checkBudget();
+        phase( profiler, "extend", () -> ExtendNodeHandler.modifyTree( context, this ) );
+        if( optimizeOutput || groupMedia ) {
+            phase( profiler, "optimize", this::optimize );
+        }
+    }
+
+    /**
+     * Run a phase of the compilation and record it in the profiler.
+     * 
+     * @param profiler
+     *            the profiler or null if the compilation is not profiled
+     * @param name
+     *            the name of the phase
+     * @param task
+     *            the work of the phase
+     */
+    private void phase( SCSSProfiler profiler, String name, Runnable task ) {
+        if( profiler == null ) {
+            task.run();
+            return;
+        }
+        SCSSProfiler.Phase phase = profiler.startPhase( name, uri );
+        try {
+            task.run();
+        } finally {
+            profiler.endPhase( phase );
+        }
+    }
+
+    /**
+     * Run the enabled optional passes over the compiled tree.
+     */
+    private void optimize() {
+        if( groupMedia ) {
+            MediaGroupingHandler.modifyTree( this );
+        }
+        if( optimizeOutput ) {
+            OutputOptimizationHandler.modifyTree( this );
+        }
     }
 
     /**
@@ -188,12 +627,33 @@ public class ScssStylesheet extends Node {
      */
     @Override
     public String printState() {
-        return buildString(PRINT_STRATEGY);
+        return printState( null );
+    }
+
+    /**
+     * Prints out the current state of the node tree and records the source
+     * location of every selector and property in a source map.
+     * 
+     * @param sourceMap
+     *            the source map that receives the mappings or null
+     * @return the CSS after compile
+     */
+    public String printState( SourceMapGenerator sourceMap ) {
+        SCSSProfiler profiler = SCSSProfiler.get();
+        if( profiler == null ) {
+            return buildString( PRINT_STRATEGY, sourceMap );
+        }
+        SCSSProfiler.Phase phase = profiler.startPhase( "print", uri );
+        try {
+            return buildString( PRINT_STRATEGY, sourceMap );
+        } finally {
+            profiler.endPhase( phase );
+        }
     }
 
     @Override
     public String toString() {
-        return "Stylesheet node [" + buildString(TO_STRING_STRATEGY) + "]";
+        return "Stylesheet node [" + buildString( TO_STRING_STRATEGY, null ) + "]";
     }
 
     /**
@@ -206,7 +666,8 @@ public class ScssStylesheet extends Node {
      */
     @Override
     public Collection<Node> traverse(ScssContext context) {
-        traverseChildren(context);
+        // the variables of the style sheet are the globals of the root scope
+        traverseChildren( context, false );
         return Collections.singleton((Node) this);
     }
 
@@ -250,7 +711,7 @@ public class ScssStylesheet extends Node {
         this.prefix = prefix;
     }
 
-    private String buildString(BuildStringStrategy strategy) {
+    private String buildString( BuildStringStrategy strategy, SourceMapGenerator sourceMap ) {
         StringBuilder string = new StringBuilder("");
         String delimeter = "\n\n";
         // add charset declaration, if it is not default "ASCII".
@@ -258,14 +719,27 @@ public class ScssStylesheet extends Node {
             string.append( "@charset \"" ).append( charset ).append( "\";" ).append( delimeter );
         }
         List<Node> children = getChildren();
-        if (children.size() > 0) {
-            string.append(strategy.build(children.get(0)));
-        }
-        if (children.size() > 1) {
-            for (int i = 1; i < children.size(); i++) {
-                String childString = strategy.build(children.get(i));
-                if (childString != null) {
-                    string.append(delimeter).append(childString);
+        if( strategy == PRINT_STRATEGY ) {
+            // append all nodes to the same builder so that the source map can follow the position
+            for( int i = 0; i < children.size(); i++ ) {
+                int length = string.length();
+                if( i > 0 ) {
+                    string.append( delimeter );
+                }
+                if( !children.get( i ).printState( string, sourceMap ) ) {
+                    string.setLength( length );
+                }
+            }
+        } else {
+            if (children.size() > 0) {
+                string.append(strategy.build(children.get(0)));
+            }
+            if (children.size() > 1) {
+                for (int i = 1; i < children.size(); i++) {
+                    String childString = strategy.build(children.get(i));
+                    if (childString != null) {
+                        string.append(delimeter).append(childString);
+                    }
                 }
             }
         }
@@ -273,10 +747,22 @@ public class ScssStylesheet extends Node {
         return output;
     }
 
+    /**
+     * Create a copy of the parsed style sheet that can be compiled
+     * independently, e.g. with other variables. The copies share the parsed
+     * imports, every import is parsed only once for all copies. The copies can
+     * be compiled in parallel threads if the resolver is thread safe.
+     * 
+     * @return the copy
+     */
     @Override
-    public Node copy() {
-        throw new UnsupportedOperationException(
-                "ScssStylesheet cannot be copied");
+    public ScssStylesheet copy() {
+        synchronized( this ) {
+            if( parsedImports == null ) {
+                parsedImports = new ConcurrentHashMap<>();
+            }
+        }
+        return new ScssStylesheet( this );
     }
 
     public void write(Writer writer) throws IOException {
@@ -0,0 +1,474 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import com.inet.sass.InputSource;
+import com.inet.sass.ScssContext;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.handler.SCSSDiagnostic;
+import com.inet.sass.handler.SCSSDiagnosticsCollector;
+import com.inet.sass.resolver.FilesystemResolver;
+
+/**
+ * Command line compiler for single files, directories and glob patterns.
+ * 
+ * <pre>
+ * java -cp sass-compiler.jar com.inet.sass.cli.ScssCompiler [options] input...
+ * 
+ * input:
+ *   file.scss                 compile to the standard output, or into --out-dir
+ *   file.scss:file.css        compile to the given file
+ *   dir[:outdir]              compile all files of the directory, the CSS files are written next to the sources,
+ *                             into outdir or into --out-dir
+ *   'glob'[:outdir]           compile all matching files, e.g. 'src/**&#47;*.scss'
+ * 
+ * options:
+ *   --out-dir dir             the directory for inputs without own target
+ *   --load-path dir           an additional directory for imports, can be repeated
+ *   --jobs n                  the number of parallel compiles, default is the number of processors
+ *   --watch                   compile again if a file or one of its imports is changed
+ *   --url-mode mode           ABSOLUTE, MIXED or RELATIVE
+ *   --define name=value       override a variable, can be repeated
+ *   --optimize                merge duplicate blocks and equal @media rules
+ * </pre>
+ * 
+ * Files which start with an underscore are partials and are only compiled if they are given explicitly. The
+ * compile time of every file is written to the standard error.
+ */
+public class ScssCompiler {
+
+    private final List<String>          inputs    = new ArrayList<>();
+
+    private final List<String>          loadPaths = new ArrayList<>();
+
+    private final Map<String, String>   variables = new LinkedHashMap<>();
+
+    private File                        outDir;
+
+    private int                         jobs      = Runtime.getRuntime().availableProcessors();
+
+    private boolean                     watch;
+
+    private boolean                     optimize;
+
+    private ScssContext.UrlMode         urlMode   = ScssContext.UrlMode.MIXED;
+
+    private final PrintStream           log       = System.err;
+
+    /**
+     * Run the compiler from the command line.
+     * 
+     * @param args
+     *            the options and inputs
+     * @throws Exception
+     *             if an I/O error occurs
+     */
+    public static void main( String[] args ) throws Exception {
+        ScssCompiler compiler = new ScssCompiler();
+        try {
+            compiler.parseArguments( args );
+        } catch( IllegalArgumentException ex ) {
+            System.err.println( ex.getMessage() );
+            System.err.println( "Usage: ScssCompiler [--out-dir dir] [--load-path dir]... [--jobs n] [--watch] [--url-mode mode] [--define name=value]... [--optimize] input[:output]..." );
+            System.exit( 2 );
+        }
+        System.exit( compiler.run() ? 0 : 1 );
+    }
+
+    /**
+     * Parse the command line.
+     * 
+     * @param args
+     *            the arguments
+     * @throws IllegalArgumentException
+     *             if an argument is invalid
+     */
+    void parseArguments( String[] args ) {
+        for( int i = 0; i < args.length; i++ ) {
+            String arg = args[i];
+            if( !arg.startsWith( "--" ) ) {
+                inputs.add( arg );
+                continue;
+            }
+            if( i + 1 == args.length && !arg.equals( "--watch" ) && !arg.equals( "--optimize" ) ) {
+                throw new IllegalArgumentException( "Missing value for " + arg );
+            }
+            switch( arg ) {
+                case "--out-dir":
+                    outDir = new File( args[++i] );
+                    break;
+                case "--load-path":
+                    loadPaths.add( args[++i] );
+                    break;
+                case "--jobs":
+                    jobs = Math.max( 1, Integer.parseInt( args[++i] ) );
+                    break;
+                case "--watch":
+                    watch = true;
+                    break;
+                case "--url-mode":
+                    urlMode = ScssContext.UrlMode.valueOf( args[++i].toUpperCase() );
+                    break;
+                case "--define":
+                    Variables.add( args[++i], variables );
+                    break;
+                case "--optimize":
+                    optimize = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException( "Unknown option: " + arg );
+            }
+        }
+        if( inputs.isEmpty() ) {
+            throw new IllegalArgumentException( "No input" );
+        }
+    }
+
+    /**
+     * Compile all inputs and in watch mode wait for changes.
+     * 
+     * @return true, if the last compile of all files was successful
+     * @throws Exception
+     *             if an I/O error occurs or the thread is interrupted
+     */
+    boolean run() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool( jobs, runnable -> {
+            Thread thread = new Thread( runnable, "ScssCompiler" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        try {
+            Map<Job, Result> results = compile( collectJobs(), executor, Collections.emptyMap() );
+            boolean success = !results.values().stream().anyMatch( result -> !result.success );
+            if( !watch ) {
+                return success;
+            }
+            log.println( "Watching for changes..." );
+            for( ;; ) {
+                Thread.sleep( 500 );
+                List<Job> changed = new ArrayList<>();
+                for( Job job : collectJobs() ) {
+                    Result result = results.get( job );
+                    if( result == null || result.isModified() ) {
+                        changed.add( job );
+                    }
+                }
+                if( !changed.isEmpty() ) {
+                    results.putAll( compile( changed, executor, results ) );
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compile the jobs in parallel and print the results in the order of the jobs.
+     * 
+     * @param jobs
+     *            the files to compile
+     * @param executor
+     *            the executor for the parallel compiles
+     * @param previous
+     *            the results of the previous compiles
+     * @return the results
+     * @throws Exception
+     *             if the thread is interrupted
+     */
+    private Map<Job, Result> compile( Collection<Job> jobs, ExecutorService executor, Map<Job, Result> previous ) throws Exception {
+        List<Future<Result>> futures = new ArrayList<>();
+        for( Job job : jobs ) {
+            Result last = previous.get( job );
+            futures.add( executor.submit( (Callable<Result>)() -> job.compile( last ) ) );
+        }
+        Map<Job, Result> results = new HashMap<>();
+        int i = 0;
+        for( Job job : jobs ) {
+            Result result = futures.get( i++ ).get();
+            for( String message : result.messages ) {
+                log.println( message );
+            }
+            log.println( job.source + " -> " + (job.target != null ? job.target.getPath() : "<stdout>") + " " + (result.success ? "" : "failed ") + "in " + result.millis + " ms" );
+            if( job.target == null && result.css != null ) {
+                System.out.println( result.css );
+            }
+            results.put( job, result );
+        }
+        return results;
+    }
+
+    /**
+     * Expand the inputs to the files to compile.
+     * 
+     * @return the jobs
+     * @throws IOException
+     *             if a directory can not be read
+     */
+    List<Job> collectJobs() throws IOException {
+        Set<Job> jobs = new LinkedHashSet<>();
+        for( String input : inputs ) {
+            String source = input;
+            File target = null;
+            int idx = input.lastIndexOf( ':' );
+            if( idx > 1 ) { // not a Windows drive letter
+                source = input.substring( 0, idx );
+                target = new File( input.substring( idx + 1 ) );
+            }
+            if( source.indexOf( '*' ) >= 0 || source.indexOf( '?' ) >= 0 || source.indexOf( '{' ) >= 0 || source.indexOf( '[' ) >= 0 ) {
+                addGlob( jobs, source, target );
+            } else {
+                File file = new File( source );
+                if( file.isDirectory() ) {
+                    addDirectory( jobs, file.toPath(), null, target );
+                } else {
+                    if( target == null && outDir != null ) {
+                        target = new File( outDir, cssName( file.getName() ) );
+                    }
+                    jobs.add( new Job( file, target ) );
+                }
+            }
+        }
+        return new ArrayList<>( jobs );
+    }
+
+    /**
+     * Add all files that match a glob pattern. The directory part before the first wildcard is the base for the
+     * relative paths in the target directory.
+     */
+    private void addGlob( Set<Job> jobs, String pattern, File targetDir ) throws IOException {
+        String normalized = pattern.replace( File.separatorChar, '/' );
+        int wildcard = normalized.length();
+        for( char ch : new char[] { '*', '?', '{', '[' } ) {
+            int idx = normalized.indexOf( ch );
+            if( idx >= 0 ) {
+                wildcard = Math.min( wildcard, idx );
+            }
+        }
+        int slash = normalized.lastIndexOf( '/', wildcard );
+        Path base = new File( slash < 0 ? "." : slash == 0 ? "/" : normalized.substring( 0, slash ) ).toPath();
+        String relative = normalized.substring( slash + 1 );
+        if( base.toFile().isDirectory() ) {
+            addDirectory( jobs, base, FileSystems.getDefault().getPathMatcher( "glob:" + relative ), targetDir );
+        }
+    }
+
+    /**
+     * Add all style sheets of a directory that are not partials.
+     * 
+     * @param jobs
+     *            the target
+     * @param dir
+     *            the directory
+     * @param matcher
+     *            the filter for the relative paths or null
+     * @param targetDir
+     *            the target directory or null
+     * @throws IOException
+     *             if the directory can not be read
+     */
+    private void addDirectory( Set<Job> jobs, Path dir, PathMatcher matcher, File targetDir ) throws IOException {
+        File baseTarget = targetDir != null ? targetDir : outDir;
+        List<Path> files = new ArrayList<>();
+        try( Stream<Path> stream = Files.walk( dir ) ) {
+            stream.filter( path -> {
+                String name = path.getFileName().toString();
+                return name.endsWith( ".scss" ) && !name.startsWith( "_" ) && Files.isRegularFile( path ) && (matcher == null || matcher.matches( dir.relativize( path ) ));
+            } ).sorted().forEach( files::add );
+        }
+        for( Path path : files ) {
+            Path relative = dir.relativize( path );
+            File target;
+            if( baseTarget != null ) {
+                target = new File( new File( baseTarget, relative.toString() ).getParentFile(), cssName( path.getFileName().toString() ) );
+            } else {
+                target = new File( path.toFile().getParentFile(), cssName( path.getFileName().toString() ) );
+            }
+            jobs.add( new Job( path.toFile(), target ) );
+        }
+    }
+
+    private static String cssName( String scssName ) {
+        int idx = scssName.lastIndexOf( '.' );
+        return (idx > 0 ? scssName.substring( 0, idx ) : scssName) + ".css";
+    }
+
+    /**
+     * A style sheet and the target file.
+     */
+    private class Job {
+
+        private final File source;
+
+        // the target file or null for the standard output
+        private final File target;
+
+        private Job( File source, File target ) {
+            this.source = source;
+            this.target = target;
+        }
+
+        /**
+         * Compile the style sheet and write the target file.
+         * 
+         * @param previous
+         *            the result of the previous compile or null
+         * @return the result
+         */
+        private Result compile( Result previous ) {
+            long start = System.nanoTime();
+            long time = System.currentTimeMillis();
+            // read the times before parsing, a change during the compile is detected by the next check
+            Map<File, Long> modified = new HashMap<>();
+            modified.put( source.getAbsoluteFile(), source.getAbsoluteFile().lastModified() );
+            if( previous != null ) {
+                for( File file : previous.modified.keySet() ) {
+                    modified.put( file, file.lastModified() );
+                }
+            }
+            // every file that is read is watched, also the imports of a failing compile
+            Set<String> read = ConcurrentHashMap.newKeySet();
+            FilesystemResolver resolver = new FilesystemResolver( StandardCharsets.UTF_8, loadPaths.toArray( new String[loadPaths.size()] ) ) {
+                @Override
+                public InputSource resolveNormalized( String identifier ) {
+                    InputSource source = super.resolveNormalized( identifier );
+                    if( source != null ) {
+                        read.add( source.getURI() );
+                    }
+                    return source;
+                }
+            };
+            SCSSDiagnosticsCollector collector = new SCSSDiagnosticsCollector( 100 );
+            Result result = new Result();
+            List<String> dependencies = new ArrayList<>();
+            dependencies.add( source.getAbsolutePath() );
+            try {
+                ScssStylesheet stylesheet = ScssStylesheet.get( source.getAbsolutePath(), collector, resolver );
+                if( stylesheet == null ) {
+                    throw new IOException( "File not found: " + source );
+                }
+                stylesheet.optimizeOutput( optimize );
+                stylesheet.groupMedia( optimize );
+                stylesheet.compile( urlMode, Variables.parse( variables, urlMode, collector ) );
+                String css = stylesheet.printState();
+                if( target != null ) {
+                    File parent = target.getAbsoluteFile().getParentFile();
+                    if( parent != null ) {
+                        parent.mkdirs();
+                    }
+                    Files.write( target.toPath(), css.getBytes( StandardCharsets.UTF_8 ) );
+                } else {
+                    result.css = css;
+                }
+            } catch( Exception ex ) {
+                collector.error( ex );
+            }
+            result.success = true;
+            for( SCSSDiagnostic diagnostic : collector.getDiagnostics() ) {
+                result.success &= diagnostic.getSeverity() != SCSSDiagnostic.Severity.ERROR;
+                result.messages.add( source + ": " + diagnostic );
+            }
+            for( Throwable th : collector.getExceptions() ) {
+                result.success = false;
+                result.messages.add( source + ": " + th );
+            }
+            dependencies.addAll( read );
+            for( String dependency : new LinkedHashSet<>( dependencies ) ) {
+                File file = new File( dependency ).getAbsoluteFile();
+                Long lastModified = modified.get( file );
+                if( lastModified == null ) {
+                    // a new import that was changed shortly before or during the compile is compiled again, the file
+                    // time can have a resolution of seconds
+                    lastModified = file.lastModified();
+                    if( lastModified >= time - 2000 ) {
+                        lastModified = -1L;
+                    }
+                }
+                result.modified.put( file, lastModified );
+            }
+            result.millis = (System.nanoTime() - start) / 1000000;
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return source.hashCode();
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            if( !(obj instanceof Job) ) {
+                return false;
+            }
+            Job job = (Job)obj;
+            return source.equals( job.source ) && (target == null ? job.target == null : target.equals( job.target ));
+        }
+    }
+
+    /**
+     * The result of a compile.
+     */
+    private static class Result {
+
+        private boolean                 success;
+
+        private String                  css;
+
+        private long                    millis;
+
+        private final List<String>      messages = new ArrayList<>();
+
+        // the modification times of the style sheet and its imports
+        private final Map<File, Long>   modified = new HashMap<>();
+
+        /**
+         * Check if the style sheet or one of its imports was changed since the compile.
+         * 
+         * @return true, if it must be compiled again
+         */
+        private boolean isModified() {
+            for( Map.Entry<File, Long> entry : modified.entrySet() ) {
+                if( entry.getKey().lastModified() != entry.getValue() ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.inet.sass.ScssContext;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.handler.SCSSDiagnostic;
+import com.inet.sass.handler.SCSSDiagnosticsCollector;
+import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.resolver.FilesystemResolver;
+
+/**
+ * A compile server that keeps the JVM, the parsed style sheets and the parsed imports warm between the compiles of a
+ * build. It listens on a loopback port and is used with {@link ScssDaemonClient}.
+ * <p>
+ * The protocol is a sequence of length prefixed fields over one connection per request. A string is written as a 4 byte
+ * big endian length followed by the UTF-8 bytes, a number as 4 byte big endian integer.
+ * <ul>
+ * <li>request: the command "compile", the path of the style sheet, the url mode, the number of variables and the
+ * names and values of the variables. The command "stop" and the token of the daemon shut the daemon down.</li>
+ * <li>response: the status (0 for success, 1 for errors), the CSS, the number of dependencies, the dependencies, the
+ * number of messages and the messages. The response of "stop" is only the status.</li>
+ * </ul>
+ * Every local process can connect to the port, so the length of the request fields is limited and the daemon can only
+ * be stopped with the random token that it prints at startup.
+ * A parsed style sheet is reused as long as none of the files from {@link ScssStylesheet#getSourceUris()} of its last
+ * compile has changed.
+ * 
+ * <pre>
+ * java -cp sass-compiler.jar com.inet.sass.cli.ScssDaemon [--port 7311] [--load-path dir]...
+ * </pre>
+ */
+public class ScssDaemon implements Closeable {
+
+    /**
+     * The default port of the daemon and the client.
+     */
+    public static final int                         DEFAULT_PORT = 7311;
+
+    static final String                             COMMAND_COMPILE = "compile";
+
+    static final String                             COMMAND_STOP = "stop";
+
+    /**
+     * The maximum length of a string in a request, in bytes.
+     */
+    static final int                                MAX_STRING_LENGTH = 1 << 20;
+
+    /**
+     * The maximum number of variables in a request.
+     */
+    static final int                                MAX_VARIABLES = 10000;
+
+    private final String                            token;
+
+    private final ServerSocket                      serverSocket;
+
+    private final FilesystemResolver                resolver;
+
+    private final ExecutorService                   executor;
+
+    private final ConcurrentHashMap<String, Parsed> parsed = new ConcurrentHashMap<>();
+
+    /**
+     * Create a daemon and bind it to the loopback address.
+     * 
+     * @param port
+     *            the port or 0 for a free port
+     * @param loadPaths
+     *            additional directories for the imports
+     * @throws IOException
+     *             if the port can not be bound
+     */
+    public ScssDaemon( int port, String... loadPaths ) throws IOException {
+        serverSocket = new ServerSocket( port, 50, InetAddress.getLoopbackAddress() );
+        resolver = new FilesystemResolver( StandardCharsets.UTF_8, loadPaths );
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes( random );
+        token = new BigInteger( 1, random ).toString( 16 );
+        executor = Executors.newCachedThreadPool( runnable -> {
+            Thread thread = new Thread( runnable, "ScssDaemon" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+    }
+
+    /**
+     * Start a daemon from the command line.
+     * 
+     * @param args
+     *            the options --port and --load-path
+     * @throws IOException
+     *             if the port can not be bound
+     */
+    public static void main( String[] args ) throws IOException {
+        int port = DEFAULT_PORT;
+        List<String> loadPaths = new ArrayList<>();
+        for( int i = 0; i < args.length; i++ ) {
+            switch( args[i] ) {
+                case "--port":
+                    port = Integer.parseInt( args[++i] );
+                    break;
+                case "--load-path":
+                    loadPaths.add( args[++i] );
+                    break;
+                default:
+                    System.err.println( "Usage: ScssDaemon [--port port] [--load-path dir]..." );
+                    System.exit( 2 );
+            }
+        }
+        try( ScssDaemon daemon = new ScssDaemon( port, loadPaths.toArray( new String[loadPaths.size()] ) ) ) {
+            System.out.println( "ScssDaemon listening on port " + daemon.getPort() + ", stop token " + daemon.getToken() );
+            daemon.run();
+        }
+    }
+
+    /**
+     * The bound port.
+     * 
+     * @return the port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * The random token that is required to stop the daemon.
+     * 
+     * @return the token
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Accept requests until the daemon is closed or receives the stop command.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public void run() throws IOException {
+        try {
+            for( ;; ) {
+                Socket socket = serverSocket.accept();
+                executor.execute( () -> handle( socket ) );
+            }
+        } catch( SocketException ex ) {
+            if( !serverSocket.isClosed() ) {
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdown();
+    }
+
+    /**
+     * Handle a single connection.
+     * 
+     * @param socket
+     *            the connection
+     */
+    private void handle( Socket socket ) {
+        try( Socket s = socket ) {
+            DataInputStream in = new DataInputStream( new BufferedInputStream( s.getInputStream() ) );
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( s.getOutputStream() ) );
+            String command = readString( in, MAX_STRING_LENGTH );
+            if( COMMAND_STOP.equals( command ) ) {
+                boolean valid = MessageDigest.isEqual( token.getBytes( StandardCharsets.UTF_8 ), readString( in, MAX_STRING_LENGTH ).getBytes( StandardCharsets.UTF_8 ) );
+                out.writeInt( valid ? 0 : 1 );
+                out.flush();
+                if( valid ) {
+                    close();
+                }
+                return;
+            }
+            if( !COMMAND_COMPILE.equals( command ) ) {
+                throw new IOException( "Unknown command: " + command );
+            }
+            String path = readString( in, MAX_STRING_LENGTH );
+            String mode = readString( in, MAX_STRING_LENGTH );
+            int count = in.readInt();
+            if( count < 0 || count > MAX_VARIABLES ) {
+                throw new IOException( "Invalid number of variables: " + count );
+            }
+            Map<String, String> variables = new LinkedHashMap<>();
+            for( int i = 0; i < count; i++ ) {
+                variables.put( readString( in, MAX_STRING_LENGTH ), readString( in, MAX_STRING_LENGTH ) );
+            }
+            Result result;
+            try {
+                result = compile( path, ScssContext.UrlMode.valueOf( mode ), variables );
+            } catch( IllegalArgumentException ex ) {
+                result = new Result( 1, "", Collections.emptyList(), Collections.singletonList( "Unknown url mode: " + mode ) );
+            }
+            result.write( out );
+            out.flush();
+        } catch( IOException ex ) {
+            // the client has closed the connection or sent garbage, there is nobody to report it
+        }
+    }
+
+    /**
+     * Compile a style sheet with the warm caches of this daemon.
+     * 
+     * @param path
+     *            the file of the style sheet
+     * @param urlMode
+     *            the url mode
+     * @param variables
+     *            the variable overrides as SCSS expressions by the names without "$" or null
+     * @return the result
+     */
+    public Result compile( String path, ScssContext.UrlMode urlMode, Map<String, String> variables ) {
+        SCSSDiagnosticsCollector collector = new SCSSDiagnosticsCollector( 100 );
+        String css = "";
+        List<String> dependencies = Collections.emptyList();
+        boolean failed = false;
+        try {
+            String key = new File( path ).getCanonicalPath();
+            long start = System.currentTimeMillis();
+            Parsed entry = parsed.get( key );
+            if( entry == null || entry.isModified() ) {
+                // read the times before parsing, a change during the parsing is detected with the next compile
+                Set<String> known = new HashSet<>();
+                known.add( key );
+                if( entry != null ) {
+                    known.addAll( entry.modified.keySet() );
+                }
+                Map<String, Long> modified = new HashMap<>();
+                for( String uri : known ) {
+                    modified.put( uri, new File( uri ).lastModified() );
+                }
+                ScssStylesheet stylesheet = ScssStylesheet.get( key, collector, resolver );
+                if( stylesheet == null ) {
+                    throw new IOException( "File not found: " + path );
+                }
+                entry = new Parsed( stylesheet, modified );
+                if( collector.getCounts().isEmpty() ) {
+                    // parse again next time, so the messages of the parser are reported again
+                    parsed.put( key, entry );
+                }
+            }
+            // the compile modifies the tree, the copy shares the parsed imports of all previous compiles
+            ScssStylesheet stylesheet = entry.stylesheet.copy();
+            SCSSErrorHandler.set( collector );
+            stylesheet.compile( urlMode, Variables.parse( variables, urlMode, collector ) );
+            css = stylesheet.printState();
+            dependencies = new ArrayList<>( new LinkedHashSet<>( stylesheet.getSourceUris() ) );
+            entry.addDependencies( dependencies, start );
+        } catch( Exception ex ) {
+            failed = true;
+            collector.error( ex );
+        } finally {
+            SCSSErrorHandler.set( null );
+        }
+        List<String> messages = new ArrayList<>();
+        for( SCSSDiagnostic diagnostic : collector.getDiagnostics() ) {
+            failed |= diagnostic.getSeverity() == SCSSDiagnostic.Severity.ERROR;
+            messages.add( diagnostic.toString() );
+        }
+        for( Throwable th : collector.getExceptions() ) {
+            failed = true;
+            messages.add( th.toString() );
+        }
+        return new Result( failed ? 1 : 0, css, dependencies, messages );
+    }
+
+    /**
+     * Write a length prefixed string.
+     * 
+     * @param out
+     *            the target
+     * @param str
+     *            the string
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    static void writeString( DataOutputStream out, String str ) throws IOException {
+        byte[] bytes = str.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    /**
+     * Read a length prefixed string of the daemon.
+     * 
+     * @param in
+     *            the source
+     * @return the string
+     * @throws IOException
+     *             if an I/O error occurs or the length is invalid
+     */
+    static String readString( DataInputStream in ) throws IOException {
+        return readString( in, Integer.MAX_VALUE );
+    }
+
+    /**
+     * Read a length prefixed string.
+     * 
+     * @param in
+     *            the source
+     * @param maxLength
+     *            the maximum length in bytes
+     * @return the string
+     * @throws IOException
+     *             if an I/O error occurs or the length is invalid
+     */
+    static String readString( DataInputStream in, int maxLength ) throws IOException {
+        int length = in.readInt();
+        if( length < 0 || length > maxLength ) {
+            throw new EOFException( "Invalid length: " + length );
+        }
+        byte[] bytes = new byte[length];
+        in.readFully( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * A parsed style sheet and the modification times of all files that any compile of it has used. The parsed imports
+     * are shared by all compiles, so an import of a previous compile must be checked even if the last compile has not
+     * used it.
+     */
+    private static class Parsed {
+
+        private final ScssStylesheet                    stylesheet;
+
+        private final ConcurrentHashMap<String, Long>   modified;
+
+        private Parsed( ScssStylesheet stylesheet, Map<String, Long> modified ) {
+            this.stylesheet = stylesheet;
+            this.modified = new ConcurrentHashMap<>( modified );
+        }
+
+        /**
+         * Remember the modification times of the files that are used for the first time.
+         * 
+         * @param dependencies
+         *            the files of a compile
+         * @param start
+         *            the time before the style sheet or the imports were parsed
+         */
+        private void addDependencies( List<String> dependencies, long start ) {
+            for( String uri : dependencies ) {
+                if( !modified.containsKey( uri ) ) {
+                    long time = new File( uri ).lastModified();
+                    // the file can be changed while it was parsed and the file time can have a resolution of seconds,
+                    // a recently changed file is parsed again with the next compile
+                    modified.putIfAbsent( uri, time >= start - 2000 ? -1 : time );
+                }
+            }
+        }
+
+        /**
+         * Check if one of the files was changed since it was parsed.
+         * 
+         * @return true, if the style sheet must be parsed again
+         */
+        private boolean isModified() {
+            for( Map.Entry<String, Long> entry : modified.entrySet() ) {
+                if( new File( entry.getKey() ).lastModified() != entry.getValue() ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The result of a compile.
+     */
+    public static class Result {
+
+        private final int          status;
+
+        private final String       css;
+
+        private final List<String> dependencies;
+
+        private final List<String> messages;
+
+        Result( int status, String css, List<String> dependencies, List<String> messages ) {
+            this.status = status;
+            this.css = css;
+            this.dependencies = dependencies;
+            this.messages = messages;
+        }
+
+        /**
+         * Read a result from the response of the daemon.
+         * 
+         * @param in
+         *            the response
+         * @return the result
+         * @throws IOException
+         *             if an I/O error occurs
+         */
+        static Result read( DataInputStream in ) throws IOException {
+            int status = in.readInt();
+            String css = readString( in );
+            List<String> dependencies = new ArrayList<>();
+            for( int i = in.readInt(); i > 0; i-- ) {
+                dependencies.add( readString( in ) );
+            }
+            List<String> messages = new ArrayList<>();
+            for( int i = in.readInt(); i > 0; i-- ) {
+                messages.add( readString( in ) );
+            }
+            return new Result( status, css, dependencies, messages );
+        }
+
+        /**
+         * Write this result as response.
+         * 
+         * @param out
+         *            the target
+         * @throws IOException
+         *             if an I/O error occurs
+         */
+        void write( DataOutputStream out ) throws IOException {
+            out.writeInt( status );
+            writeString( out, css );
+            out.writeInt( dependencies.size() );
+            for( String dependency : dependencies ) {
+                writeString( out, dependency );
+            }
+            out.writeInt( messages.size() );
+            for( String message : messages ) {
+                writeString( out, message );
+            }
+        }
+
+        /**
+         * The status of the compile.
+         * 
+         * @return 0 for success, 1 if there were errors
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * The compiled CSS.
+         * 
+         * @return the CSS
+         */
+        public String getCss() {
+            return css;
+        }
+
+        /**
+         * The files that the style sheet has used.
+         * 
+         * @return the style sheet and its imports
+         */
+        public List<String> getDependencies() {
+            return dependencies;
+        }
+
+        /**
+         * The errors and warnings of the compile.
+         * 
+         * @return the messages
+         */
+        public List<String> getMessages() {
+            return messages;
+        }
+    }
+}
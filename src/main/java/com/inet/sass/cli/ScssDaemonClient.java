@@ -0,0 +1,190 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.inet.sass.ScssContext;
+
+/**
+ * A thin client for {@link ScssDaemon}. It sends the compile request and writes the CSS to a file or to the standard
+ * output, the messages to the standard error and the dependencies with the option --deps.
+ * 
+ * <pre>
+ * java -cp sass-compiler.jar com.inet.sass.cli.ScssDaemonClient [--port 7311] [--url-mode MIXED] [--define name=value]... [--deps] input.scss [output.css]
+ * java -cp sass-compiler.jar com.inet.sass.cli.ScssDaemonClient [--port 7311] --stop token
+ * </pre>
+ * The token for --stop is printed by the daemon at startup.
+ */
+public class ScssDaemonClient {
+
+    private final int port;
+
+    /**
+     * Create a client for the daemon on the given loopback port.
+     * 
+     * @param port
+     *            the port of the daemon
+     */
+    public ScssDaemonClient( int port ) {
+        this.port = port;
+    }
+
+    /**
+     * Run the client from the command line.
+     * 
+     * @param args
+     *            the options and files
+     * @throws IOException
+     *             if the daemon is not reachable
+     */
+    public static void main( String[] args ) throws IOException {
+        int port = ScssDaemon.DEFAULT_PORT;
+        ScssContext.UrlMode urlMode = ScssContext.UrlMode.MIXED;
+        Map<String, String> variables = new LinkedHashMap<>();
+        boolean deps = false;
+        String stop = null;
+        String input = null;
+        String output = null;
+        for( int i = 0; i < args.length; i++ ) {
+            String arg = args[i];
+            switch( arg ) {
+                case "--port":
+                    port = Integer.parseInt( args[++i] );
+                    break;
+                case "--url-mode":
+                    urlMode = ScssContext.UrlMode.valueOf( args[++i].toUpperCase() );
+                    break;
+                case "--define":
+                    Variables.add( args[++i], variables );
+                    break;
+                case "--deps":
+                    deps = true;
+                    break;
+                case "--stop":
+                    stop = args[++i];
+                    break;
+                default:
+                    if( input == null && !arg.startsWith( "--" ) ) {
+                        input = arg;
+                    } else if( output == null && !arg.startsWith( "--" ) ) {
+                        output = arg;
+                    } else {
+                        usage();
+                    }
+            }
+        }
+        ScssDaemonClient client = new ScssDaemonClient( port );
+        if( stop != null ) {
+            client.stop( stop );
+            return;
+        }
+        if( input == null ) {
+            usage();
+        }
+        ScssDaemon.Result result = client.compile( new File( input ).getAbsolutePath(), urlMode, variables );
+        for( String message : result.getMessages() ) {
+            System.err.println( message );
+        }
+        if( deps ) {
+            for( String dependency : result.getDependencies() ) {
+                System.err.println( "dependency: " + dependency );
+            }
+        }
+        if( output == null ) {
+            System.out.println( result.getCss() );
+        } else {
+            try( Writer writer = new OutputStreamWriter( new FileOutputStream( output ), StandardCharsets.UTF_8 ) ) {
+                writer.write( result.getCss() );
+            }
+        }
+        if( result.getStatus() != 0 ) {
+            System.exit( 1 );
+        }
+    }
+
+    private static void usage() {
+        System.err.println( "Usage: ScssDaemonClient [--port port] [--url-mode ABSOLUTE|MIXED|RELATIVE] [--define name=value]... [--deps] input.scss [output.css]" );
+        System.err.println( "       ScssDaemonClient [--port port] --stop token" );
+        System.exit( 2 );
+    }
+
+    /**
+     * Compile a style sheet with the daemon.
+     * 
+     * @param path
+     *            the absolute path of the style sheet, the daemon can have another working directory
+     * @param urlMode
+     *            the url mode
+     * @param variables
+     *            the variable overrides as SCSS expressions by the names without "$" or null
+     * @return the result
+     * @throws IOException
+     *             if the daemon is not reachable
+     */
+    public ScssDaemon.Result compile( String path, ScssContext.UrlMode urlMode, Map<String, String> variables ) throws IOException {
+        try( Socket socket = new Socket( InetAddress.getLoopbackAddress(), port ) ) {
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+            ScssDaemon.writeString( out, ScssDaemon.COMMAND_COMPILE );
+            ScssDaemon.writeString( out, path );
+            ScssDaemon.writeString( out, urlMode.name() );
+            if( variables == null ) {
+                out.writeInt( 0 );
+            } else {
+                out.writeInt( variables.size() );
+                for( Map.Entry<String, String> entry : variables.entrySet() ) {
+                    ScssDaemon.writeString( out, entry.getKey() );
+                    ScssDaemon.writeString( out, entry.getValue() );
+                }
+            }
+            out.flush();
+            return ScssDaemon.Result.read( new DataInputStream( new BufferedInputStream( socket.getInputStream() ) ) );
+        }
+    }
+
+    /**
+     * Stop the daemon.
+     * 
+     * @param token
+     *            the token that the daemon has printed at startup
+     * @throws IOException
+     *             if the daemon is not reachable or the token is wrong
+     */
+    public void stop( String token ) throws IOException {
+        try( Socket socket = new Socket( InetAddress.getLoopbackAddress(), port ) ) {
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+            ScssDaemon.writeString( out, ScssDaemon.COMMAND_STOP );
+            ScssDaemon.writeString( out, token );
+            out.flush();
+            if( new DataInputStream( socket.getInputStream() ).readInt() != 0 ) {
+                throw new IOException( "Invalid stop token" );
+            }
+        }
+    }
+}
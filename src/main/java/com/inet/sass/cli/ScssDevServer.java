@@ -0,0 +1,439 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.cli;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.inet.sass.InputSource;
+import com.inet.sass.ScssContext;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.handler.SCSSDiagnostic;
+import com.inet.sass.handler.SCSSDiagnosticsCollector;
+import com.inet.sass.resolver.FilesystemResolver;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A HTTP server for development that compiles the style sheets on request. The request path /css/foo.css is mapped
+ * to the file foo.scss in the root directory, sub directories are mapped in the same way.
+ * <p>
+ * The compiled CSS is cached together with a hash of the content of every file from
+ * {@link ScssStylesheet#getSourceUris()}. A request compiles again only if one of these files has changed. The ETag
+ * of the response is the hash of the CSS, a request with a matching If-None-Match header is answered with 304 Not
+ * Modified. A compile error is answered with 500 and the messages as plain text.
+ * 
+ * <pre>
+ * java -cp sass-compiler.jar com.inet.sass.cli.ScssDevServer [--port 8080] [--url-mode mode] [--load-path dir]... root
+ * </pre>
+ */
+public class ScssDevServer implements Closeable {
+
+    /**
+     * The context path of the style sheets.
+     */
+    public static final String                      CONTEXT = "/css/";
+
+    private final File                              root;
+
+    private final HttpServer                        server;
+
+    private final String[]                          loadPaths;
+
+    private final ExecutorService                   executor;
+
+    private final ScssContext.UrlMode               urlMode;
+
+    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Create and start a server that is bound to the loopback address.
+     * 
+     * @param root
+     *            the directory of the style sheets
+     * @param port
+     *            the port or 0 for a free port
+     * @param urlMode
+     *            the url mode for the compile
+     * @param loadPaths
+     *            additional directories for the imports
+     * @throws IOException
+     *             if the port can not be bound
+     */
+    public ScssDevServer( File root, int port, ScssContext.UrlMode urlMode, String... loadPaths ) throws IOException {
+        this.root = root.getCanonicalFile();
+        this.urlMode = urlMode;
+        this.loadPaths = loadPaths;
+        executor = Executors.newCachedThreadPool( runnable -> {
+            Thread thread = new Thread( runnable, "ScssDevServer" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), port ), 0 );
+        server.createContext( CONTEXT, this::handle );
+        server.setExecutor( executor );
+        server.start();
+    }
+
+    /**
+     * Start a server from the command line.
+     * 
+     * @param args
+     *            the options and the root directory
+     * @throws IOException
+     *             if the port can not be bound
+     */
+    public static void main( String[] args ) throws IOException {
+        int port = 8080;
+        ScssContext.UrlMode urlMode = ScssContext.UrlMode.MIXED;
+        List<String> loadPaths = new ArrayList<>();
+        File root = null;
+        try {
+            for( int i = 0; i < args.length; i++ ) {
+                switch( args[i] ) {
+                    case "--port":
+                        port = Integer.parseInt( args[++i] );
+                        break;
+                    case "--url-mode":
+                        urlMode = ScssContext.UrlMode.valueOf( args[++i].toUpperCase() );
+                        break;
+                    case "--load-path":
+                        loadPaths.add( args[++i] );
+                        break;
+                    default:
+                        if( args[i].startsWith( "--" ) || root != null ) {
+                            throw new IllegalArgumentException( args[i] );
+                        }
+                        root = new File( args[i] );
+                }
+            }
+        } catch( RuntimeException ex ) {
+            root = null;
+        }
+        if( root == null || !root.isDirectory() ) {
+            System.err.println( "Usage: ScssDevServer [--port port] [--url-mode mode] [--load-path dir]... root" );
+            System.exit( 2 );
+        }
+        ScssDevServer server = new ScssDevServer( root, port, urlMode, loadPaths.toArray( new String[loadPaths.size()] ) );
+        System.out.println( "ScssDevServer listening on http://localhost:" + server.getPort() + CONTEXT );
+    }
+
+    /**
+     * The bound port.
+     * 
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop( 0 );
+        executor.shutdown();
+    }
+
+    /**
+     * Handle a single request.
+     * 
+     * @param exchange
+     *            the request and response
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private void handle( HttpExchange exchange ) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath().substring( CONTEXT.length() );
+            File source = null;
+            if( path.endsWith( ".css" ) ) {
+                source = new File( root, path.substring( 0, path.length() - 4 ) + ".scss" ).getCanonicalFile();
+            }
+            if( !method.equals( "GET" ) && !method.equals( "HEAD" ) ) {
+                send( exchange, 405, "text/plain", null, method.getBytes( StandardCharsets.UTF_8 ) );
+                return;
+            }
+            if( source == null || !source.getPath().startsWith( root.getPath() + File.separator ) || !source.isFile() ) {
+                send( exchange, 404, "text/plain", null, ("Not found: " + exchange.getRequestURI().getPath()).getBytes( StandardCharsets.UTF_8 ) );
+                return;
+            }
+
+            Cached cached = get( source );
+            if( cached.errors != null ) {
+                send( exchange, 500, "text/plain", null, cached.errors.getBytes( StandardCharsets.UTF_8 ) );
+            } else if( cached.etag.equals( exchange.getRequestHeaders().getFirst( "If-None-Match" ) ) ) {
+                exchange.getResponseHeaders().set( "ETag", cached.etag );
+                exchange.sendResponseHeaders( 304, -1 );
+            } else {
+                send( exchange, 200, "text/css; charset=UTF-8", cached.etag, cached.css );
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Send a response.
+     * 
+     * @param exchange
+     *            the request and response
+     * @param status
+     *            the HTTP status
+     * @param contentType
+     *            the content type
+     * @param etag
+     *            the ETag or null
+     * @param body
+     *            the content
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private static void send( HttpExchange exchange, int status, String contentType, String etag, byte[] body ) throws IOException {
+        exchange.getResponseHeaders().set( "Content-Type", contentType );
+        exchange.getResponseHeaders().set( "Cache-Control", "no-cache" );
+        if( etag != null ) {
+            exchange.getResponseHeaders().set( "ETag", etag );
+        }
+        boolean head = exchange.getRequestMethod().equals( "HEAD" );
+        exchange.sendResponseHeaders( status, head ? -1 : body.length );
+        if( !head ) {
+            try( OutputStream out = exchange.getResponseBody() ) {
+                out.write( body );
+            }
+        }
+    }
+
+    /**
+     * Get the compiled style sheet from the cache or compile it if a dependency has changed.
+     * 
+     * @param source
+     *            the canonical file of the style sheet
+     * @return the result
+     */
+    Cached get( File source ) {
+        // compute() blocks concurrent requests of the same file until the compile is finished
+        return cache.compute( source.getPath(), ( key, cached ) -> cached != null && !cached.isModified() ? cached : compile( source ) );
+    }
+
+    /**
+     * Compile a style sheet.
+     * 
+     * @param source
+     *            the canonical file of the style sheet
+     * @return the result
+     */
+    private Cached compile( File source ) {
+        SCSSDiagnosticsCollector collector = new SCSSDiagnosticsCollector( 100 );
+        RecordingResolver resolver = new RecordingResolver( loadPaths );
+        Cached cached = new Cached();
+        try {
+            ScssStylesheet stylesheet = ScssStylesheet.get( source.getPath(), collector, resolver );
+            if( stylesheet == null ) {
+                throw new IOException( "File not found: " + source );
+            }
+            stylesheet.compile( urlMode );
+            cached.css = stylesheet.printState().getBytes( StandardCharsets.UTF_8 );
+            cached.etag = '"' + hash( cached.css ) + '"';
+        } catch( Exception ex ) {
+            collector.error( ex );
+        }
+        StringBuilder errors = new StringBuilder();
+        for( SCSSDiagnostic diagnostic : collector.getDiagnostics() ) {
+            if( diagnostic.getSeverity() == SCSSDiagnostic.Severity.ERROR ) {
+                errors.append( diagnostic ).append( '\n' );
+            }
+        }
+        for( Throwable th : collector.getExceptions() ) {
+            errors.append( th ).append( '\n' );
+        }
+        if( errors.length() > 0 ) {
+            cached.errors = errors.toString();
+        }
+        // every file that was read, also an import that has failed to parse
+        Dependency state = resolver.read.get( source );
+        cached.dependencies.put( source, state != null ? state : new Dependency( source ) );
+        cached.dependencies.putAll( resolver.read );
+        return cached;
+    }
+
+    /**
+     * Create a hex string of the SHA-256 hash.
+     * 
+     * @param data
+     *            the data
+     * @return the hash
+     */
+    static String hash( byte[] data ) {
+        try {
+            byte[] digest = MessageDigest.getInstance( "SHA-256" ).digest( data );
+            StringBuilder builder = new StringBuilder();
+            for( byte b : digest ) {
+                builder.append( Character.forDigit( (b >> 4) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+            }
+            return builder.toString();
+        } catch( NoSuchAlgorithmException ex ) {
+            throw new IllegalStateException( ex ); // every Java platform must support SHA-256
+        }
+    }
+
+    /**
+     * The result of a compile.
+     */
+    static class Cached {
+
+        private byte[]                          css;
+
+        private String                          etag;
+
+        // the messages of the compile errors or null
+        private String                          errors;
+
+        private final Map<File, Dependency>     dependencies = new LinkedHashMap<>();
+
+        /**
+         * Check if the content of the style sheet or one of its imports has changed since the compile.
+         * 
+         * @return true, if it must be compiled again
+         */
+        private boolean isModified() {
+            for( Map.Entry<File, Dependency> entry : dependencies.entrySet() ) {
+                if( entry.getValue().isModified( entry.getKey() ) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The ETag of the compiled CSS.
+         * 
+         * @return the quoted hash or null if the compile has failed
+         */
+        String getETag() {
+            return errors == null ? etag : null;
+        }
+    }
+
+    /**
+     * A resolver for a single compile that remembers the state of every file that it has read. The hash is calculated
+     * from the parsed content, a file that is saved during the compile is detected as modified with the next request.
+     */
+    private static class RecordingResolver extends FilesystemResolver {
+
+        private final Map<File, Dependency> read = new ConcurrentHashMap<>();
+
+        private RecordingResolver( String... loadPaths ) {
+            super( StandardCharsets.UTF_8, loadPaths );
+        }
+
+        @Override
+        public InputSource resolveNormalized( String identifier ) {
+            InputSource source = super.resolveNormalized( identifier );
+            if( source == null ) {
+                return null;
+            }
+            File file = new File( source.getURI() );
+            byte[] data;
+            long lastModified = file.lastModified();
+            try {
+                source.getByteStream().close();
+                data = Files.readAllBytes( file.toPath() );
+            } catch( IOException ex ) {
+                return null;
+            }
+            read.put( file, new Dependency( lastModified, data ) );
+            InputStream in = new ByteArrayInputStream( data );
+            source.setByteStream( in );
+            source.setCharacterStream( new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8 ) ) );
+            return source;
+        }
+    }
+
+    /**
+     * The state of a file at compile time.
+     */
+    private static class Dependency {
+
+        private long    lastModified;
+
+        private long    length;
+
+        // the content hash or null if the file does not exist
+        private String  hash;
+
+        private Dependency( File file ) {
+            lastModified = file.lastModified();
+            length = file.length();
+            hash = readHash( file );
+        }
+
+        private Dependency( long lastModified, byte[] data ) {
+            this.lastModified = lastModified;
+            length = data.length;
+            hash = hash( data );
+        }
+
+        private static String readHash( File file ) {
+            try {
+                return hash( Files.readAllBytes( file.toPath() ) );
+            } catch( IOException ex ) {
+                return null;
+            }
+        }
+
+        /**
+         * Check if the content of the file has changed. The content is only hashed again if the time stamp or the
+         * size has changed, a touched file with the same content is not modified.
+         * 
+         * @param file
+         *            the file
+         * @return true, if the content has changed
+         */
+        private boolean isModified( File file ) {
+            long modified = file.lastModified();
+            long size = file.length();
+            if( modified == lastModified && size == length ) {
+                return false;
+            }
+            String current = readHash( file );
+            if( current == null ? hash != null : !current.equals( hash ) ) {
+                return true;
+            }
+            lastModified = modified;
+            length = size;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.cli;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.inet.sass.InputSource;
+import com.inet.sass.Scope;
+import com.inet.sass.ScssContext;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.parser.SassListItem;
+import com.inet.sass.parser.Variable;
+import com.inet.sass.resolver.ScssStylesheetResolver;
+
+/**
+ * Converts variable overrides from the command line or a request into values for
+ * {@link ScssStylesheet#compile(ScssContext.UrlMode, Map)}.
+ */
+class Variables {
+
+    /**
+     * Parse and evaluate the values of the variables.
+     * 
+     * @param values
+     *            the SCSS expressions by the variable names without the "$"
+     * @param urlMode
+     *            the url mode of the compile
+     * @param errorHandler
+     *            the error handler for invalid expressions
+     * @return the evaluated values or null if there are no values
+     * @throws Exception
+     *             if the evaluation fails
+     */
+    static Map<String, SassListItem> parse( Map<String, String> values, ScssContext.UrlMode urlMode, SCSSErrorHandler errorHandler ) throws Exception {
+        if( values == null || values.isEmpty() ) {
+            return null;
+        }
+        StringBuilder scss = new StringBuilder();
+        for( Map.Entry<String, String> entry : values.entrySet() ) {
+            scss.append( '$' ).append( entry.getKey() ).append( ": " ).append( entry.getValue() ).append( ";\n" );
+        }
+        ScssStylesheetResolver resolver = new ScssStylesheetResolver() {
+            @Override
+            public InputSource resolve( ScssStylesheet parentStylesheet, String identifier ) {
+                return new InputSource( new StringReader( scss.toString() ) );
+            }
+        };
+        Scope scope = ScssStylesheet.get( "", errorHandler, resolver ).compilePrelude( urlMode, null );
+        Map<String, SassListItem> variables = new HashMap<>();
+        for( String name : values.keySet() ) {
+            Variable variable = scope.getVariable( name );
+            if( variable != null ) {
+                variables.put( name, variable.getExpr() );
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * Split a "name=value" argument and add it to the values.
+     * 
+     * @param definition
+     *            the argument
+     * @param values
+     *            the target
+     * @throws IllegalArgumentException
+     *             if the argument has no "="
+     */
+    static void add( String definition, Map<String, String> values ) {
+        int idx = definition.indexOf( '=' );
+        if( idx <= 0 ) {
+            throw new IllegalArgumentException( "Invalid variable definition, expected name=value: " + definition );
+        }
+        String name = definition.substring( 0, idx ).trim();
+        if( name.startsWith( "$" ) ) {
+            name = name.substring( 1 );
+        }
+        values.put( name, definition.substring( idx + 1 ).trim() );
+    }
+}
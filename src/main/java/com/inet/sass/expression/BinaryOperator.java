@@ -62,28 +62,28 @@ public enum BinaryOperator {
         @Override
         public LexicalUnitImpl evalInternal(LexicalUnitImpl leftValue,
                 LexicalUnitImpl rightValue) {
-            return createBooleanUnit(getDoubleValue(leftValue) < getDoubleValue(rightValue));
+            return createBooleanUnit(getDoubleValue(leftValue) < getDoubleValue(rightValue, leftValue));
         }
     },
     GREATER_THAN(LexicalUnitImpl.SAC_OPERATOR_GT, 3) {
         @Override
         public LexicalUnitImpl evalInternal(LexicalUnitImpl leftValue,
                 LexicalUnitImpl rightValue) {
-            return createBooleanUnit(getDoubleValue(leftValue) > getDoubleValue(rightValue));
+            return createBooleanUnit(getDoubleValue(leftValue) > getDoubleValue(rightValue, leftValue));
         }
     },
     LESS_THAN_OR_EQUALS(LexicalUnitImpl.SAC_OPERATOR_LE, 3) {
         @Override
         public LexicalUnitImpl evalInternal(LexicalUnitImpl leftValue,
                 LexicalUnitImpl rightValue) {
-            return createBooleanUnit(getDoubleValue(leftValue) <= getDoubleValue(rightValue));
+            return createBooleanUnit(getDoubleValue(leftValue) <= getDoubleValue(rightValue, leftValue));
         }
     },
     GREATER_THAN_OR_EQUALS(LexicalUnitImpl.SAC_OPERATOR_GE, 3) {
         @Override
         public LexicalUnitImpl evalInternal(LexicalUnitImpl leftValue,
                 LexicalUnitImpl rightValue) {
-            return createBooleanUnit(getDoubleValue(leftValue) >= getDoubleValue(rightValue));
+            return createBooleanUnit(getDoubleValue(leftValue) >= getDoubleValue(rightValue, leftValue));
         }
     },
     ADD(LexicalUnitImpl.SAC_OPERATOR_PLUS, 4) {
@@ -188,6 +188,20 @@ public enum BinaryOperator {
         return unit.getDoubleValue();
     }
 
+    /**
+     * Get the value of a number converted into the unit of another number.
+     * 
+     * @param unit
+     *            the number
+     * @param target
+     *            the number with the target unit
+     * @return the value
+     */
+    private static double getDoubleValue(LexicalUnitImpl unit, LexicalUnitImpl target) {
+        getDoubleValue(unit); // throws an exception if it is not a number
+        return unit.getDoubleValue(target);
+    }
+
     private static LexicalUnitImpl createBooleanUnit(boolean value) {
         return LexicalUnitImpl.createIdent(String.valueOf(value));
     }
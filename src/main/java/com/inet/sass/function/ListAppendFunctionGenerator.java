@@ -41,7 +41,8 @@ class ListAppendFunctionGenerator extends ListFunctionGenerator {
         SassListItem appendItem = getParam(actualArguments, "val");
 
         SassList list = asList(listAsItem);
-        ArrayList<SassListItem> newList = new ArrayList<SassListItem>();
+        ArrayList<SassListItem> newList = new ArrayList<SassListItem>(
+                list.size() + 1);
         for (SassListItem item : list) {
             newList.add(item);
         }
@@ -21,6 +21,7 @@ import com.inet.sass.parser.FormalArgumentList;
 import com.inet.sass.parser.LexicalUnitImpl;
 import com.inet.sass.parser.ParseException;
 import com.inet.sass.parser.SassListItem;
+import com.inet.sass.util.Color;
 import com.inet.sass.util.ColorUtil;
 
 class MixFunctionGenerator extends AbstractFunctionGenerator {
@@ -54,6 +55,15 @@ class MixFunctionGenerator extends AbstractFunctionGenerator {
         }
         double w1 = ((w + a) / (1 + w * a) + 1) / 2.0;
         double w2 = 1 - w1;
+        Color value1 = color1.getColor();
+        Color value2 = color2.getColor();
+        if( value1 != null && value2 != null ) {
+            int red = (int)Math.round( w1 * value1.getRed() + w2 * value2.getRed() );
+            int green = (int)Math.round( w1 * value1.getGreen() + w2 * value2.getGreen() );
+            int blue = (int)Math.round( w1 * value1.getBlue() + w2 * value2.getBlue() );
+            double alpha = alpha1 * p + alpha2 * (1 - p);
+            return ColorUtil.createRgbaOrHexColor( red, green, blue, alpha, function.getLineNumber(), function.getColumnNumber() );
+        }
         int[] rgb1 = ColorUtil.colorToRgb(color1);
         int[] rgb2 = ColorUtil.colorToRgb(color2);
         int[] result = new int[3];
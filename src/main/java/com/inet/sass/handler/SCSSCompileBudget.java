@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.handler;
+
+/**
+ * Limits for the evaluation of loops in a compile run. A compile that exceeds a limit fails with a
+ * {@link com.inet.sass.parser.ParseException}. This protects a server that compiles untrusted style sheets against
+ * runaway @for, @each and @while loops. The budget is bound to the current thread like the {@link SCSSErrorHandler}.
+ * If no budget is set then loops are not limited.
+ * 
+ * <pre>
+ * SCSSCompileBudget.set( new SCSSCompileBudget( 100000, 50000, 5000 ) );
+ * ScssStylesheet sheet = ScssStylesheet.get( file, errorHandler, resolver );
+ * sheet.compile();
+ * </pre>
+ */
+public class SCSSCompileBudget {
+
+    private static ThreadLocal<SCSSCompileBudget> current = new ThreadLocal<SCSSCompileBudget>();
+
+    private final long maxIterations;
+
+    private final long maxOutputNodes;
+
+    private final long maxWallTime;
+
+    /**
+     * Create a budget. A value of zero or less means no limit.
+     * 
+     * @param maxIterations
+     *            the maximum number of loop iterations of all loops of a compile run
+     * @param maxOutputNodes
+     *            the maximum number of nodes that all loops of a compile run can create
+     * @param maxWallTime
+     *            the maximum time in milliseconds of a compile run, checked on every loop iteration
+     */
+    public SCSSCompileBudget( long maxIterations, long maxOutputNodes, long maxWallTime ) {
+        this.maxIterations = maxIterations > 0 ? maxIterations : Long.MAX_VALUE;
+        this.maxOutputNodes = maxOutputNodes > 0 ? maxOutputNodes : Long.MAX_VALUE;
+        this.maxWallTime = maxWallTime > 0 ? maxWallTime : Long.MAX_VALUE;
+    }
+
+    /**
+     * Set the budget of the current thread.
+     * 
+     * @param budget the budget or null to disable the limits
+     */
+    public static void set( SCSSCompileBudget budget ) {
+        current.set( budget );
+    }
+
+    /**
+     * Get the budget of the current thread.
+     * 
+     * @return the budget or null
+     */
+    public static SCSSCompileBudget get() {
+        return current.get();
+    }
+
+    /**
+     * The maximum number of loop iterations.
+     * 
+     * @return the limit, Long.MAX_VALUE if unlimited
+     */
+    public long getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * The maximum number of nodes created by loops.
+     * 
+     * @return the limit, Long.MAX_VALUE if unlimited
+     */
+    public long getMaxOutputNodes() {
+        return maxOutputNodes;
+    }
+
+    /**
+     * The maximum time of a compile run in milliseconds.
+     * 
+     * @return the limit, Long.MAX_VALUE if unlimited
+     */
+    public long getMaxWallTime() {
+        return maxWallTime;
+    }
+}
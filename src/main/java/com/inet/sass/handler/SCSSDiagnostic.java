@@ -0,0 +1,215 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.handler;
+
+import java.util.ArrayList;
+
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.parser.ParseException;
+import com.inet.sass.selector.Selector;
+import com.inet.sass.tree.BlockNode;
+import com.inet.sass.tree.MediaNode;
+import com.inet.sass.tree.MixinNode;
+import com.inet.sass.tree.Node;
+import com.inet.sass.tree.SourceLocation;
+
+/**
+ * A lightweight record of an expected error or warning in a style sheet. It is reported to
+ * {@link SCSSErrorHandler#diagnostic(SCSSDiagnostic)} if the error handler is in diagnostics mode.
+ */
+public class SCSSDiagnostic implements SourceLocation {
+
+    /**
+     * The severity of a diagnostic.
+     */
+    public enum Severity {
+        ERROR, WARNING
+    }
+
+    private final Severity severity;
+
+    private final String   code;
+
+    private final String   message;
+
+    private final String   uri;
+
+    private final int      line;
+
+    private final int      column;
+
+    private final String   path;
+
+    /**
+     * Create a diagnostic.
+     * 
+     * @param severity
+     *            the severity
+     * @param code
+     *            the kind of the diagnostic like "unknown-function"
+     * @param message
+     *            the message without the location
+     * @param location
+     *            the location in the style sheet or null
+     * @param path
+     *            the path of the enclosing rules like ".a &gt; @include b" or null
+     */
+    public SCSSDiagnostic( Severity severity, String code, String message, SourceLocation location, String path ) {
+        this.severity = severity;
+        this.code = code;
+        this.message = message;
+        this.uri = location != null ? location.getUri() : null;
+        this.line = location != null ? location.getLineNumber() : -1;
+        this.column = location != null ? location.getColumnNumber() : -1;
+        this.path = path;
+    }
+
+    /**
+     * Create a diagnostic for an exception.
+     * 
+     * @param severity
+     *            the severity
+     * @param code
+     *            the kind of the diagnostic
+     * @param ex
+     *            the exception
+     * @param location
+     *            the location where the exception was caught, used if the exception has no own location
+     * @return the diagnostic
+     */
+    static SCSSDiagnostic create( Severity severity, String code, ParseException ex, SourceLocation location ) {
+        String message = ex.getDescription();
+        Throwable cause = ex.getCause();
+        if( cause instanceof ParseException ) {
+            message += ": " + ((ParseException)cause).getDescription();
+        }
+        SourceLocation exLocation = ex.getSourceLocation();
+        return new SCSSDiagnostic( severity, code, message, exLocation != null ? exLocation : location, getPath( location ) );
+    }
+
+    /**
+     * Get the path of the enclosing rules of a node.
+     * 
+     * @param location
+     *            the location, the path is only available for nodes
+     * @return the path or null
+     */
+    static String getPath( SourceLocation location ) {
+        if( !(location instanceof Node) ) {
+            return null;
+        }
+        ArrayList<String> segments = new ArrayList<>();
+        boolean hasBlock = false;
+        for( Node node = (Node)location; node != null && !(node instanceof ScssStylesheet); node = node.getParentNode() ) {
+            if( node instanceof BlockNode ) {
+                if( hasBlock ) {
+                    // the selectors of the inner block contain already the parent selectors
+                    continue;
+                }
+                hasBlock = true;
+                StringBuilder selectors = new StringBuilder();
+                for( Selector selector : ((BlockNode)node).getSelectorList() ) {
+                    if( selectors.length() > 0 ) {
+                        selectors.append( ", " );
+                    }
+                    selectors.append( selector );
+                }
+                segments.add( selectors.toString() );
+            } else if( node instanceof MixinNode ) {
+                segments.add( "@include " + ((MixinNode)node).getName() );
+            } else if( node instanceof MediaNode ) {
+                segments.add( "@media " + ((MediaNode)node).getMedia() );
+            }
+        }
+        if( segments.isEmpty() ) {
+            return null;
+        }
+        StringBuilder path = new StringBuilder();
+        for( int i = segments.size() - 1; i >= 0; i-- ) {
+            path.append( segments.get( i ) );
+            if( i > 0 ) {
+                path.append( " > " );
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * The severity.
+     * 
+     * @return the severity
+     */
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    /**
+     * The kind of the diagnostic, for example "unknown-function" or "error" for an error without a special code.
+     * 
+     * @return the code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * The message without the location.
+     * 
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String getUri() {
+        return uri;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return line;
+    }
+
+    @Override
+    public int getColumnNumber() {
+        return column;
+    }
+
+    /**
+     * The enclosing rules of the location, for example ".a &gt; @include b".
+     * 
+     * @return the path or null if unknown
+     */
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder( message );
+        if( line > 0 ) {
+            builder.append( " at line " ).append( line ).append( ", column " ).append( column );
+        }
+        if( uri != null ) {
+            builder.append( ", in file " ).append( uri.substring( uri.lastIndexOf( '/' ) + 1 ) );
+        }
+        if( path != null ) {
+            builder.append( " (" ).append( path ).append( ')' );
+        }
+        return builder.toString();
+    }
+}
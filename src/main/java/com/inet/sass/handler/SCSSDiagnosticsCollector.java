@@ -0,0 +1,217 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.handler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.inet.sass.handler.SCSSDiagnostic.Severity;
+import com.inet.sass.tree.SourceLocation;
+
+/**
+ * An error handler that collects the errors and warnings of a compile as {@link SCSSDiagnostic} records. A diagnostic
+ * is recorded only once per code and location, for example for an unknown function that is called in a loop, and at
+ * most a fixed number of diagnostics is recorded per code. The number of all occurrences is counted.
+ * <p>
+ * The diagnostics mode is enabled by the constructor. Exceptions that are not a ParseException are internal errors and
+ * are kept with their stack trace.
+ * 
+ * <pre>
+ * SCSSDiagnosticsCollector collector = new SCSSDiagnosticsCollector( 100 );
+ * ScssStylesheet stylesheet = ScssStylesheet.get( uri, collector, resolver );
+ * stylesheet.compile();
+ * for( SCSSDiagnostic diagnostic : collector.getDiagnostics() ) {
+ *     ...
+ * }
+ * </pre>
+ */
+public class SCSSDiagnosticsCollector extends SCSSErrorHandler {
+
+    private final int                     maxPerCode;
+
+    private final List<SCSSDiagnostic>    diagnostics = new ArrayList<>();
+
+    private final List<Throwable>         exceptions  = new ArrayList<>();
+
+    private final Set<Key>                reported    = new HashSet<>();
+
+    private final Map<String, int[]>      counts      = new LinkedHashMap<>();
+
+    private final Map<String, int[]>      recorded    = new HashMap<>();
+
+    private int                           suppressed;
+
+    /**
+     * Create a collector.
+     * 
+     * @param maxPerCode
+     *            the maximum number of recorded diagnostics per code
+     */
+    public SCSSDiagnosticsCollector( int maxPerCode ) {
+        this.maxPerCode = maxPerCode;
+        setDiagnosticsMode( true );
+    }
+
+    /**
+     * Count the occurrence and check for duplicates and the limit before the diagnostic is created.
+     */
+    @Override
+    public synchronized boolean accept( String code, SourceLocation location ) {
+        increment( counts, code );
+        if( location != null && location.getLineNumber() > 0 && !reported.add( new Key( code, location.getUri(), location.getLineNumber(), location.getColumnNumber(), null ) ) ) {
+            suppressed++;
+            return false;
+        }
+        int[] count = recorded.get( code );
+        if( count != null && count[0] >= maxPerCode ) {
+            suppressed++;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void diagnostic( SCSSDiagnostic diagnostic ) {
+        if( diagnostic.getLineNumber() <= 0 ) {
+            // without location the message is used to detect repeated diagnostics
+            if( !reported.add( new Key( diagnostic.getCode(), null, -1, -1, diagnostic.getMessage() ) ) ) {
+                suppressed++;
+                return;
+            }
+        }
+        increment( recorded, diagnostic.getCode() );
+        diagnostics.add( diagnostic );
+    }
+
+    @Override
+    public void error( String msg ) {
+        if( accept( "error", null ) ) {
+            diagnostic( new SCSSDiagnostic( Severity.ERROR, "error", msg, null, null ) );
+        }
+    }
+
+    @Override
+    public void warning( String msg ) {
+        if( accept( "warning", null ) ) {
+            diagnostic( new SCSSDiagnostic( Severity.WARNING, "warning", msg, null, null ) );
+        }
+    }
+
+    @Override
+    public synchronized void error( Throwable th ) {
+        exceptions.add( th );
+        increment( counts, "internal" );
+    }
+
+    @Override
+    public synchronized void warning( Throwable th ) {
+        exceptions.add( th );
+        increment( counts, "internal" );
+    }
+
+    private static void increment( Map<String, int[]> map, String code ) {
+        int[] count = map.get( code );
+        if( count == null ) {
+            map.put( code, count = new int[1] );
+        }
+        count[0]++;
+    }
+
+    /**
+     * The recorded diagnostics in the order of occurrence.
+     * 
+     * @return the diagnostics
+     */
+    public synchronized List<SCSSDiagnostic> getDiagnostics() {
+        return new ArrayList<>( diagnostics );
+    }
+
+    /**
+     * The exceptions that are not expected errors in the style sheet, with their stack trace.
+     * 
+     * @return the internal errors
+     */
+    public synchronized List<Throwable> getExceptions() {
+        return new ArrayList<>( exceptions );
+    }
+
+    /**
+     * The number of occurrences per code, including the repeated and suppressed diagnostics. Internal errors are
+     * counted with the code "internal".
+     * 
+     * @return the counts in the order of the first occurrence
+     */
+    public synchronized Map<String, Integer> getCounts() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for( Map.Entry<String, int[]> entry : counts.entrySet() ) {
+            result.put( entry.getKey(), entry.getValue()[0] );
+        }
+        return result;
+    }
+
+    /**
+     * The number of occurrences that were not recorded because they were repeated or exceeded the limit of the code.
+     * 
+     * @return the count
+     */
+    public synchronized int getSuppressedCount() {
+        return suppressed;
+    }
+
+    /**
+     * The key for repeated diagnostics.
+     */
+    private static class Key {
+
+        private final String code;
+
+        private final String uri;
+
+        private final int    line;
+
+        private final int    column;
+
+        private final String message;
+
+        private Key( String code, String uri, int line, int column, String message ) {
+            this.code = code;
+            this.uri = uri;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( code, uri, message ) * 31 + line * 1021 + column;
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            if( !(obj instanceof Key) ) {
+                return false;
+            }
+            Key key = (Key)obj;
+            return line == key.line && column == key.column && code.equals( key.code ) && Objects.equals( uri, key.uri ) && Objects.equals( message, key.message );
+        }
+    }
+}
@@ -54,7 +54,10 @@ import com.inet.sass.tree.controldirective.IfElseDefNode;
 import com.inet.sass.tree.controldirective.IfNode;
 import com.inet.sass.tree.controldirective.WhileNode;
 
-public class SCSSDocumentHandler {
+/**
+ * Builds the node tree of a style sheet from the events of the parser.
+ */
+public class SCSSDocumentHandler implements SCSSEventHandler {
 
     private final ScssStylesheet styleSheet;
     Stack<Node>                  nodeStack = new Stack<Node>();
@@ -68,142 +71,191 @@ public class SCSSDocumentHandler {
         return styleSheet;
     }
 
+    @Override
+    public void charset( String encoding ) {
+        styleSheet.setCharset( encoding );
+    }
+
+    @Override
     public void variable( String name, SassListItem value, boolean guarded ) {
         VariableNode node = new VariableNode( name, value, guarded );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void debugDirective( SassListItem message ) {
         MessageNode node = new MessageNode( message, MessageLevel.debug );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void warnDirective( SassListItem message ) {
         MessageNode node = new MessageNode( message, MessageLevel.warn );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void errorDirective( SassListItem message ) {
         MessageNode node = new MessageNode( message, MessageLevel.error );
         nodeStack.peek().appendChild( node );
     }
 
     public void startForDirective( String var, SassListItem from, SassListItem to, boolean exclusive ) {
-        ForNode node = new ForNode( var, from, to, exclusive );
+        startForDirective( null, 0, 0, var, from, to, exclusive );
+    }
+
+    @Override
+    public void startForDirective( String uri, int line, int column, String var, SassListItem from, SassListItem to, boolean exclusive ) {
+        ForNode node = new ForNode( uri, line, column, var, from, to, exclusive );
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endForDirective() {
         nodeStack.pop();
     }
 
     public void startEachDirective( List<String> variables, SassListItem list ) {
-        EachDefNode node = new EachDefNode( variables, list );
+        startEachDirective( null, 0, 0, variables, list );
+    }
+
+    @Override
+    public void startEachDirective( String uri, int line, int column, List<String> variables, SassListItem list ) {
+        EachDefNode node = new EachDefNode( uri, line, column, variables, list );
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endEachDirective() {
         nodeStack.pop();
     }
 
     public void startWhileDirective( SassListItem condition ) {
-        WhileNode node = new WhileNode( condition );
+        startWhileDirective( null, 0, 0, condition );
+    }
+
+    @Override
+    public void startWhileDirective( String uri, int line, int column, SassListItem condition ) {
+        WhileNode node = new WhileNode( uri, line, column, condition );
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endWhileDirective() {
         nodeStack.pop();
     }
 
+    @Override
     public void comment( String text ) {
         CommentNode node = new CommentNode( text );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void startMedia( String uri, int line, int column, MediaList media ) {
         MediaNode node = new MediaNode( uri, line, column, media );
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endMedia()  {
         nodeStack.pop();
     }
 
+    @Override
     public void startFontFace() {
         FontFaceNode node = new FontFaceNode();
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endFontFace() {
         nodeStack.pop();
     }
 
+    @Override
     public void startSelector( String uri, int line, int column, List<Selector> selectors ) {
         BlockNode node = new BlockNode( uri, line, column, selectors );
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endSelector() {
         nodeStack.pop();
     }
 
     public void property( StringInterpolationSequence name, SassListItem value, boolean important, String comment ) {
-        RuleNode node = new RuleNode( name, value, important, comment );
+        property( null, 0, 0, name, value, important, comment );
+    }
+
+    @Override
+    public void property( String uri, int line, int column, StringInterpolationSequence name, SassListItem value, boolean important, String comment ) {
+        RuleNode node = new RuleNode( uri, line, column, name, value, important, comment );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void extendDirective( List<Selector> list, boolean optional ) {
         ExtendNode node = new ExtendNode( list, optional );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void startNestedProperties( StringInterpolationSequence name ) {
         NestPropertiesNode node = new NestPropertiesNode( name );
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endNestedProperties() {
         nodeStack.pop();
     }
 
+    @Override
     public void startMixinDirective( String name, FormalArgumentList args ) {
         MixinDefNode node = new MixinDefNode( name.trim(), args );
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endMixinDirective() {
         nodeStack.pop();
     }
 
+    @Override
     public void startFunctionDirective( String name, FormalArgumentList args ) {
         FunctionDefNode node = new FunctionDefNode( name.trim(), args );
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void endFunctionDirective() {
         nodeStack.pop();
     }
 
+    @Override
     public void importStyle( String uri, MediaList media, boolean isURL ) {
         ImportNode node = new ImportNode( uri, media, isURL );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void startIfElseDirective() {
         final IfElseDefNode node = new IfElseDefNode();
         nodeStack.peek().appendChild( node );
         nodeStack.push( node );
     }
 
+    @Override
     public void ifDirective( SassListItem evaluator ) {
         if( nodeStack.peek() instanceof IfNode ) {
             nodeStack.pop();
@@ -213,6 +265,7 @@ public class SCSSDocumentHandler {
         nodeStack.push( node );
     }
 
+    @Override
     public void elseDirective() {
         if( nodeStack.peek() instanceof IfNode ) {
             nodeStack.pop();
@@ -222,6 +275,7 @@ public class SCSSDocumentHandler {
         nodeStack.push( node );
     }
 
+    @Override
     public void endIfElseDirective() {
         if( (nodeStack.peek() instanceof ElseNode) || (nodeStack.peek() instanceof IfNode) ) {
             nodeStack.pop();
@@ -231,11 +285,13 @@ public class SCSSDocumentHandler {
 
     // rule that is passed to the output as-is (except variable value
     // substitution) - no children
+    @Override
     public void unrecognizedRule( String text ) {
         SimpleNode node = new SimpleNode( text );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void startKeyFrames( String keyframeName, StringInterpolationSequence animationName ) {
         KeyframesNode node = new KeyframesNode( keyframeName, animationName );
         nodeStack.peek().appendChild( node );
@@ -243,11 +299,13 @@ public class SCSSDocumentHandler {
 
     }
 
+    @Override
     public void endKeyFrames() {
         nodeStack.pop();
 
     }
 
+    @Override
     public void startKeyframeSelector( String selector ) {
         KeyframeSelectorNode node = new KeyframeSelectorNode( selector );
         nodeStack.peek().appendChild( node );
@@ -255,20 +313,24 @@ public class SCSSDocumentHandler {
 
     }
 
+    @Override
     public void endKeyframeSelector() {
         nodeStack.pop();
     }
 
+    @Override
     public void contentDirective() {
         ContentNode node = new ContentNode();
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void returnDirective( SassListItem expr ) {
         ReturnNode node = new ReturnNode( expr );
         nodeStack.peek().appendChild( node );
     }
 
+    @Override
     public void startInclude( String uri, int line, int column, String name, ActualArgumentList args ) {
         MixinNode node = new MixinNode( uri, line, column, name, args );
         nodeStack.peek().appendChild( node );
@@ -276,6 +338,7 @@ public class SCSSDocumentHandler {
 
     }
 
+    @Override
     public void endInclude() {
         nodeStack.pop();
     }
@@ -16,10 +16,16 @@
  */
 package com.inet.sass.handler;
 
+import com.inet.sass.handler.SCSSDiagnostic.Severity;
+import com.inet.sass.parser.ParseException;
+import com.inet.sass.tree.SourceLocation;
+
 public abstract class SCSSErrorHandler {
 
     private static ThreadLocal<SCSSErrorHandler> current = new ThreadLocal<SCSSErrorHandler>();
 
+    private boolean diagnosticsMode;
+
     public static void set(SCSSErrorHandler h) {
         current.set(h);
     }
@@ -42,4 +48,135 @@ public abstract class SCSSErrorHandler {
 
     public void debug( String msg ) {
     }
+
+    /**
+     * Enable or disable the diagnostics mode. In diagnostics mode the expected
+     * errors and warnings in a style sheet are reported as lightweight
+     * records to {@link #diagnostic(SCSSDiagnostic)} and a ParseException
+     * does not fill its stack trace. Other exceptions are still reported to
+     * {@link #error(Throwable)} with the stack trace.
+     * 
+     * @param diagnosticsMode
+     *            true, to enable
+     */
+    public void setDiagnosticsMode( boolean diagnosticsMode ) {
+        this.diagnosticsMode = diagnosticsMode;
+    }
+
+    /**
+     * If the diagnostics mode is enabled.
+     * 
+     * @return true, if enabled
+     */
+    public boolean isDiagnosticsMode() {
+        return diagnosticsMode;
+    }
+
+    /**
+     * Receives the errors and warnings in the diagnostics mode. The default
+     * implementation forwards the message with the location to
+     * {@link #error(String)} or {@link #warning(String)}.
+     * 
+     * @param diagnostic
+     *            the error or warning
+     */
+    public void diagnostic( SCSSDiagnostic diagnostic ) {
+        if( diagnostic.getSeverity() == Severity.ERROR ) {
+            error( diagnostic.toString() );
+        } else {
+            warning( diagnostic.toString() );
+        }
+    }
+
+    /**
+     * Check in the diagnostics mode if a diagnostic should be created. It is
+     * called before the message and the path of the diagnostic are created,
+     * so a handler can skip repeated diagnostics cheaply.
+     * 
+     * @param code
+     *            the kind of the diagnostic
+     * @param location
+     *            the location in the style sheet or null
+     * @return true, if {@link #diagnostic(SCSSDiagnostic)} should be called
+     */
+    public boolean accept( String code, SourceLocation location ) {
+        return true;
+    }
+
+    /**
+     * Report an exception that was caught during the compile to the error
+     * handler of the current thread.
+     * 
+     * @param th
+     *            the exception
+     * @param location
+     *            the node or value that was processed
+     */
+    public static void reportError( Throwable th, SourceLocation location ) {
+        SCSSErrorHandler handler = get();
+        if( handler.diagnosticsMode && th instanceof ParseException ) {
+            report( handler, Severity.ERROR, "error", (ParseException)th, location );
+        } else {
+            handler.error( th );
+        }
+    }
+
+    /**
+     * Report an exception that was caught during the compile as warning to
+     * the error handler of the current thread.
+     * 
+     * @param th
+     *            the exception
+     * @param location
+     *            the node or value that was processed
+     */
+    public static void reportWarning( Throwable th, SourceLocation location ) {
+        SCSSErrorHandler handler = get();
+        if( handler.diagnosticsMode && th instanceof ParseException ) {
+            report( handler, Severity.WARNING, "warning", (ParseException)th, location );
+        } else {
+            handler.warning( th );
+        }
+    }
+
+    private static void report( SCSSErrorHandler handler, Severity severity, String code, ParseException ex, SourceLocation location ) {
+        SourceLocation exLocation = ex.getSourceLocation();
+        if( handler.accept( code, exLocation != null ? exLocation : location ) ) {
+            handler.diagnostic( SCSSDiagnostic.create( severity, code, ex, location ) );
+        }
+    }
+
+    /**
+     * Report an error or warning to the error handler of the current thread.
+     * Outside of the diagnostics mode the message is reported to
+     * {@link #error(String)} or {@link #warning(String)}.
+     * 
+     * @param severity
+     *            the severity
+     * @param code
+     *            the kind of the diagnostic like "unknown-function"
+     * @param message
+     *            the message
+     * @param argument
+     *            an optional value that is appended to the message, like the
+     *            name of an unknown function, or null. The concatenation is
+     *            only done if the message is really reported.
+     * @param location
+     *            the node or value that was processed
+     */
+    public static void report( Severity severity, String code, String message, String argument, SourceLocation location ) {
+        SCSSErrorHandler handler = get();
+        if( handler.diagnosticsMode ) {
+            if( handler.accept( code, location ) ) {
+                handler.diagnostic( new SCSSDiagnostic( severity, code, argument == null ? message : message + argument, location, SCSSDiagnostic.getPath( location ) ) );
+            }
+            return;
+        }
+        String msg = argument == null ? message : message + argument;
+        if( severity == Severity.ERROR ) {
+            handler.error( msg );
+        } else {
+            handler.warning( msg );
+        }
+    }
 }
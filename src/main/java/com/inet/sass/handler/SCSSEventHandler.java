@@ -0,0 +1,367 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.handler;
+
+import java.util.List;
+
+import com.inet.sass.parser.ActualArgumentList;
+import com.inet.sass.parser.FormalArgumentList;
+import com.inet.sass.parser.MediaList;
+import com.inet.sass.parser.SassListItem;
+import com.inet.sass.parser.StringInterpolationSequence;
+import com.inet.sass.selector.Selector;
+
+/**
+ * Receives the events of the {@link com.inet.sass.parser.ScssParser} while it reads a file, similar to SAX. The
+ * {@link SCSSDocumentHandler} builds the node tree for the compiler from the events. Other implementations like
+ * linters or dependency scanners can process the files without creating a node tree. All methods do nothing by
+ * default, an implementation overrides only the events it needs. Every start event is followed by the matching end
+ * event after the events of the content.
+ * 
+ * <pre>
+ * List&lt;String&gt; imports = new ArrayList&lt;&gt;();
+ * new ScssParser().parseStyleSheet( new SCSSEventHandler() {
+ *     public void importStyle( String uri, MediaList media, boolean isURL ) {
+ *         imports.add( uri );
+ *     }
+ * }, source );
+ * </pre>
+ */
+public interface SCSSEventHandler {
+
+    /**
+     * A @charset rule.
+     * 
+     * @param encoding the name of the encoding
+     */
+    public default void charset( String encoding ) {
+    }
+
+    /**
+     * A variable assignment.
+     * 
+     * @param name the name without the "$"
+     * @param value the unevaluated value
+     * @param guarded true, if the assignment has the flag !default
+     */
+    public default void variable( String name, SassListItem value, boolean guarded ) {
+    }
+
+    /**
+     * A @debug directive.
+     * 
+     * @param message the unevaluated message
+     */
+    public default void debugDirective( SassListItem message ) {
+    }
+
+    /**
+     * A @warn directive.
+     * 
+     * @param message the unevaluated message
+     */
+    public default void warnDirective( SassListItem message ) {
+    }
+
+    /**
+     * An @error directive.
+     * 
+     * @param message the unevaluated message
+     */
+    public default void errorDirective( SassListItem message ) {
+    }
+
+    /**
+     * Start of a @for loop.
+     * 
+     * @param uri the file
+     * @param line the line of the directive
+     * @param column the column of the directive
+     * @param var the name of the loop variable
+     * @param from the start value
+     * @param to the end value
+     * @param exclusive true for "to", false for "through"
+     */
+    public default void startForDirective( String uri, int line, int column, String var, SassListItem from, SassListItem to, boolean exclusive ) {
+    }
+
+    /**
+     * End of a @for loop.
+     */
+    public default void endForDirective() {
+    }
+
+    /**
+     * Start of an @each loop.
+     * 
+     * @param uri the file
+     * @param line the line of the directive
+     * @param column the column of the directive
+     * @param variables the names of the loop variables
+     * @param list the iterated list
+     */
+    public default void startEachDirective( String uri, int line, int column, List<String> variables, SassListItem list ) {
+    }
+
+    /**
+     * End of an @each loop.
+     */
+    public default void endEachDirective() {
+    }
+
+    /**
+     * Start of a @while loop.
+     * 
+     * @param uri the file
+     * @param line the line of the directive
+     * @param column the column of the directive
+     * @param condition the loop condition
+     */
+    public default void startWhileDirective( String uri, int line, int column, SassListItem condition ) {
+    }
+
+    /**
+     * End of a @while loop.
+     */
+    public default void endWhileDirective() {
+    }
+
+    /**
+     * A comment that is part of the output.
+     * 
+     * @param text the comment
+     */
+    public default void comment( String text ) {
+    }
+
+    /**
+     * Start of a @media rule.
+     * 
+     * @param uri the file
+     * @param line the line of the rule
+     * @param column the column of the rule
+     * @param media the media queries
+     */
+    public default void startMedia( String uri, int line, int column, MediaList media ) {
+    }
+
+    /**
+     * End of a @media rule.
+     */
+    public default void endMedia() {
+    }
+
+    /**
+     * Start of a @font-face rule.
+     */
+    public default void startFontFace() {
+    }
+
+    /**
+     * End of a @font-face rule.
+     */
+    public default void endFontFace() {
+    }
+
+    /**
+     * Start of a block with selectors.
+     * 
+     * @param uri the file
+     * @param line the line of the block
+     * @param column the column of the block
+     * @param selectors the selectors
+     */
+    public default void startSelector( String uri, int line, int column, List<Selector> selectors ) {
+    }
+
+    /**
+     * End of a block with selectors.
+     */
+    public default void endSelector() {
+    }
+
+    /**
+     * A property declaration.
+     * 
+     * @param uri the file
+     * @param line the line of the property
+     * @param column the column of the property
+     * @param name the name of the property
+     * @param value the unevaluated value
+     * @param important true, if the value has the flag !important
+     * @param comment a comment or null
+     */
+    public default void property( String uri, int line, int column, StringInterpolationSequence name, SassListItem value, boolean important, String comment ) {
+    }
+
+    /**
+     * An @extend directive.
+     * 
+     * @param list the extended selectors
+     * @param optional true, if the directive has the flag !optional
+     */
+    public default void extendDirective( List<Selector> list, boolean optional ) {
+    }
+
+    /**
+     * Start of nested properties like "font: { family: x; }".
+     * 
+     * @param name the name prefix of the nested properties
+     */
+    public default void startNestedProperties( StringInterpolationSequence name ) {
+    }
+
+    /**
+     * End of nested properties.
+     */
+    public default void endNestedProperties() {
+    }
+
+    /**
+     * Start of a @mixin definition.
+     * 
+     * @param name the name of the mixin
+     * @param args the formal arguments
+     */
+    public default void startMixinDirective( String name, FormalArgumentList args ) {
+    }
+
+    /**
+     * End of a @mixin definition.
+     */
+    public default void endMixinDirective() {
+    }
+
+    /**
+     * Start of a @function definition.
+     * 
+     * @param name the name of the function
+     * @param args the formal arguments
+     */
+    public default void startFunctionDirective( String name, FormalArgumentList args ) {
+    }
+
+    /**
+     * End of a @function definition.
+     */
+    public default void endFunctionDirective() {
+    }
+
+    /**
+     * An @import directive.
+     * 
+     * @param uri the imported file as written in the directive
+     * @param media the media queries or null
+     * @param isURL true, if the file is given with url()
+     */
+    public default void importStyle( String uri, MediaList media, boolean isURL ) {
+    }
+
+    /**
+     * Start of an @if directive with its @else branches.
+     */
+    public default void startIfElseDirective() {
+    }
+
+    /**
+     * The @if or @else if branch with a condition. It ends with the next branch or the end of the directive.
+     * 
+     * @param evaluator the condition
+     */
+    public default void ifDirective( SassListItem evaluator ) {
+    }
+
+    /**
+     * The @else branch. It ends with the end of the directive.
+     */
+    public default void elseDirective() {
+    }
+
+    /**
+     * End of an @if directive.
+     */
+    public default void endIfElseDirective() {
+    }
+
+    /**
+     * A rule that is passed to the output as it is.
+     * 
+     * @param text the rule
+     */
+    public default void unrecognizedRule( String text ) {
+    }
+
+    /**
+     * Start of a @keyframes rule.
+     * 
+     * @param keyframeName the rule name including a vendor prefix
+     * @param animationName the name of the animation
+     */
+    public default void startKeyFrames( String keyframeName, StringInterpolationSequence animationName ) {
+    }
+
+    /**
+     * End of a @keyframes rule.
+     */
+    public default void endKeyFrames() {
+    }
+
+    /**
+     * Start of a selector in a @keyframes rule.
+     * 
+     * @param selector the selector like "from" or "50%"
+     */
+    public default void startKeyframeSelector( String selector ) {
+    }
+
+    /**
+     * End of a selector in a @keyframes rule.
+     */
+    public default void endKeyframeSelector() {
+    }
+
+    /**
+     * A @content directive.
+     */
+    public default void contentDirective() {
+    }
+
+    /**
+     * A @return directive.
+     * 
+     * @param expr the unevaluated value
+     */
+    public default void returnDirective( SassListItem expr ) {
+    }
+
+    /**
+     * Start of an @include directive. The content block follows as events before the end.
+     * 
+     * @param uri the file
+     * @param line the line of the directive
+     * @param column the column of the directive
+     * @param name the name of the mixin
+     * @param args the actual arguments
+     */
+    public default void startInclude( String uri, int line, int column, String name, ActualArgumentList args ) {
+    }
+
+    /**
+     * End of an @include directive.
+     */
+    public default void endInclude() {
+    }
+}
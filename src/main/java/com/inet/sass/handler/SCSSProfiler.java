@@ -0,0 +1,325 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.handler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.inet.sass.util.StringUtil;
+
+/**
+ * Opt-in profiler for a compile run. The profiler is bound to the current thread like the {@link SCSSErrorHandler}
+ * and collects the wall time and allocated bytes of the compile phases (parsing of every file, traversal, @extend
+ * processing and printing) and the call counts and cumulative time of mixins, user functions, built-in functions and
+ * loops. If no profiler is set then the compiler does not measure anything.
+ * <p>
+ * All times are inclusive: the time of a mixin contains the time of all mixins and functions called from it, and the
+ * parsing of imported files is part of the traverse phase of the importing style sheet unless the imports are
+ * prefetched.
+ * 
+ * <pre>
+ * SCSSProfiler profiler = new SCSSProfiler();
+ * SCSSProfiler.set( profiler );
+ * ScssStylesheet sheet = ScssStylesheet.get( file, errorHandler, resolver );
+ * sheet.compile();
+ * sheet.printState();
+ * SCSSProfiler.set( null );
+ * String json = profiler.toJson();
+ * </pre>
+ */
+public class SCSSProfiler {
+
+    /**
+     * The categories of measured calls.
+     */
+    public enum Category {
+        /** an @include of a mixin */
+        MIXIN,
+        /** a call of a @function defined in SCSS */
+        FUNCTION,
+        /** a call of a function implemented by the compiler */
+        BUILTIN_FUNCTION,
+        /** the evaluation of a @for, @each or @while loop */
+        LOOP
+    }
+
+    private static ThreadLocal<SCSSProfiler> current = new ThreadLocal<SCSSProfiler>();
+
+    private final List<Phase>                   phases  = new ArrayList<>();
+
+    private final Map<Category, Map<String, Entry>> entries = new EnumMap<>( Category.class );
+
+    /**
+     * Set the profiler of the current thread.
+     * 
+     * @param profiler the profiler or null to disable profiling
+     */
+    public static void set( SCSSProfiler profiler ) {
+        current.set( profiler );
+    }
+
+    /**
+     * Get the profiler of the current thread.
+     * 
+     * @return the profiler or null if profiling is disabled
+     */
+    public static SCSSProfiler get() {
+        return current.get();
+    }
+
+    /**
+     * Start the measuring of a phase.
+     * 
+     * @param name the name of the phase like "parse" or "traverse"
+     * @param uri the file that is processed, can be null
+     * @return the phase that must be passed to {@link #endPhase(Phase)}
+     */
+    public Phase startPhase( String name, String uri ) {
+        Phase phase = new Phase( name, uri );
+        synchronized( phases ) {
+            // imports can be parsed on multiple threads
+            phases.add( phase );
+        }
+        phase.nanos = System.nanoTime();
+        phase.allocatedBytes = allocatedBytes();
+        return phase;
+    }
+
+    /**
+     * Finish the measuring of a phase.
+     * 
+     * @param phase the value from {@link #startPhase(String, String)}
+     */
+    public void endPhase( Phase phase ) {
+        long allocated = allocatedBytes();
+        phase.allocatedBytes = allocated < 0 || phase.allocatedBytes < 0 ? -1 : allocated - phase.allocatedBytes;
+        phase.nanos = System.nanoTime() - phase.nanos;
+    }
+
+    /**
+     * Add a single call.
+     * 
+     * @param category the category of the call
+     * @param name the name of the mixin, function or loop
+     * @param startNanos the value of {@link System#nanoTime()} at the start of the call
+     */
+    public void add( Category category, String name, long startNanos ) {
+        long nanos = System.nanoTime() - startNanos;
+        Map<String, Entry> map = entries.get( category );
+        if( map == null ) {
+            entries.put( category, map = new LinkedHashMap<>() );
+        }
+        Entry entry = map.get( name );
+        if( entry == null ) {
+            map.put( name, entry = new Entry( name ) );
+        }
+        entry.count++;
+        entry.nanos += nanos;
+    }
+
+    /**
+     * Get the measured phases in the order they were started.
+     * 
+     * @return the phases
+     */
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList( phases );
+    }
+
+    /**
+     * Get the measured calls of a category, sorted by descending cumulative time.
+     * 
+     * @param category the category
+     * @return the entries
+     */
+    public List<Entry> getEntries( Category category ) {
+        Map<String, Entry> map = entries.get( category );
+        if( map == null ) {
+            return Collections.emptyList();
+        }
+        List<Entry> list = new ArrayList<>( map.values() );
+        list.sort( ( e1, e2 ) -> Long.compare( e2.nanos, e1.nanos ) );
+        return list;
+    }
+
+    /**
+     * Create a JSON report of all measured values. Times are in nanoseconds, an allocation of -1 means that the JVM
+     * does not support the measuring of allocated bytes.
+     * 
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder( "{\n  \"phases\": [" );
+        for( int i = 0; i < phases.size(); i++ ) {
+            Phase phase = phases.get( i );
+            json.append( i == 0 ? "\n    {" : ",\n    {" );
+            json.append( "\"name\": " );
+            StringUtil.appendJsonString( json, phase.name );
+            json.append( ", \"uri\": " );
+            StringUtil.appendJsonString( json, phase.uri );
+            json.append( ", \"nanos\": " ).append( phase.nanos );
+            json.append( ", \"allocatedBytes\": " ).append( phase.allocatedBytes ).append( '}' );
+        }
+        json.append( "\n  ]" );
+        for( Category category : Category.values() ) {
+            json.append( ",\n  \"" ).append( category.name().toLowerCase() ).append( "\": [" );
+            List<Entry> list = getEntries( category );
+            for( int i = 0; i < list.size(); i++ ) {
+                Entry entry = list.get( i );
+                json.append( i == 0 ? "\n    {" : ",\n    {" );
+                json.append( "\"name\": " );
+                StringUtil.appendJsonString( json, entry.name );
+                json.append( ", \"count\": " ).append( entry.count );
+                json.append( ", \"nanos\": " ).append( entry.nanos ).append( '}' );
+            }
+            json.append( "\n  ]" );
+        }
+        return json.append( "\n}\n" ).toString();
+    }
+
+    /**
+     * Get the allocated bytes of the current thread.
+     * 
+     * @return the bytes or -1 if not supported
+     */
+    private static long allocatedBytes() {
+        return Allocation.BEAN != null ? Allocation.BEAN.getThreadAllocatedBytes( Thread.currentThread().getId() ) : -1;
+    }
+
+    /**
+     * Lazy holder of the HotSpot specific thread bean.
+     */
+    private static class Allocation {
+        private static final com.sun.management.ThreadMXBean BEAN = create();
+
+        private static com.sun.management.ThreadMXBean create() {
+            try {
+                ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+                if( bean instanceof com.sun.management.ThreadMXBean ) {
+                    com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+                    if( sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled() ) {
+                        return sunBean;
+                    }
+                }
+            } catch( Throwable th ) {
+                // not a HotSpot based JVM
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A measured phase of the compiler.
+     */
+    public static class Phase {
+        private final String name;
+
+        private final String uri;
+
+        private long         nanos;
+
+        private long         allocatedBytes;
+
+        private Phase( String name, String uri ) {
+            this.name = name;
+            this.uri = uri;
+        }
+
+        /**
+         * The name of the phase.
+         * 
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The processed file.
+         * 
+         * @return the uri or null
+         */
+        public String getUri() {
+            return uri;
+        }
+
+        /**
+         * The wall time of the phase.
+         * 
+         * @return the time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * The bytes allocated by the current thread during the phase.
+         * 
+         * @return the bytes or -1 if not supported
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    /**
+     * The cumulative values of all calls with the same name.
+     */
+    public static class Entry {
+        private final String name;
+
+        private int          count;
+
+        private long         nanos;
+
+        private Entry( String name ) {
+            this.name = name;
+        }
+
+        /**
+         * The name of the mixin, function or loop.
+         * 
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The number of calls.
+         * 
+         * @return the count
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * The cumulative wall time of all calls.
+         * 
+         * @return the time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
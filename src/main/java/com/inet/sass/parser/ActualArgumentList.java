@@ -18,6 +18,7 @@ package com.inet.sass.parser;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import com.inet.sass.ScssContext;
@@ -128,26 +129,49 @@ public class ActualArgumentList {
          */
         SassListItem variableArgument = this.variableArgument;
         if ( variableArgument != null ) {
-            List<SassListItem> unnamedArgs = new ArrayList<SassListItem>( arglist.getItems() );
-            List<Variable> namedArgs = new ArrayList<Variable>( arglist.getNamedVariables() );
+            List<SassListItem> unnamedArgs = arglist.getItems();
+            List<Variable> namedArgs = arglist.getNamedVariables();
             if( variableArgument instanceof SassList ) {
                 SassList lastList = (SassList) variableArgument;
-                for (SassListItem item : lastList) {
+                List<SassListItem> varArgs = lastList.getItems();
+                List<SassListItem> unnamedVarArgs = null;
+                List<Variable> namedVarArgs = null;
+                int size = varArgs.size();
+                for( int i = 0; i < size; i++ ) {
+                    SassListItem item = varArgs.get( i );
                     // if it is a map then the map items are like named arguments
                     if( item.getClass() == SassList.class ) {
                         SassList map = (SassList)item;
                         if( map.getSeparator() == Separator.COLON ) {
-                            namedArgs.add( new Variable( map.get( 0 ).unquotedString(), map.get( 1 ) ) );
+                            if( unnamedVarArgs == null ) {
+                                unnamedVarArgs = new ArrayList<SassListItem>( varArgs.subList( 0, i ) );
+                            }
+                            if( namedVarArgs == null ) {
+                                namedVarArgs = new ArrayList<Variable>();
+                            }
+                            namedVarArgs.add( new Variable( map.get( 0 ).unquotedString(), map.get( 1 ) ) );
                             continue;
                         }
                     }
-                    unnamedArgs.add(item);
+                    if( unnamedVarArgs != null ) {
+                        unnamedVarArgs.add( item );
+                    }
+                }
+                // without map items the variable argument list can be used as view without copying
+                unnamedArgs = SassList.concat( unnamedArgs, unnamedVarArgs == null ? varArgs : unnamedVarArgs );
+                if( namedVarArgs != null ) {
+                    namedArgs = concatNamed( namedArgs, namedVarArgs );
                 }
             }
             // Append any remaining variable name-value pairs to the argument list
             if (variableArgument.getClass() == ArgumentList.class ) {
-                for( Variable namedVar : ((ArgumentList)variableArgument).getNamedVariables() ) {
-                    namedArgs.add( namedVar.copy() );
+                List<Variable> remaining = ((ArgumentList)variableArgument).getNamedVariables();
+                if( !remaining.isEmpty() ) {
+                    List<Variable> copies = new ArrayList<Variable>( remaining.size() );
+                    for( Variable namedVar : remaining ) {
+                        copies.add( namedVar.copy() );
+                    }
+                    namedArgs = concatNamed( namedArgs, copies );
                 }
             }
             return new ActualArgumentList( arglist.getSeparator( variableArgument ), unnamedArgs, namedArgs, null );
@@ -155,6 +179,35 @@ public class ActualArgumentList {
         return this;
     }
 
+    /**
+     * Concatenate the named arguments. The first list is not modified.
+     * 
+     * @param first
+     *            the existing named arguments
+     * @param second
+     *            the additional named arguments
+     * @return a list with all named arguments
+     */
+    private static List<Variable> concatNamed( List<Variable> first, List<Variable> second ) {
+        if( first.isEmpty() ) {
+            return second;
+        }
+        List<Variable> result = new ArrayList<Variable>( first.size() + second.size() );
+        result.addAll( first );
+        result.addAll( second );
+        return result;
+    }
+
+    /**
+     * Evaluates the arithmetic expressions and functions of the arguments
+     * without modifying this list.
+     * 
+     * @param context
+     *            the compilation context
+     * @param evaluateArithmetics
+     *            true, if arithmetic expressions should be evaluated
+     * @return this if no argument has changed, else a new argument list
+     */
     public ActualArgumentList evaluateFunctionsAndExpressions(
             ScssContext context, boolean evaluateArithmetics) {
         ArgumentList newArgList = arglist.evaluateFunctionsAndExpressions(
@@ -164,6 +217,9 @@ public class ActualArgumentList {
             newVarArg = variableArgument.evaluateFunctionsAndExpressions(
                     context, evaluateArithmetics);
         }
+        if( newArgList == arglist && newVarArg == variableArgument ) {
+            return this;
+        }
         return new ActualArgumentList(newArgList, newVarArg);
     }
 
@@ -203,6 +259,17 @@ public class ActualArgumentList {
         return arglist.get(i);
     }
 
+    /**
+     * Returns a view of the unnamed arguments from index fromIndex (inclusive)
+     * to toIndex (exclusive). The arguments are not copied.
+     */
+    public List<SassListItem> subList(int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return Collections.emptyList();
+        }
+        return arglist.getItems().subList(fromIndex, toIndex);
+    }
+
     public Separator getSeparator() {
         return arglist.getSeparator();
     }
@@ -18,6 +18,7 @@ package com.inet.sass.parser;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.tree.Node;
@@ -54,21 +55,52 @@ public class ArgumentList extends SassList {
         return namedVariables;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isConstant( Set<String> constantVariables ) {
+        for( Variable var : namedVariables ) {
+            if( var.getExpr() == null || !var.getExpr().isConstant( constantVariables ) ) {
+                return false;
+            }
+        }
+        return super.isConstant( constantVariables );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Returns this list itself if none of the named or unnamed arguments has
+     * changed.
+     */
     @Override
     public ArgumentList evaluateFunctionsAndExpressions(ScssContext context,
             boolean evaluateArithmetics) {
-        List<SassListItem> list = new ArrayList<SassListItem>();
-        for (SassListItem item : this) {
-            list.add(item.evaluateFunctionsAndExpressions(context,
-                    evaluateArithmetics));
+        List<SassListItem> items = getItems();
+        List<SassListItem> list = evaluateFunctionsAndExpressions( context, evaluateArithmetics, items );
+        List<Variable> namedVariables = this.namedVariables;
+        List<Variable> named = null;
+        int size = namedVariables.size();
+        for( int i = 0; i < size; i++ ) {
+            Variable var = namedVariables.get( i );
+            SassListItem expr = var.getExpr();
+            SassListItem evaluated = expr.evaluateFunctionsAndExpressions( context, evaluateArithmetics );
+            if( named == null ) {
+                if( evaluated == expr ) {
+                    continue;
+                }
+                named = new ArrayList<Variable>( size );
+                for( int k = 0; k < i; k++ ) {
+                    named.add( namedVariables.get( k ) );
+                }
+            }
+            named.add( new Variable( var.getName(), evaluated, var.isGuarded() ) );
         }
-        List<Variable> named = new ArrayList<Variable>();
-        for (Variable var : namedVariables) {
-            named.add(new Variable(var.getName(), var.getExpr()
-                    .evaluateFunctionsAndExpressions(context,
-                            evaluateArithmetics), var.isGuarded()));
+        if( list == items && named == null ) {
+            return this;
         }
-        return new ArgumentList(getSeparator(), list, named);
+        return new ArgumentList( getSeparator(), list, named == null ? namedVariables : named );
     }
 
     protected Separator getSeparator(SassListItem expr) {
@@ -18,6 +18,7 @@ package com.inet.sass.parser;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -149,8 +150,12 @@ public class FormalArgumentList implements Iterable<Variable> {
     private List<Variable> replaceNamedArguments(
             ArrayList<Variable> formalArguments,
             ActualArgumentList actualArguments) {
+        List<Variable> namedActual = actualArguments.getNamedVariables();
+        if (namedActual.isEmpty()) {
+            return Collections.emptyList();
+        }
         ArrayList<Variable> unusedNamed = new ArrayList<Variable>();
-        for (Variable actualArg : actualArguments.getNamedVariables()) {
+        for (Variable actualArg : namedActual) {
             boolean actualUsed = false;
             for (Variable formalArg : formalArguments) {
                 if (formalArg.getName().equals(actualArg.getName())
@@ -237,18 +242,7 @@ public class FormalArgumentList implements Iterable<Variable> {
                     arglist.get(formalIndex).getExpr());
             formalIndex = getNextUnset(formalArguments, formalIndex + 1);
         }
-        ArrayList<SassListItem> remainingUnnamed = subList(actualArguments,
-                actualIndex, actualArguments.size());
-        return remainingUnnamed;
-    }
-
-    private static ArrayList<SassListItem> subList(ActualArgumentList list,
-            int minIndex, int maxIndex) {
-        ArrayList<SassListItem> result = new ArrayList<SassListItem>();
-        for (int i = minIndex; i < maxIndex; i++) {
-            result.add(list.get(i));
-        }
-        return result;
+        return actualArguments.subList(actualIndex, actualArguments.size());
     }
 
     private static int getNextUnset(ArrayList<Variable> named, int i) {
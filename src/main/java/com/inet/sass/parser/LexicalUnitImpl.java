@@ -22,34 +22,29 @@
  */
 package com.inet.sass.parser;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.function.SCSSFunctionGenerator;
+import com.inet.sass.handler.SCSSDiagnostic.Severity;
 import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.handler.SCSSProfiler;
 import com.inet.sass.tree.BlockNode;
 import com.inet.sass.tree.FunctionCall;
 import com.inet.sass.tree.FunctionDefNode;
 import com.inet.sass.tree.Node;
 import com.inet.sass.tree.Node.BuildStringStrategy;
+import com.inet.sass.util.Color;
 import com.inet.sass.util.ColorUtil;
+import com.inet.sass.util.NumberUtil;
 import com.inet.sass.util.StringUtil;
 
 public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
 
     public static final long PRECISION = 100000L;
 
-    private static final ThreadLocal<DecimalFormat> CSS_FLOAT_FORMAT = new ThreadLocal<DecimalFormat>() {
-        @Override
-        protected DecimalFormat initialValue() {
-            return new DecimalFormat("0.#####", DecimalFormatSymbols.getInstance(Locale.US) );
-        }
-    };
-
     public static final LexicalUnitImpl WHITESPACE = new LexicalUnitImpl( null, 0, 0, SAC_IDENT, " " );
 
     private short type;
@@ -66,6 +61,9 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
     private String printState;
     private boolean varNotResolved;
 
+    // the cached color value, null if not calculated or not a color
+    private Color color;
+
     LexicalUnitImpl( String uri, int line, int column, short type ) {
         this.uri = uri;
         this.line = line;
@@ -176,7 +174,7 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
      * @return a string representing the value, either with or without decimals
      */
     public String getDoubleOrInteger() {
-        return CSS_FLOAT_FORMAT.get().format( f );
+        return NumberUtil.format( f );
     }
 
     private void setDoubleValue( double f ) {
@@ -247,6 +245,49 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
         return params;
     }
 
+    /**
+     * Get the color value of this unit. The value is cached if the unit has no
+     * variables, so chained color functions do not parse it again.
+     * 
+     * @return the color or null if this is not a color
+     */
+    public Color getColor() {
+        Color color = this.color;
+        if( color == null ) {
+            color = ColorUtil.parseColor( this );
+            if( color != null && !containsInterpolation() && hasConstantParameters() ) {
+                this.color = color;
+            }
+        }
+        return color;
+    }
+
+    /**
+     * Set the color value of a unit that was created from it.
+     * 
+     * @param color
+     *            the color, can be null
+     */
+    public void setColor( Color color ) {
+        this.color = color;
+    }
+
+    /**
+     * Check if the parameters do not depend on variables.
+     * 
+     * @return true, if there are no parameters or all are constant
+     */
+    private boolean hasConstantParameters() {
+        if( params != null ) {
+            for( int i = 0; i < params.size(); i++ ) {
+                if( !params.get( i ).isConstant() ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Get the URI, where a function is define
      * @return the uri
@@ -300,36 +341,126 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
         return result;
     }
 
+    /**
+     * Get the unit of this number.
+     * 
+     * @return the unit, {@link Unit#NONE} for a number without unit or null if this is not a number
+     */
+    public Unit getUnit() {
+        return Unit.of( type, sdimension );
+    }
+
+    /**
+     * Set the unit of a new created number.
+     * 
+     * @param unit
+     *            the unit
+     */
+    private void setUnit( Unit unit ) {
+        setLexicalUnitType( unit.getType() );
+        sdimension = unit.getType() == SAC_DIMENSION ? unit.getText() : null;
+    }
+
+    /**
+     * Get the value converted into the unit of another number, for example for
+     * comparing numbers with compatible units like 1in and 96px.
+     * 
+     * @param target
+     *            the number with the target unit
+     * @return the converted value or the value itself if the units are not compatible
+     */
+    public double getDoubleValue( LexicalUnitImpl target ) {
+        Unit unit = getUnit();
+        Unit targetUnit = target.getUnit();
+        if( unit == null || targetUnit == null || unit == targetUnit || unit == Unit.NONE || targetUnit == Unit.NONE ) {
+            return f;
+        }
+        double factor = unit.getConversionFactor( targetUnit );
+        return Double.isNaN( factor ) ? f : f * factor;
+    }
+
     public LexicalUnitImpl divide( LexicalUnitImpl denominator ) {
         if( denominator.type != SAC_INTEGER && denominator.type != SAC_REAL && type != denominator.type ) {
+            Unit unit = getUnit();
+            Unit denominatorUnit = denominator.getUnit();
+            if( unit != null && denominatorUnit != null ) {
+                Unit.Result result = unit.divide( denominatorUnit );
+                if( result.getUnit() == Unit.NONE || unit.isCompound() || denominatorUnit.isCompound() ) {
+                    LexicalUnitImpl copy = copyWithValue( getDoubleValue() / denominator.getDoubleValue() * result.getFactor() );
+                    copy.setUnit( result.getUnit() );
+                    return copy;
+                }
+            }
             // then this is not a numeric division
             return new LexicalUnitImpl( uri, line, column, SAC_IDENT, printState()+'/'+denominator.printState() );
         }
         LexicalUnitImpl copy = copyWithValue( getDoubleValue() / denominator.getDoubleValue() );
         if( type == denominator.type ) {
-            copy.setLexicalUnitType( SAC_REAL );
+            if( type == SAC_DIMENSION && !sdimension.equals( denominator.sdimension ) ) {
+                copy.setUnit( getUnit().divide( denominator.getUnit() ).getUnit() );
+            } else {
+                copy.setLexicalUnitType( SAC_REAL );
+                copy.sdimension = null;
+            }
         }
         return copy;
     }
 
     public LexicalUnitImpl add(LexicalUnitImpl another) {
-        LexicalUnitImpl copy = copyWithValue(getDoubleValue()
-                + another.getDoubleValue());
-        copy.setLexicalUnitType(checkAndGetUnit(another));
-        return copy;
+        return addOrSubtract( another, 1 );
     }
 
     public LexicalUnitImpl minus(LexicalUnitImpl another) {
-        LexicalUnitImpl copy = copyWithValue(getDoubleValue()
-                - another.getDoubleValue());
-        copy.setLexicalUnitType(checkAndGetUnit(another));
+        return addOrSubtract( another, -1 );
+    }
+
+    /**
+     * Add or subtract a number. A value with a compatible unit is converted
+     * into the unit of this number.
+     * 
+     * @param another
+     *            the other number
+     * @param sign
+     *            1 for an addition, -1 for a subtraction
+     * @return the result
+     */
+    private LexicalUnitImpl addOrSubtract( LexicalUnitImpl another, int sign ) {
+        double value = another.getDoubleValue();
+        short resultType = checkAndGetUnit( another );
+        if( resultType == another.type && resultType != type ) {
+            LexicalUnitImpl copy = copyWithValue( getDoubleValue() + sign * value );
+            copy.setLexicalUnitType( resultType );
+            copy.sdimension = another.sdimension;
+            return copy;
+        }
+        if( resultType != SAC_INTEGER && resultType != SAC_REAL && !another.isUnitlessNumber() ) {
+            Unit unit = getUnit();
+            Unit otherUnit = another.getUnit();
+            if( unit != otherUnit ) {
+                value *= otherUnit.getConversionFactor( unit );
+            }
+        }
+        LexicalUnitImpl copy = copyWithValue( getDoubleValue() + sign * value );
+        copy.setLexicalUnitType( resultType );
         return copy;
     }
 
     public LexicalUnitImpl multiply(LexicalUnitImpl another) {
-        LexicalUnitImpl copy = copyWithValue(getDoubleValue()
-                * another.getDoubleValue());
-        copy.setLexicalUnitType(checkAndGetUnit(another));
+        Unit unit = getUnit();
+        Unit otherUnit = another.getUnit();
+        if( unit == null || otherUnit == null || unit == Unit.NONE || otherUnit == Unit.NONE ) {
+            LexicalUnitImpl copy = copyWithValue(getDoubleValue()
+                    * another.getDoubleValue());
+            short resultType = checkAndGetUnit( another );
+            if( resultType != type ) {
+                copy.setLexicalUnitType( resultType );
+                copy.sdimension = another.sdimension;
+            }
+            return copy;
+        }
+        Unit.Result result = unit.multiply( otherUnit );
+        LexicalUnitImpl copy = copyWithValue( getDoubleValue() * another.getDoubleValue() * result.getFactor() );
+        copy.setUnit( result.getUnit() );
         return copy;
     }
 
@@ -339,35 +470,54 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
         return new ParseException( msg, another );
     }
 
+    /**
+     * Get the type of the result of an addition or subtraction.
+     * 
+     * @param another
+     *            the other number
+     * @return the type of this or the other number
+     * @throws ParseException
+     *             if the units are not compatible
+     */
     public short checkAndGetUnit( LexicalUnitImpl another ) {
         short thisType = this.type;
         short otherType = another.type;
         if( thisType == otherType ) {
+            if( thisType == SAC_DIMENSION && !checkCompatibleUnits( another ) ) {
+                throw createIncompatibleUnitsException( another );
+            }
             return thisType;
         }
         switch( otherType ) {
             case SAC_INTEGER:
             case SAC_REAL:
                 return thisType == SAC_INTEGER ? otherType : thisType ;
-
-            case SAC_CENTIMETER:
-            case SAC_MILLIMETER:
-            case SAC_INCH:
-                switch( thisType ) {
-                    case SAC_CENTIMETER:
-                    case SAC_MILLIMETER:
-                    case SAC_INCH:
-                        return thisType;
-                }
         }
         switch( thisType ) {
             case SAC_INTEGER:
             case SAC_REAL:
                 return otherType;
         }
+        if( checkCompatibleUnits( another ) ) {
+            return thisType;
+        }
         throw createIncompatibleUnitsException( another );
     }
 
+    /**
+     * Check if the value of another number can be converted into the unit of
+     * this number.
+     * 
+     * @param another
+     *            the other number
+     * @return true, if the units are equal or compatible
+     */
+    private boolean checkCompatibleUnits( LexicalUnitImpl another ) {
+        Unit unit = getUnit();
+        Unit otherUnit = another.getUnit();
+        return unit != null && otherUnit != null && (unit == otherUnit || !Double.isNaN( otherUnit.getConversionFactor( unit ) ));
+    }
+
     public LexicalUnitImpl modulo(LexicalUnitImpl another) {
         if( !checkLexicalUnitType( another, type, SAC_INTEGER, SAC_REAL ) ) {
             throw createIncompatibleUnitsException( another );
@@ -389,6 +539,7 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
         copy.fname = fname;
         copy.sdimension = sdimension;
         copy.params = params;
+        copy.color = color;
         return copy;
     }
 
@@ -706,11 +857,20 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
                             // ignore well known CSS functions
                             break;
                         default:
-                            SCSSErrorHandler.get().warning( "Unknown function: " + functionName );
+                            SCSSErrorHandler.report( Severity.WARNING, "unknown-function", "Unknown function: ", functionName, this );
                     }
                     return copy;
                 }
-                return generator.compute( context, copy );
+                SCSSProfiler profiler = context.getProfiler();
+                if( profiler == null ) {
+                    return generator.compute( context, copy );
+                }
+                long start = System.nanoTime();
+                try {
+                    return generator.compute( context, copy );
+                } finally {
+                    profiler.add( SCSSProfiler.Category.BUILTIN_FUNCTION, functionName, start );
+                }
 
             default:
                 StringInterpolationSequence s = this.s;
@@ -821,7 +981,9 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
         case SAC_HERTZ:
         case SAC_KILOHERTZ:
         case SAC_DIMENSION:
-            text = getDoubleOrInteger() + getDimensionUnitText();
+            StringBuilder builder = new StringBuilder( 16 );
+            NumberUtil.append( builder, f );
+            text = builder.append( getDimensionUnitText() ).toString();
             break;
         }
         return text;
@@ -847,7 +1009,8 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
             case SAC_RECT_FUNCTION:
             case SAC_FUNCTION:
                 if( ColorUtil.isColor( this ) ) {
-                    text = ColorUtil.rgbToColorString( ColorUtil.colorToRgb( this ) );
+                    Color color = getColor();
+                    text = color != null ? ColorUtil.rgbToColorString( color.getRgb() ) : ColorUtil.rgbToColorString( ColorUtil.colorToRgb( this ) );
                     break;
                 } else if( ColorUtil.isRgba( this ) || ColorUtil.isHsla( this ) ) {
                     double alpha = params.get( params.size() - 1 ).getContainedValue().getDoubleValue();
@@ -860,7 +1023,7 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
                             text = ColorUtil.rgbToColorString( rgb );
                             break;
                         } else if( params.size() == 2 || ColorUtil.isHsla( this ) ) {
-                            String alphaText = alpha == 0.0f ? "0" : CSS_FLOAT_FORMAT.get().format( alpha );
+                            String alphaText = alpha == 0.0f ? "0" : NumberUtil.format( alpha );
                             text = "rgba(" + rgb[0] + ", " + rgb[1] + ", " + rgb[2] + ", " + alphaText + ")";
                             break;
                         }
@@ -910,6 +1073,25 @@ public class LexicalUnitImpl implements SCSSLexicalUnit, SassListItem {
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isConstant( Set<String> constantVariables ) {
+        if( params != null || containsInterpolation() ) {
+            return false;
+        }
+        switch( type ) {
+            case SCSS_VARIABLE:
+                return constantVariables.contains( getStringValue() );
+            case SCSS_PARENT:
+            case SCSS_GET_FUNCTION:
+                return false;
+            default:
+                return true;
+        }
+    }
+
     @Override
     public LexicalUnitImpl updateUrl(String prefix) {
         if (getItemType() == SAC_URI) {
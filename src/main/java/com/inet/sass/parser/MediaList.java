@@ -24,7 +24,9 @@
  */
 package com.inet.sass.parser;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import com.inet.sass.ScssContext;
 
@@ -35,6 +37,8 @@ public class MediaList {
 
     private Object[] array;
     private int current;
+    // the parsed queries, created on demand
+    private List<MediaQuery> queries;
 
     public MediaList() {
         array = new Object[10];
@@ -65,6 +69,7 @@ public class MediaList {
     }
 
     private void addItemImpl( Object medium ) {
+        queries = null;
         if (medium.equals("all")) {
             array[0] = "all";
             current = 1;
@@ -109,6 +114,56 @@ public class MediaList {
         }
     }
 
+    /**
+     * Get the structured queries of all items.
+     * 
+     * @return the queries in the order of the items
+     */
+    public List<MediaQuery> getQueries() {
+        List<MediaQuery> queries = this.queries;
+        if( queries == null ) {
+            queries = new ArrayList<>();
+            for( int i = 0; i < current; i++ ) {
+                queries.addAll( MediaQuery.parseList( array[i].toString() ) );
+            }
+            this.queries = queries;
+        }
+        return queries;
+    }
+
+    /**
+     * Combine this media list with the media list of a nested @media. Every
+     * query of this list is combined with every query of the nested list.
+     * 
+     * @param inner
+     *            the media list of the nested @media
+     * @return the new media list
+     */
+    public MediaList merge( MediaList inner ) {
+        MediaList merged = new MediaList();
+        for( MediaQuery outerQuery : getQueries() ) {
+            for( MediaQuery innerQuery : inner.getQueries() ) {
+                MediaQuery query = outerQuery.merge( innerQuery );
+                merged.addItem( query != null ? query.toString() : outerQuery + " and " + innerQuery );
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public int hashCode() {
+        return getQueries().hashCode();
+    }
+
+    /**
+     * Two media lists are equal if they have the same queries, independent of
+     * the white space.
+     */
+    @Override
+    public boolean equals( Object obj ) {
+        return obj instanceof MediaList && getQueries().equals( ((MediaList)obj).getQueries() );
+    }
+
     public MediaList replaceVariables( ScssContext context ) {
         boolean changed = false;
         Object[] array = this.array;
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single query of a @media rule like <code>only screen and (min-width: 768px)</code>, split into the modifier, the
+ * media type and the feature expressions. Queries with a syntax that is not understood, for example the level 4 range
+ * syntax with "or", are kept as raw text and can only be compared but not combined.
+ */
+public final class MediaQuery {
+
+    private final String       modifier;
+
+    private final String       type;
+
+    private final List<String> features;
+
+    private final String       text;
+
+    private MediaQuery( String modifier, String type, List<String> features ) {
+        this.modifier = modifier;
+        this.type = type;
+        this.features = features;
+        StringBuilder builder = new StringBuilder();
+        if( modifier != null ) {
+            builder.append( modifier ).append( ' ' );
+        }
+        if( type != null ) {
+            builder.append( type );
+        }
+        for( String feature : features ) {
+            if( builder.length() > 0 ) {
+                builder.append( " and " );
+            }
+            builder.append( feature );
+        }
+        this.text = builder.toString();
+    }
+
+    private MediaQuery( String text ) {
+        this.modifier = null;
+        this.type = null;
+        this.features = null;
+        this.text = text;
+    }
+
+    /**
+     * Parse a comma separated list of media queries.
+     * 
+     * @param text
+     *            the text after the @media
+     * @return the queries, never null
+     */
+    public static List<MediaQuery> parseList( String text ) {
+        List<MediaQuery> queries = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for( int i = 0; i < text.length(); i++ ) {
+            switch( text.charAt( i ) ) {
+                case '(':
+                    depth++;
+                    break;
+                case ')':
+                    depth--;
+                    break;
+                case ',':
+                    if( depth == 0 ) {
+                        queries.add( parse( text.substring( start, i ) ) );
+                        start = i + 1;
+                    }
+                    break;
+                default:
+            }
+        }
+        queries.add( parse( text.substring( start ) ) );
+        return queries;
+    }
+
+    /**
+     * Parse a single media query.
+     * 
+     * @param text
+     *            the query
+     * @return the query, never null
+     */
+    public static MediaQuery parse( String text ) {
+        text = text.trim();
+        String modifier = null;
+        String type = null;
+        List<String> features = new ArrayList<>();
+        boolean needAnd = false;
+        int length = text.length();
+        int i = 0;
+        while( i < length ) {
+            char ch = text.charAt( i );
+            if( Character.isWhitespace( ch ) ) {
+                i++;
+                continue;
+            }
+            if( ch == '(' ) {
+                if( needAnd ) {
+                    return new MediaQuery( text );
+                }
+                int depth = 0;
+                int start = i;
+                for( ; i < length; i++ ) {
+                    ch = text.charAt( i );
+                    if( ch == '(' ) {
+                        depth++;
+                    } else if( ch == ')' && --depth == 0 ) {
+                        break;
+                    }
+                }
+                if( i == length ) {
+                    return new MediaQuery( text );
+                }
+                features.add( normalizeFeature( text.substring( start + 1, i++ ) ) );
+                needAnd = true;
+                continue;
+            }
+            int start = i;
+            while( i < length && !Character.isWhitespace( ch = text.charAt( i ) ) && ch != '(' ) {
+                i++;
+            }
+            String word = text.substring( start, i );
+            if( needAnd ) {
+                if( !word.equalsIgnoreCase( "and" ) ) {
+                    return new MediaQuery( text );
+                }
+                needAnd = false;
+            } else if( type == null && features.isEmpty() ) {
+                if( modifier == null && (word.equalsIgnoreCase( "only" ) || word.equalsIgnoreCase( "not" )) ) {
+                    modifier = word.toLowerCase();
+                } else if( word.indexOf( '#' ) < 0 && word.indexOf( '$' ) < 0 ) {
+                    type = word;
+                    needAnd = true;
+                } else {
+                    return new MediaQuery( text );
+                }
+            } else {
+                return new MediaQuery( text );
+            }
+        }
+        if( (modifier != null && type == null) || (!needAnd && (type != null || !features.isEmpty())) || (type == null && features.isEmpty()) ) {
+            // "only" without type, a trailing "and" or an empty query
+            return new MediaQuery( text );
+        }
+        return new MediaQuery( modifier, type, Collections.unmodifiableList( features ) );
+    }
+
+    /**
+     * Normalize the white space of a feature expression, for example "min-width:768px" to "(min-width: 768px)".
+     * 
+     * @param feature
+     *            the expression without the parenthesis
+     * @return the normalized expression
+     */
+    private static String normalizeFeature( String feature ) {
+        StringBuilder builder = new StringBuilder( feature.length() + 3 ).append( '(' );
+        boolean space = false;
+        for( int i = 0; i < feature.length(); i++ ) {
+            char ch = feature.charAt( i );
+            if( Character.isWhitespace( ch ) ) {
+                space = true;
+                continue;
+            }
+            if( ch == ':' ) {
+                builder.append( ": " );
+                space = false;
+                continue;
+            }
+            if( space && builder.length() > 1 && builder.charAt( builder.length() - 1 ) != ' ' ) {
+                builder.append( ' ' );
+            }
+            space = false;
+            builder.append( ch );
+        }
+        return builder.append( ')' ).toString();
+    }
+
+    /**
+     * The modifier of the query.
+     * 
+     * @return "only", "not" or null
+     */
+    public String getModifier() {
+        return modifier;
+    }
+
+    /**
+     * The media type of the query like "screen".
+     * 
+     * @return the type or null if the query has only features or was not parsed
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * The feature expressions of the query with parenthesis, like "(min-width: 768px)".
+     * 
+     * @return the features or null if the query was not parsed
+     */
+    public List<String> getFeatures() {
+        return features;
+    }
+
+    /**
+     * Combine this query with the query of a nested @media. Both queries must match.
+     * 
+     * @param inner
+     *            the query of the nested @media
+     * @return the combined query or null if the queries can not be combined into a single query
+     */
+    public MediaQuery merge( MediaQuery inner ) {
+        if( features == null || inner.features == null || "not".equals( modifier ) || "not".equals( inner.modifier ) ) {
+            return null;
+        }
+        String mergedType;
+        if( type == null || type.equalsIgnoreCase( "all" ) ) {
+            mergedType = inner.type;
+        } else if( inner.type == null || inner.type.equalsIgnoreCase( "all" ) || inner.type.equalsIgnoreCase( type ) ) {
+            mergedType = type;
+        } else {
+            return null;
+        }
+        String mergedModifier = modifier != null ? modifier : inner.modifier;
+        if( mergedType == null ) {
+            mergedModifier = null;
+        }
+        List<String> mergedFeatures = new ArrayList<>( features );
+        for( String feature : inner.features ) {
+            if( !mergedFeatures.contains( feature ) ) {
+                mergedFeatures.add( feature );
+            }
+        }
+        return new MediaQuery( mergedModifier, mergedType, Collections.unmodifiableList( mergedFeatures ) );
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+        return obj instanceof MediaQuery && text.equals( ((MediaQuery)obj).text );
+    }
+
+    /**
+     * The normalized query.
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -17,6 +17,7 @@
 /* Generated By:JavaCC: Do not edit this line. ParseException.java Version 0.7pre6 */
 package com.inet.sass.parser;
 
+import com.inet.sass.handler.SCSSErrorHandler;
 import com.inet.sass.tree.Node;
 import com.inet.sass.tree.SourceLocation;
 
@@ -41,6 +42,7 @@ public class ParseException extends RuntimeException {
 
     public ParseException(String message) {
         super(message);
+        description = message;
     }
 
     public ParseException(String message, SourceLocation unit) {
@@ -57,6 +59,9 @@ public class ParseException extends RuntimeException {
 
     public ParseException(String message, String uri, int line, int column) {
         super(message + " in line " + line + ", column " + column + getLocation( uri ) );
+        description = message;
+        currentUnit = new Location( uri, line, column );
+        locationInMessage = true;
     }
 
     /**
@@ -65,6 +70,44 @@ public class ParseException extends RuntimeException {
      */
     private SourceLocation currentUnit;
 
+    // the message without the location
+    private String description;
+
+    // the location is already part of the message of the super class
+    private boolean locationInMessage;
+
+    /**
+     * Does not fill the stack trace if the error handler of the current thread
+     * collects diagnostics. A ParseException is an expected error in the
+     * style sheet and the stack trace is not needed to report it.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        SCSSErrorHandler handler = SCSSErrorHandler.get();
+        if( handler != null && handler.isDiagnosticsMode() ) {
+            return this;
+        }
+        return super.fillInStackTrace();
+    }
+
+    /**
+     * The message without the location.
+     * 
+     * @return the message
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * The location of the error in the style sheet.
+     * 
+     * @return the location or null if unknown
+     */
+    public SourceLocation getSourceLocation() {
+        return currentUnit;
+    }
+
     /**
      * This method has the standard behavior when this object has been created
      * using the standard constructors. Otherwise, it uses "currentToken" and
@@ -77,7 +120,7 @@ public class ParseException extends RuntimeException {
     @Override
     public String getMessage() {
         String message = super.getMessage();
-        if (currentUnit != null) {
+        if (currentUnit != null && !locationInMessage) {
             message = message + " at line " + currentUnit.getLineNumber() + ", column " + currentUnit.getColumnNumber() + getLocation();
         }
         return message;
@@ -106,4 +149,37 @@ public class ParseException extends RuntimeException {
             return "";
         }
     }
+
+    /**
+     * A location that was given as line and column.
+     */
+    private static class Location implements SourceLocation {
+
+        private final String uri;
+
+        private final int    line;
+
+        private final int    column;
+
+        private Location( String uri, int line, int column ) {
+            this.uri = uri;
+            this.line = line;
+            this.column = column;
+        }
+
+        @Override
+        public String getUri() {
+            return uri;
+        }
+
+        @Override
+        public int getLineNumber() {
+            return line;
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return column;
+        }
+    }
 }
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.expression.ArithmeticExpressionEvaluator;
@@ -165,6 +166,14 @@ public class SassExpression implements SassListItem {
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isConstant( Set<String> constantVariables ) {
+        return SassList.isConstant( items, constantVariables );
+    }
+
     private boolean isOperator(short type) {
         for (BinaryOperator operator : BinaryOperator.values()) {
             if (type == operator.type) {
@@ -213,11 +222,8 @@ public class SassExpression implements SassListItem {
         if( evaluateArithmetics && !items.isEmpty() ) {
             return ArithmeticExpressionEvaluator.evaluate( context, items );
         }
-        List<SassListItem> list = new ArrayList<SassListItem>();
-        for( SassListItem item : items ) {
-            list.add( item.evaluateFunctionsAndExpressions( context, evaluateArithmetics ) );
-        }
-        return new SassExpression( list );
+        List<SassListItem> list = SassList.evaluateFunctionsAndExpressions( context, evaluateArithmetics, items );
+        return list == items ? this : new SassExpression( list );
     }
 
     @Override
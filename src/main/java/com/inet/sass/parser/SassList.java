@@ -17,10 +17,13 @@
 package com.inet.sass.parser;
 import static com.inet.sass.parser.SCSSLexicalUnit.SCSS_LIST;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.tree.Node;
@@ -152,24 +155,65 @@ public class SassList implements SassListItem, Iterable<SassListItem> {
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isConstant( Set<String> constantVariables ) {
+        return isConstant( items, constantVariables );
+    }
+
+    static boolean isConstant( List<SassListItem> items, Set<String> constantVariables ) {
+        for( int i = 0; i < items.size(); i++ ) {
+            if( !items.get( i ).isConstant( constantVariables ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Returns this list itself if none of the items has changed.
+     */
     @Override
     public SassList evaluateFunctionsAndExpressions(ScssContext context,
             boolean evaluateArithmetics) {
-        List<SassListItem> list = new ArrayList<SassListItem>();
-        for (SassListItem item : this) {
-            list.add(item.evaluateFunctionsAndExpressions(context,
-                    evaluateArithmetics));
-        }
-        return new SassList(getSeparator(), list);
+        List<SassListItem> list = evaluateFunctionsAndExpressions( context, evaluateArithmetics, items );
+        return list == items ? this : new SassList( getSeparator(), list );
     }
 
-    static List<SassListItem> replaceVariables( ScssContext context, List<SassListItem> items ) {
+    /**
+     * Evaluate all items of the list. The list is only copied if at least one item has changed.
+     * 
+     * @param context current compilation context
+     * @param evaluateArithmetics true, if arithmetic expressions should be evaluated
+     * @param items the items to evaluate
+     * @return the items itself if nothing has changed, else a new list with the evaluated items
+     */
+    static List<SassListItem> evaluateFunctionsAndExpressions( ScssContext context, boolean evaluateArithmetics, List<SassListItem> items ) {
         int size = items.size();
-        List<SassListItem> list = new ArrayList<SassListItem>( size );
+        List<SassListItem> list = null;
         for( int i = 0; i < size; i++ ) {
-            list.add( items.get( i ).evaluateFunctionsAndExpressions( context, true ) );
+            SassListItem item = items.get( i );
+            SassListItem evaluated = item.evaluateFunctionsAndExpressions( context, evaluateArithmetics );
+            if( list == null ) {
+                if( evaluated == item ) {
+                    continue;
+                }
+                list = new ArrayList<SassListItem>( size );
+                for( int k = 0; k < i; k++ ) {
+                    list.add( items.get( k ) );
+                }
+            }
+            list.add( evaluated );
         }
-        return list;
+        return list == null ? items : list;
+    }
+
+    static List<SassListItem> replaceVariables( ScssContext context, List<SassListItem> items ) {
+        return evaluateFunctionsAndExpressions( context, true, items );
     }
 
     @Override
@@ -300,4 +344,93 @@ public class SassList implements SassListItem, Iterable<SassListItem> {
     protected List<SassListItem> getItems() {
         return items;
     }
+
+    /**
+     * Returns a list with the items from the index fromIndex (inclusive) to
+     * toIndex (exclusive) and the same separator. The items are not copied;
+     * the result is a view of this list.
+     * 
+     * @param fromIndex
+     *            low endpoint (inclusive) of the sub list
+     * @param toIndex
+     *            high endpoint (exclusive) of the sub list
+     * @return the sub list, this if the range covers the whole list
+     */
+    public SassList subList( int fromIndex, int toIndex ) {
+        if( fromIndex == 0 && toIndex == items.size() ) {
+            return this;
+        }
+        return new SassList( separator, items.subList( fromIndex, toIndex ) );
+    }
+
+    /**
+     * Returns a list that contains the items of both lists. The items are not
+     * copied if possible; the result is a view of the two lists.
+     * 
+     * @param sep
+     *            the separator of the new list
+     * @param first
+     *            the first items
+     * @param second
+     *            the items that follow
+     * @return the concatenated list
+     */
+    public static SassList concat( Separator sep, SassList first, SassList second ) {
+        return new SassList( sep, concat( first.items, second.items ) );
+    }
+
+    /**
+     * Concatenate two immutable item lists without copying the items if
+     * possible.
+     * 
+     * @param first
+     *            the first items
+     * @param second
+     *            the items that follow
+     * @return the concatenated items
+     */
+    static List<SassListItem> concat( List<SassListItem> first, List<SassListItem> second ) {
+        if( second.isEmpty() ) {
+            return first;
+        }
+        if( first.isEmpty() ) {
+            return second;
+        }
+        if( first instanceof ConcatList || second instanceof ConcatList ) {
+            // prevent deep chains of views, for example from a join() inside of a loop
+            ArrayList<SassListItem> list = new ArrayList<SassListItem>( first.size() + second.size() );
+            list.addAll( first );
+            list.addAll( second );
+            return list;
+        }
+        return new ConcatList( first, second );
+    }
+
+    /**
+     * Immutable view of two lists that are concatenated.
+     */
+    private static class ConcatList extends AbstractList<SassListItem> implements RandomAccess {
+
+        private final List<SassListItem> first;
+
+        private final List<SassListItem> second;
+
+        private final int                firstSize;
+
+        private ConcatList( List<SassListItem> first, List<SassListItem> second ) {
+            this.first = first;
+            this.second = second;
+            this.firstSize = first.size();
+        }
+
+        @Override
+        public SassListItem get( int index ) {
+            return index < firstSize ? first.get( index ) : second.get( index - firstSize );
+        }
+
+        @Override
+        public int size() {
+            return firstSize + second.size();
+        }
+    }
 }
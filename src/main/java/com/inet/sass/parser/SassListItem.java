@@ -16,6 +16,9 @@
  */
 package com.inet.sass.parser;
 
+import java.util.Collections;
+import java.util.Set;
+
 import com.inet.sass.ScssContext;
 import com.inet.sass.tree.SourceLocation;
 import com.inet.sass.tree.Node.BuildStringStrategy;
@@ -120,6 +123,32 @@ public interface SassListItem extends SourceLocation {
 
     public LexicalUnitImpl getContainedValue();
 
+    /**
+     * Checks whether the value of this item does not depend on the compilation
+     * context, i.e. it contains no variables, function calls, interpolation or
+     * parent references. The evaluation of a constant item gives always the
+     * same result and can be done once before the traversal.
+     * 
+     * @return true, if this item is a constant
+     */
+    public default boolean isConstant() {
+        return isConstant( Collections.emptySet() );
+    }
+
+    /**
+     * Checks whether the value of this item depends only on the given
+     * variables, i.e. it contains no other variables, no function calls,
+     * interpolation or parent references.
+     * 
+     * @param constantVariables
+     *            the names of the variables that are constant during the
+     *            compilation, without the "$"
+     * @return true, if this item is a constant if the variables are constant
+     */
+    public default boolean isConstant( Set<String> constantVariables ) {
+        return false;
+    }
+
     /**
      * Get the URI, where the item is define
      * @return the uri or null
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.parser;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inet.sass.InputSource;
+
+/**
+ * Extract the identifiers of the @import directives of a style sheet without
+ * parsing it. The source is only split into its code constructs like the
+ * parser does it, so comments and strings are handled the same way. Imports
+ * in nested blocks, mixins or control directives are also found. Pure CSS
+ * imports and imports with interpolation are skipped because they are not
+ * resolved by the compiler.
+ */
+public class ScssImportScanner {
+
+    private ScssImportScanner() {
+        // static helper
+    }
+
+    /**
+     * Scan the style sheet for @import directives.
+     * 
+     * @param source
+     *            the source of the style sheet, the stream is closed
+     * @return the identifiers of the imports in the order of the source
+     * @throws IOException
+     *             if any I/O error occur
+     * @throws ParseException
+     *             if a string or comment is not terminated
+     */
+    public static List<String> scan( InputSource source ) throws IOException {
+        Reader stream = source.getCharacterStream();
+        if( stream == null ) {
+            stream = new InputStreamReader( source.getByteStream(), StandardCharsets.UTF_8 );
+        }
+        List<String> imports = new ArrayList<>();
+        try {
+            ScssLookAheadReader reader = new ScssLookAheadReader( stream, source.getURI() );
+            for( ;; ) {
+                int marker = reader.nextBlockMarker();
+                if( marker == -1 ) {
+                    return imports;
+                }
+                if( marker == ';' ) {
+                    addImports( reader.getLookAhead(), imports );
+                }
+                reader.skipLookAhead();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Add the identifiers of an @import directive.
+     * 
+     * @param statement
+     *            the code up to the semicolon
+     * @param imports
+     *            the list for the identifiers
+     */
+    private static void addImports( String statement, List<String> imports ) {
+        int idx = skipWhitespaceAndComments( statement, 0 );
+        if( !statement.startsWith( "@import", idx ) ) {
+            return;
+        }
+        idx = skipWhitespaceAndComments( statement, idx + 7 );
+        if( idx >= statement.length() ) {
+            return;
+        }
+        char quote = statement.charAt( idx );
+        if( quote != '"' && quote != '\'' ) {
+            return; // url() is always a pure CSS import
+        }
+        boolean isSlash = false;
+        for( int i = idx + 1; i < statement.length(); i++ ) {
+            char ch = statement.charAt( i );
+            if( ch == quote && !isSlash ) {
+                String uri = statement.substring( idx + 1, i );
+                if( !uri.endsWith( ".css" ) && !uri.startsWith( "http://" ) && !uri.contains( "#{" ) ) {
+                    imports.add( uri );
+                }
+                return;
+            }
+            isSlash = ch == '\\' && !isSlash;
+        }
+    }
+
+    /**
+     * Skip whitespace and block comments.
+     * 
+     * @param str
+     *            the code
+     * @param idx
+     *            the start position
+     * @return the position of the next code character or the length of the string
+     */
+    private static int skipWhitespaceAndComments( String str, int idx ) {
+        int length = str.length();
+        while( idx < length ) {
+            char ch = str.charAt( idx );
+            if( ch <= ' ' ) {
+                idx++;
+            } else if( ch == '/' && str.startsWith( "/*", idx ) ) {
+                int end = str.indexOf( "*/", idx + 2 );
+                idx = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        return idx;
+    }
+}
@@ -180,6 +180,15 @@ public class ScssLookAheadReader {
         return cache.toString();
     }
 
+    /**
+     * Consume the look ahead of the last call of nextBlockMarker() without parsing it.
+     */
+    void skipLookAhead() {
+        while( cachePos < cache.length() ) {
+            incLineColumn( cache.charAt( cachePos++ ) );
+        }
+    }
+
     char read() {
         try {
             if( cachePos < cache.length() ) {
@@ -24,7 +24,7 @@ import java.util.Collections;
 import java.util.List;
 
 import com.inet.sass.InputSource;
-import com.inet.sass.handler.SCSSDocumentHandler;
+import com.inet.sass.handler.SCSSEventHandler;
 import com.inet.sass.parser.SassList.Separator;
 import com.inet.sass.selector.AttributeSelector;
 import com.inet.sass.selector.AttributeSelector.MatchRelation;
@@ -42,7 +42,7 @@ import com.inet.sass.selector.TypeSelector;
 
 public final class ScssParser {
 
-    private SCSSDocumentHandler documentHandler;
+    private SCSSEventHandler    documentHandler;
     private InputSource         source;
     private String              uri;
 
@@ -63,11 +63,11 @@ public final class ScssParser {
 
     /**
      * Start to parse a single file
-     * @param documentHandler the reference to the model
+     * @param documentHandler the receiver of the parser events, e.g. the {@link com.inet.sass.handler.SCSSDocumentHandler} that builds the model
      * @param source the file source
      * @throws IOException if any error on reading the source occur
      */
-    public void parseStyleSheet( SCSSDocumentHandler documentHandler, InputSource source ) throws IOException {
+    public void parseStyleSheet( SCSSEventHandler documentHandler, InputSource source ) throws IOException {
         this.documentHandler = documentHandler;
         this.source = source;
         this.uri = source.getURI();
@@ -126,6 +126,9 @@ public final class ScssParser {
     private void parseSemicolon() {
         boolean isVariable = false;;
         StringBuilder builder = cachesBuilder;
+        // the start position of the property name for the source map
+        int line = 0;
+        int column = 0;
 
         LOOP: for( ;; ) {
             char ch;
@@ -135,6 +138,10 @@ public final class ScssParser {
                 ch = ';'; // a not terminated line is like a lime with semicolon
             }
 
+            if( builder.length() == 0 && line == 0 && !isWhitespace( ch ) ) {
+                line = reader.getLine();
+                column = reader.getColumn() - 1;
+            }
             if( isWhitespace( ch ) ) {
                 if( builder.length() == 0 ) {
                     continue LOOP;
@@ -159,7 +166,7 @@ public final class ScssParser {
                         StringInterpolationSequence name = createStringInterpolationSequence( trim( builder ) );
                         SassListItem exp = parseExpressionOrList();
                         boolean important = false; //the old JavaCC based parser has also use ever false
-                        documentHandler.property( name, exp, important, null );
+                        documentHandler.property( uri, line, column, name, exp, important, null );
                     }
                     if( consumeMarkers( ';', '}' ) == '}' ) { //last line in a block does not need a semicolon
                         reader.back( '}' );
@@ -224,9 +231,11 @@ public final class ScssParser {
             reader.back( ch );
             break;
         }
+        int line = reader.getLine();
+        int column = reader.getColumn();
         List<Selector> selectorList = parseSelectorList( false );
         consumeMarker( '{' );
-        documentHandler.startSelector( source.getURI(), reader.getLine(), reader.getColumn(), selectorList );
+        documentHandler.startSelector( source.getURI(), line, column, selectorList );
         parse( false );
         documentHandler.endSelector();
     }
@@ -528,7 +537,7 @@ public final class ScssParser {
                 case "@charset":
                     String encoding = parseQuotedString( consumeMarkers( '\'', '\"' ) );
                     consumeMarker( ';' );
-                    documentHandler.getStyleSheet().setCharset( encoding );
+                    documentHandler.charset( encoding );
                     return;
 
                 case "@import":
@@ -720,9 +729,11 @@ public final class ScssParser {
                 default:
                     if( block ) {
                         reader.back( rule );
+                        int line = reader.getLine();
+                        int column = reader.getColumn();
                         selectorList = parseSelectorList( false );
                         consumeMarker( '{' );
-                        documentHandler.startSelector( source.getURI(), reader.getLine(), reader.getColumn(), selectorList );
+                        documentHandler.startSelector( source.getURI(), line, column, selectorList );
                         parse( false );
                         documentHandler.endSelector();
                     } else {
@@ -771,6 +782,8 @@ public final class ScssParser {
      * Parse the @each rule
      */
     private void parseEach() {
+        int line = reader.getLine();
+        int column = reader.getColumn();
         List<String> variables = new ArrayList<>();
         StringBuilder builder = cachesBuilder;
         boolean wasName = false;
@@ -810,7 +823,7 @@ public final class ScssParser {
         }
         SassListItem list = parseExpressionOrList();
         consumeMarker( '{' );
-        documentHandler.startEachDirective( variables, list );
+        documentHandler.startEachDirective( uri, line, column, variables, list );
         parse( false );
         documentHandler.endEachDirective();
 
@@ -820,6 +833,8 @@ public final class ScssParser {
      * Parse @while rule
      */
     private void parseFor() {
+        int line = reader.getLine();
+        int column = reader.getColumn();
         consumeMarker( '$' );
         String var = parseName( false );
         String key = parseName( true );
@@ -838,7 +853,7 @@ public final class ScssParser {
         }
         SassListItem to = parseExpression( true );
         consumeMarker( '{' );
-        documentHandler.startForDirective( var, from, to, exclusive );
+        documentHandler.startForDirective( uri, line, column, var, from, to, exclusive );
         parse( false );
         documentHandler.endForDirective();
     }
@@ -847,9 +862,11 @@ public final class ScssParser {
      * Parse @while rule
      */
     private void parseWhile() {
+        int line = reader.getLine();
+        int column = reader.getColumn();
         SassListItem condition = parseExpressionOrList();
         consumeMarker( '{' );
-        documentHandler.startWhileDirective( condition );
+        documentHandler.startWhileDirective( uri, line, column, condition );
         parse( false );
         documentHandler.endWhileDirective();
     }
@@ -18,6 +18,8 @@ package com.inet.sass.parser;
 
 import static com.inet.sass.parser.SCSSLexicalUnit.SCSS_STRING;
 
+import java.util.Set;
+
 import com.inet.sass.ScssContext;
 import com.inet.sass.tree.Node.BuildStringStrategy;
 
@@ -58,6 +60,11 @@ public class StringItem implements SassListItem {
         return false;
     }
 
+    @Override
+    public boolean isConstant( Set<String> constantVariables ) {
+        return true;
+    }
+
     @Override
     public SassListItem evaluateFunctionsAndExpressions(ScssContext context,
             boolean evaluateArithmetics) {
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The unit of a number. A unit can be a simple unit like "px" or a compound
+ * unit like "px*px/s" that is the result of a multiplication or division.
+ * The known CSS units and the compound units that are built from them are
+ * interned, so they can be compared by identity. The results of the arithmetic
+ * operations between interned units are cached per pair of units, so the
+ * arithmetic on numbers with different units is a table lookup and a
+ * multiplication with the conversion factor. Units with an unknown part are
+ * created for each use and are not cached, so that arbitrary dimensions in the
+ * input of a long running process do not fill the static caches.
+ */
+public final class Unit {
+
+    /**
+     * The unit of numbers without unit.
+     */
+    public static final Unit                            NONE      = new Unit( new String[0], new String[0], "", SCSSLexicalUnit.SAC_REAL );
+
+    private static final ConcurrentHashMap<String, Unit> UNITS     = new ConcurrentHashMap<>();
+
+    // the simple units by their lexical unit type
+    private static final Unit[]                          BY_TYPE   = new Unit[SCSSLexicalUnit.SAC_REM + 1];
+
+    // the groups of convertible units and the factor to the first unit of the group
+    private static final String[][]                      GROUPS    = { //
+                    { "px", "1", "in", "96", "cm", "37.79527559055118", "mm", "3.779527559055118", "Q", "0.9448818897637795", "pt", "1.3333333333333333", "pc", "16" }, //
+                    { "deg", "1", "grad", "0.9", "rad", "57.29577951308232", "turn", "360" }, //
+                    { "s", "1", "ms", "0.001" }, //
+                    { "Hz", "1", "kHz", "1000" }, //
+                    { "dpi", "1", "dpcm", "2.54", "dppx", "96" } };
+
+    // the known CSS units without own lexical unit type and without conversion
+    private static final String[]                        OTHERS    = { "ch", "ic", "cap", "lh", "rlh", "vw", "vh", "vi", "vb", "vmin", "vmax", "svw", "svh", "lvw", "lvh",
+                    "dvw", "dvh", "cqw", "cqh", "cqi", "cqb", "cqmin", "cqmax", "fr", "x" };
+
+    private final String[]                               numerator;
+
+    private final String[]                               denominator;
+
+    private final String                                 text;
+
+    private final short                                  type;
+
+    // true, if the unit is stored in UNITS
+    private final boolean                                interned;
+
+    // the index in GROUPS of a simple unit or -1
+    private int                                          group     = -1;
+
+    // the factor to the first unit of the group
+    private double                                       factor    = 1;
+
+    private final ConcurrentHashMap<Unit, Result>        products  = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Unit, Result>        quotients = new ConcurrentHashMap<>();
+
+    static {
+        UNITS.put( "", NONE );
+        register( SCSSLexicalUnit.SAC_PERCENTAGE, "%" );
+        register( SCSSLexicalUnit.SAC_EM, "em" );
+        register( SCSSLexicalUnit.SAC_LEM, "lem" );
+        register( SCSSLexicalUnit.SAC_REM, "rem" );
+        register( SCSSLexicalUnit.SAC_EX, "ex" );
+        register( SCSSLexicalUnit.SAC_PIXEL, "px" );
+        register( SCSSLexicalUnit.SAC_CENTIMETER, "cm" );
+        register( SCSSLexicalUnit.SAC_MILLIMETER, "mm" );
+        register( SCSSLexicalUnit.SAC_INCH, "in" );
+        register( SCSSLexicalUnit.SAC_POINT, "pt" );
+        register( SCSSLexicalUnit.SAC_PICA, "pc" );
+        register( SCSSLexicalUnit.SAC_DEGREE, "deg" );
+        register( SCSSLexicalUnit.SAC_RADIAN, "rad" );
+        register( SCSSLexicalUnit.SAC_GRADIAN, "grad" );
+        register( SCSSLexicalUnit.SAC_MILLISECOND, "ms" );
+        register( SCSSLexicalUnit.SAC_SECOND, "s" );
+        register( SCSSLexicalUnit.SAC_HERTZ, "Hz" );
+        register( SCSSLexicalUnit.SAC_KILOHERTZ, "kHz" );
+        for( int i = 0; i < GROUPS.length; i++ ) {
+            String[] group = GROUPS[i];
+            for( int j = 0; j < group.length; j += 2 ) {
+                Unit unit = UNITS.get( group[j] );
+                if( unit == null ) {
+                    unit = new Unit( new String[] { group[j] }, new String[0], group[j], SCSSLexicalUnit.SAC_DIMENSION, true );
+                    UNITS.put( group[j], unit );
+                }
+                unit.group = i;
+                unit.factor = Double.parseDouble( group[j + 1] );
+            }
+        }
+        for( String text : OTHERS ) {
+            UNITS.put( text, new Unit( new String[] { text }, new String[0], text, SCSSLexicalUnit.SAC_DIMENSION, true ) );
+        }
+    }
+
+    private Unit( String[] numerator, String[] denominator, String text, short type ) {
+        this( numerator, denominator, text, type, true );
+    }
+
+    private Unit( String[] numerator, String[] denominator, String text, short type, boolean interned ) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.text = text;
+        this.type = type;
+        this.interned = interned;
+    }
+
+    /**
+     * Register a simple unit with its own lexical unit type.
+     * 
+     * @param type
+     *            the type
+     * @param text
+     *            the name of the unit
+     */
+    private static void register( short type, String text ) {
+        Unit unit = new Unit( new String[] { text }, new String[0], text, type );
+        UNITS.put( text, unit );
+        BY_TYPE[type] = unit;
+    }
+
+    /**
+     * Get the unit of a number.
+     * 
+     * @param type
+     *            the lexical unit type
+     * @param dimension
+     *            the unit text for the type SAC_DIMENSION
+     * @return the unit or null if the type is not a number
+     */
+    public static Unit of( short type, String dimension ) {
+        switch( type ) {
+            case SCSSLexicalUnit.SAC_INTEGER:
+            case SCSSLexicalUnit.SAC_REAL:
+                return NONE;
+            case SCSSLexicalUnit.SAC_DIMENSION:
+                return dimension == null ? null : forText( dimension );
+            default:
+                return type >= 0 && type < BY_TYPE.length ? BY_TYPE[type] : null;
+        }
+    }
+
+    /**
+     * Get the unit for the text like "px" or "px*px/s".
+     * 
+     * @param text
+     *            the text
+     * @return the interned unit or a new unit if the text contains an unknown
+     *         unit
+     */
+    public static Unit forText( String text ) {
+        Unit unit = UNITS.get( text );
+        if( unit == null ) {
+            int idx = text.indexOf( '/' );
+            String[] numerator = split( idx < 0 ? text : text.substring( 0, idx ) );
+            String[] denominator = split( idx < 0 ? "" : text.substring( idx + 1 ) );
+            unit = intern( numerator, denominator );
+            if( unit.interned && !unit.text.equals( text ) ) {
+                // not in canonical order
+                UNITS.putIfAbsent( text, unit );
+            }
+        }
+        return unit;
+    }
+
+    private static String[] split( String units ) {
+        return units.isEmpty() ? new String[0] : units.split( "\\*" );
+    }
+
+    /**
+     * Get the interned unit for the given simple units. Only units that are
+     * built from known simple units are interned.
+     * 
+     * @param numerator
+     *            the units of the numerator, will be sorted
+     * @param denominator
+     *            the units of the denominator, will be sorted
+     * @return the unit
+     */
+    private static Unit intern( String[] numerator, String[] denominator ) {
+        Arrays.sort( numerator );
+        Arrays.sort( denominator );
+        StringBuilder builder = new StringBuilder();
+        for( int i = 0; i < numerator.length; i++ ) {
+            if( i > 0 ) {
+                builder.append( '*' );
+            }
+            builder.append( numerator[i] );
+        }
+        for( int i = 0; i < denominator.length; i++ ) {
+            builder.append( i == 0 ? '/' : '*' ).append( denominator[i] );
+        }
+        String text = builder.toString();
+        Unit unit = UNITS.get( text );
+        if( unit == null ) {
+            if( !isKnown( numerator ) || !isKnown( denominator ) ) {
+                return new Unit( numerator, denominator, text, SCSSLexicalUnit.SAC_DIMENSION, false );
+            }
+            unit = new Unit( numerator, denominator, text, SCSSLexicalUnit.SAC_DIMENSION );
+            Unit previous = UNITS.putIfAbsent( text, unit );
+            if( previous != null ) {
+                unit = previous;
+            }
+        }
+        return unit;
+    }
+
+    /**
+     * Check if all simple units are known CSS units.
+     * 
+     * @param units
+     *            the simple units
+     * @return true, if all are known
+     */
+    private static boolean isKnown( String[] units ) {
+        for( String unit : units ) {
+            if( unit.isEmpty() || !UNITS.containsKey( unit ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the lexical unit type for numbers with this unit.
+     * 
+     * @return the type, SAC_DIMENSION for units without own type and SAC_REAL
+     *         for {@link #NONE}
+     */
+    public short getType() {
+        return type;
+    }
+
+    /**
+     * Get the text of the unit like it is written after a number.
+     * 
+     * @return the text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Check if this is a compound unit.
+     * 
+     * @return true, if the unit is not a simple unit and not {@link #NONE}
+     */
+    public boolean isCompound() {
+        return numerator.length + denominator.length > 1 || denominator.length > 0;
+    }
+
+    /**
+     * Get the unit and the factor for the product of two numbers with this and
+     * the other unit.
+     * 
+     * @param other
+     *            the unit of the other factor
+     * @return the result
+     */
+    public Result multiply( Unit other ) {
+        Result result = products.get( other );
+        if( result == null ) {
+            result = combine( other.numerator, other.denominator );
+            if( other.interned ) {
+                products.putIfAbsent( other, result );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the unit and the factor for the quotient of a number with this unit
+     * and a number with the other unit.
+     * 
+     * @param other
+     *            the unit of the divisor
+     * @return the result
+     */
+    public Result divide( Unit other ) {
+        Result result = quotients.get( other );
+        if( result == null ) {
+            result = combine( other.denominator, other.numerator );
+            if( other.interned ) {
+                quotients.putIfAbsent( other, result );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the factor for converting a value with this unit into the target
+     * unit.
+     * 
+     * @param target
+     *            the target unit
+     * @return the factor or NaN if the units are not compatible
+     */
+    public double getConversionFactor( Unit target ) {
+        if( target == this ) {
+            return 1;
+        }
+        Result result = divide( target );
+        return result.unit == NONE ? result.factor : Double.NaN;
+    }
+
+    /**
+     * Multiply this unit with simple units. Compatible units are converted
+     * into the units of this and units of the numerator and the denominator
+     * cancel out.
+     * 
+     * @param multiplied
+     *            the units that are multiplied
+     * @param divided
+     *            the units that are divided
+     * @return the result
+     */
+    private Result combine( String[] multiplied, String[] divided ) {
+        List<String> num = new ArrayList<>( Arrays.asList( numerator ) );
+        List<String> den = new ArrayList<>( Arrays.asList( denominator ) );
+        double factor = 1;
+        for( String unit : multiplied ) {
+            int idx = indexOfCompatible( den, unit );
+            if( idx >= 0 ) {
+                factor *= conversionFactor( unit, den.remove( idx ) );
+                continue;
+            }
+            idx = indexOfCompatible( num, unit );
+            if( idx >= 0 ) {
+                factor *= conversionFactor( unit, num.get( idx ) );
+                unit = num.get( idx );
+            }
+            num.add( unit );
+        }
+        for( String unit : divided ) {
+            int idx = indexOfCompatible( num, unit );
+            if( idx >= 0 ) {
+                factor /= conversionFactor( unit, num.remove( idx ) );
+                continue;
+            }
+            idx = indexOfCompatible( den, unit );
+            if( idx >= 0 ) {
+                factor /= conversionFactor( unit, den.get( idx ) );
+                unit = den.get( idx );
+            }
+            den.add( unit );
+        }
+        Unit unit = intern( num.toArray( new String[num.size()] ), den.toArray( new String[den.size()] ) );
+        return new Result( unit, factor );
+    }
+
+    /**
+     * Find a unit that is equals or convertible to the given unit.
+     * 
+     * @param units
+     *            the list of simple units
+     * @param unit
+     *            the searched unit
+     * @return the index or -1
+     */
+    private static int indexOfCompatible( List<String> units, String unit ) {
+        int idx = units.indexOf( unit );
+        if( idx < 0 ) {
+            int group = forText( unit ).group;
+            if( group >= 0 ) {
+                for( int i = 0; i < units.size(); i++ ) {
+                    if( forText( units.get( i ) ).group == group ) {
+                        return i;
+                    }
+                }
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * The factor between two compatible simple units.
+     * 
+     * @param from
+     *            the source unit
+     * @param to
+     *            the target unit
+     * @return the factor
+     */
+    private static double conversionFactor( String from, String to ) {
+        if( from.equals( to ) ) {
+            return 1;
+        }
+        return forText( from ).factor / forText( to ).factor;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * The result of a multiplication or division of units.
+     */
+    public static final class Result {
+
+        private final Unit   unit;
+
+        private final double factor;
+
+        private Result( Unit unit, double factor ) {
+            this.unit = unit;
+            this.factor = factor;
+        }
+
+        /**
+         * Get the unit of the result.
+         * 
+         * @return the unit
+         */
+        public Unit getUnit() {
+            return unit;
+        }
+
+        /**
+         * Get the factor for the value of the result, not 1 if units were
+         * converted.
+         * 
+         * @return the factor
+         */
+        public double getFactor() {
+            return factor;
+        }
+    }
+}
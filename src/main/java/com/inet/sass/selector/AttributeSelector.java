@@ -94,6 +94,9 @@ public class AttributeSelector extends SimpleSelector {
         if (value != null) {
             newValue = value.replaceVariables(context);
         }
+        if( newAttribute == attribute && newValue == value ) {
+            return this;
+        }
         return new AttributeSelector(newAttribute, matchRelation, newValue);
     }
 }
@@ -43,6 +43,7 @@ public class ClassSelector extends SimpleSelector {
 
     @Override
     public ClassSelector replaceVariables(ScssContext context) {
-        return new ClassSelector(classValue.replaceVariables(context));
+        StringInterpolationSequence newValue = classValue.replaceVariables( context );
+        return newValue == classValue ? this : new ClassSelector( newValue );
     }
 }
@@ -42,7 +42,8 @@ public class IdSelector extends SimpleSelector {
 
     @Override
     public IdSelector replaceVariables(ScssContext context) {
-        return new IdSelector(value.replaceVariables(context));
+        StringInterpolationSequence newValue = value.replaceVariables( context );
+        return newValue == value ? this : new IdSelector( newValue );
     }
 
 }
@@ -41,6 +41,7 @@ public class PlaceholderSelector extends SimpleSelector {
 
     @Override
     public PlaceholderSelector replaceVariables(ScssContext context) {
-        return new PlaceholderSelector(value.replaceVariables(context));
+        StringInterpolationSequence newValue = value.replaceVariables( context );
+        return newValue == value ? this : new PlaceholderSelector( newValue );
     }
 }
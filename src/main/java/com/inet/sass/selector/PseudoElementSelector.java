@@ -43,7 +43,7 @@ public class PseudoElementSelector extends SimpleSelector {
 
     @Override
     public PseudoElementSelector replaceVariables(ScssContext context) {
-        return new PseudoElementSelector(
-                pseudoElement.replaceVariables(context));
+        StringInterpolationSequence newValue = pseudoElement.replaceVariables( context );
+        return newValue == pseudoElement ? this : new PseudoElementSelector( newValue );
     }
 }
@@ -17,13 +17,20 @@
 package com.inet.sass.selector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.visitor.Extension;
 
-// note: a Selector is effectively immutable - only methods creating a new selector can modify its parts directly
+/**
+ * Immutable selector consisting of simple selector sequences joined with
+ * combinators. Methods that transform a selector return this if nothing is
+ * changed, so callers can detect a no-op with an identity check. The hash code
+ * is cached because selectors are hashed many times while handling @extend.
+ */
 public class Selector {
 
     /*
@@ -42,36 +49,45 @@ public class Selector {
      * elimination (see https://github.com/nex3/sass/issues/324).
      */
 
-    private List<SelectorSegment> parts = new ArrayList<SelectorSegment>();
+    private final List<SelectorSegment> parts;
 
-    private Selector() {
-        /*
-         * Initializes selector in an illegal state (simpleSeqs empty), hence
-         * private.
-         */
-    }
+    // cached hash code, 0 if not calculated
+    private int hash;
 
     public Selector(Selector source) {
-        this(source.parts);
+        this.parts = source.parts;
+        this.hash = source.hash;
     }
 
     protected Selector(List<SelectorSegment> parts) {
-        this.parts.addAll(parts);
+        this.parts = new ArrayList<SelectorSegment>(parts);
+    }
+
+    /**
+     * Create a selector that takes ownership of the list. The list must not be
+     * modified afterwards.
+     * 
+     * @param parts
+     *            the segments
+     * @param owner
+     *            marker to distinguish from the copying constructor
+     */
+    private Selector( ArrayList<SelectorSegment> parts, boolean owner ) {
+        this.parts = parts;
     }
 
     /**
      * Non-nested selector
      */
     public Selector(SimpleSelectorSequence simple) {
-        parts.add(simple);
+        parts = Collections.<SelectorSegment> singletonList( simple );
     }
 
     /**
      * Selector with a leading combinator ("&gt; foo")
      */
     public Selector(Combinator comb, SimpleSelectorSequence simpl) {
-        parts.add(comb);
-        parts.add(simpl);
+        parts = Arrays.asList( comb, simpl );
     }
 
     /**
@@ -83,10 +99,14 @@ public class Selector {
                 || (comb != null && first != null);
 
         if (first != null) {
-            parts.addAll(first.parts);
-            parts.add(comb);
+            ArrayList<SelectorSegment> list = new ArrayList<SelectorSegment>( first.parts.size() + 1 + second.parts.size() );
+            list.addAll(first.parts);
+            list.add(comb);
+            list.addAll(second.parts);
+            parts = list;
+        } else {
+            parts = second.parts;
         }
-        parts.addAll(second.parts);
     }
 
     private boolean hasLeadingCombinator() {
@@ -174,34 +194,34 @@ public class Selector {
      *         substituted for the parent reference selector
      */
     public Selector replaceParentReference( Selector replacement ) {
-        boolean foundParentReference = false;
-        Selector sel = new Selector();
+        ArrayList<SelectorSegment> sel = null;
         for (int i = 0; i < parts.size(); i++) {
             SelectorSegment segment = parts.get(i);
             if (segment instanceof SimpleSelectorSequence) {
                 SimpleSelectorSequence simple = (SimpleSelectorSequence) segment;
                 SimpleSelectorSequence replacedSimple = simple.replaceParentReference( replacement );
                 if( simple != replacedSimple ) {
-                    foundParentReference = true;
+                    if( sel == null ) {
+                        sel = new ArrayList<SelectorSegment>( parts.subList( 0, i ) );
+                    }
                     if( replacement != null ) {
                         List<SelectorSegment> replacemnetParts = replacement.parts;
                         int count = replacemnetParts.size() - 1;
                         for( int j = 0; j < count; j++ ) {
-                            sel.parts.add(replacemnetParts.get( j ));
+                            sel.add(replacemnetParts.get( j ));
                         }
                     }
-                    sel.parts.add( replacedSimple );
-                } else {
-                    // no parent to replace
-                    sel.parts.add(simple);
+                    sel.add( replacedSimple );
+                    continue;
                 }
-            } else {
-                sel.parts.add(segment);
+            }
+            if( sel != null ) {
+                sel.add( segment );
             }
         }
 
-        if (foundParentReference) {
-            return sel;
+        if (sel != null) {
+            return new Selector( sel, true );
         } else if (replacement != null) {
             // no explicit parent reference selector, simply prepend parent
             return new Selector(replacement, Combinator.DESCENDANT, this);
@@ -213,20 +233,28 @@ public class Selector {
 
     /**
      * Replace variables with their values (textually) in subselectors
+     * 
+     * @return the new selector or this if nothing was replaced
      */
     public Selector replaceVariables(ScssContext context) {
         // It would be sensible to rethink the whole handling of interpolations
-        Selector sel = new Selector();
-        for (SelectorSegment segment : parts) {
+        ArrayList<SelectorSegment> sel = null;
+        for( int i = 0; i < parts.size(); i++ ) {
+            SelectorSegment segment = parts.get( i );
             if (segment instanceof SimpleSelectorSequence) {
                 SimpleSelectorSequence seq = (SimpleSelectorSequence) segment;
-                seq = seq.replaceVariables(context);
-                sel.parts.add(seq);
-            } else {
-                sel.parts.add(segment);
+                SimpleSelectorSequence replaced = seq.replaceVariables(context);
+                if( sel == null && replaced != seq ) {
+                    sel = new ArrayList<SelectorSegment>( parts.size() );
+                    sel.addAll( parts.subList( 0, i ) );
+                }
+                segment = replaced;
+            }
+            if( sel != null ) {
+                sel.add( segment );
             }
         }
-        return sel;
+        return sel == null ? this : new Selector( sel, true );
     }
 
     /**
@@ -234,11 +262,11 @@ public class Selector {
      * combinator c.
      */
     public Selector createNested(Combinator c, SimpleSelectorSequence s) {
-        Selector ext = new Selector();
-        ext.parts.addAll(parts);
-        ext.parts.add(c);
-        ext.parts.add(s);
-        return ext;
+        ArrayList<SelectorSegment> ext = new ArrayList<SelectorSegment>( parts.size() + 2 );
+        ext.addAll(parts);
+        ext.add(c);
+        ext.add(s);
+        return new Selector( ext, true );
     }
 
     /**
@@ -249,49 +277,52 @@ public class Selector {
      * @param extension
      *            information about extend selector, extending selector and
      *            context
-     * @return new selector replacing this
+     * @return new selector replacing this or this if the extension does not
+     *         match
      */
     public Selector replace(Extension extension) {
-        Selector sel = new Selector();
-        List<SelectorSegment> previousSegments = new ArrayList<SelectorSegment>();
-        for (SelectorSegment segment : parts) {
+        ArrayList<SelectorSegment> sel = null;
+        for( int i = 0; i < parts.size(); i++ ) {
+            SelectorSegment segment = parts.get( i );
             if (segment instanceof SimpleSelectorSequence
                     && extension.extendSelector.equals(segment)) {
                 // handle nested @extend
-                Selector newExtending = extension.replacingSelector
-                        .removePrefix(previousSegments);
+                Selector newExtending = extension.replacingSelector;
+                if( sel == null ) {
+                    // only the segments before the first match are removed
+                    newExtending = newExtending.removePrefix( parts.subList( 0, i ) );
+                    sel = new ArrayList<SelectorSegment>( parts.subList( 0, i ) );
+                }
                 if (extension.context != null) {
                     newExtending = newExtending.removePrefix(extension.context);
                 }
                 // simply replace the whole part
-                sel.parts.addAll(newExtending.parts);
-                // stop keeping track of previous segments to avoid
-                // multiple removal
-                previousSegments = null;
-            } else {
-                if (previousSegments != null) {
-                    previousSegments.add(segment);
-                }
-                sel.parts.add(segment);
+                sel.addAll(newExtending.parts);
+            } else if( sel != null ) {
+                sel.add(segment);
             }
         }
-        if (sel.parts.size() == 0) {
-            return sel;
+        List<SelectorSegment> result = sel == null ? parts : sel;
+        if (result.size() == 0) {
+            return sel == null ? this : new Selector( sel, true );
         }
-        assert (sel.parts.get(sel.parts.size() - 1) instanceof SimpleSelectorSequence);
+        assert (result.get(result.size() - 1) instanceof SimpleSelectorSequence);
         // if last part of result is a partial match, use SSS.unify()
         // TODO this is limited/broken
-        SimpleSelectorSequence seq = sel.lastSimple();
+        SimpleSelectorSequence seq = (SimpleSelectorSequence)result.get( result.size() - 1 );
         SimpleSelectorSequence lastUnified = seq.unify(
                 extension.extendSelector,
                 extension.replacingSelector.lastSimple());
         if (lastUnified != null) {
-            sel.parts.remove(sel.parts.size() - 1);
-            sel.parts.addAll(extension.replacingSelector.parts);
-            sel.parts.set(sel.parts.size() - 1, lastUnified);
+            if( sel == null ) {
+                sel = new ArrayList<SelectorSegment>( parts );
+            }
+            sel.remove(sel.size() - 1);
+            sel.addAll(extension.replacingSelector.parts);
+            sel.set(sel.size() - 1, lastUnified);
         }
 
-        return sel;
+        return sel == null ? this : new Selector( sel, true );
     }
 
     /**
@@ -356,17 +387,43 @@ public class Selector {
 
     @Override
     public boolean equals(Object that) {
+        if( that == this ) {
+            return true;
+        }
         if (!(that instanceof Selector)) {
             return false;
         }
         Selector thatSelector = (Selector) that;
-        return parts.equals(thatSelector.parts);
+        return hashCode() == thatSelector.hashCode() && parts.equals(thatSelector.parts);
 
     }
 
     @Override
     public int hashCode() {
-        return parts.hashCode();
+        int h = hash;
+        if( h == 0 ) {
+            hash = h = parts.hashCode();
+        }
+        return h;
+    }
+
+    /**
+     * Returns whether the selector contains a parent reference (&amp;-selector)
+     */
+    boolean hasParentReference() {
+        for( SelectorSegment segment : parts ) {
+            if( segment instanceof SimpleSelectorSequence && ((SimpleSelectorSequence)segment).hasParentReference() ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of simple selector sequences and combinators
+     */
+    int getPartCount() {
+        return parts.size();
     }
 
     /**
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.selector;
+
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Lazy selector list of a nested block: the combination of every parent
+ * selector with every selector of the block, in the order parent by parent.
+ * 
+ * <pre>
+ * .a, .b { .c, .d { ... } }  ---&gt;  .a .c, .a .d, .b .c, .b .d
+ * </pre>
+ * 
+ * A combined selector is only created on the first access with
+ * {@link #get(int)} and then cached. Nested products only create the
+ * selectors of the outer levels, the innermost level is written directly with
+ * {@link #appendTo(StringBuilder, String)}.
+ */
+public class SelectorProduct extends AbstractList<Selector> implements RandomAccess {
+
+    private final List<Selector> parents;
+
+    private final List<Selector> selectors;
+
+    // combined selectors that are already created, null if none
+    private Selector[]           combined;
+
+    /**
+     * Create a lazy product.
+     * 
+     * @param parents
+     *            the selectors of the parent block, must not change
+     * @param selectors
+     *            the selectors of the nested block, must not change
+     */
+    public SelectorProduct( List<Selector> parents, List<Selector> selectors ) {
+        this.parents = parents;
+        this.selectors = selectors;
+    }
+
+    @Override
+    public int size() {
+        return parents.size() * selectors.size();
+    }
+
+    @Override
+    public Selector get( int index ) {
+        Selector[] combined = this.combined;
+        if( combined == null ) {
+            this.combined = combined = new Selector[size()];
+        }
+        Selector sel = combined[index];
+        if( sel == null ) {
+            int count = selectors.size();
+            combined[index] = sel = selectors.get( index % count ).replaceParentReference( parents.get( index / count ) );
+        }
+        return sel;
+    }
+
+    /**
+     * Append all combined selectors. Combinations without a parent reference
+     * are written without creating a selector for them.
+     * 
+     * @param output
+     *            the output
+     * @param delimiter
+     *            the delimiter between two selectors
+     */
+    public void appendTo( StringBuilder output, String delimiter ) {
+        Selector[] combined = this.combined;
+        int index = 0;
+        for( Selector parent : parents ) {
+            String parentString = null;
+            for( Selector sel : selectors ) {
+                if( index > 0 ) {
+                    output.append( delimiter );
+                }
+                if( combined != null && combined[index] != null ) {
+                    output.append( combined[index] );
+                } else if( sel.hasParentReference() ) {
+                    output.append( get( index ) );
+                } else {
+                    // same text as replaceParentReference() for a selector without "&"
+                    if( parentString == null ) {
+                        parentString = parent.toString();
+                    }
+                    output.append( parentString ).append( ' ' ).append( sel );
+                }
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Check whether all combinations are different selectors without
+     * placeholders. Such a list does not need to be deduplicated or filtered.
+     * The check does not create the combined selectors.
+     * 
+     * @return true, if the list is free of duplicates and placeholders
+     */
+    public boolean isPlain() {
+        int length = -1;
+        for( Selector parent : parents ) {
+            if( parent.isPlaceholder() ) {
+                return false;
+            }
+            // with equal lengths, two combinations are only equal if both parts are equal
+            int partCount = parent.getPartCount();
+            if( length >= 0 && length != partCount ) {
+                return false;
+            }
+            length = partCount;
+        }
+        for( Selector sel : selectors ) {
+            if( sel.isPlaceholder() || sel.hasParentReference() ) {
+                return false;
+            }
+        }
+        return new HashSet<>( parents ).size() == parents.size() && new HashSet<>( selectors ).size() == selectors.size();
+    }
+}
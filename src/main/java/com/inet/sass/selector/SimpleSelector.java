@@ -31,19 +31,30 @@ import com.inet.sass.ScssContext;
  */
 public abstract class SimpleSelector  {
 
+    // cached hash code of the immutable selector, 0 if not calculated
+    private int hash;
+
     public SimpleSelector replaceVariables(ScssContext context) {
         return this;
     }
 
     @Override
     public boolean equals(Object obj) {
+        if( obj == this ) {
+            return true;
+        }
         return obj != null && getClass().equals(obj.getClass())
+                && hashCode() == obj.hashCode()
                 && toString().equals(obj.toString());
     }
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        int h = hash;
+        if( h == 0 ) {
+            hash = h = toString().hashCode();
+        }
+        return h;
     }
 
 }
@@ -31,7 +31,10 @@ import com.inet.sass.ScssContext;
  */
 public class SimpleSelectorSequence implements SelectorSegment {
 
-    private List<SimpleSelector> selectors;
+    private final List<SimpleSelector> selectors;
+
+    // cached hash code, 0 if not calculated
+    private int hash;
 
     /**
      * Constructs a {@link SimpleSelectorSequence} from a list of simple
@@ -196,6 +199,13 @@ public class SimpleSelectorSequence implements SelectorSegment {
         return this;
     }
 
+    /**
+     * Returns whether this sequence contains the parent selector "&amp;"
+     */
+    boolean hasParentReference() {
+        return selectors.contains( ParentSelector.it );
+    }
+
     public TypeSelector getTypeSelector() {
         SimpleSelector head = selectors.get( 0 );
         return head instanceof TypeSelector ? (TypeSelector)head : null;
@@ -226,12 +236,27 @@ public class SimpleSelectorSequence implements SelectorSegment {
         return that.selectors.containsAll( selectors );
     }
 
+    /**
+     * Replace variables with their values (textually) in the simple selectors
+     * 
+     * @param context
+     *            current compilation context
+     * @return the new sequence or this if nothing was replaced
+     */
     public SimpleSelectorSequence replaceVariables( ScssContext context ) {
-        ArrayList<SimpleSelector> list = new ArrayList<SimpleSelector>();
-        for( SimpleSelector s : selectors ) {
-            list.add( s.replaceVariables( context ) );
+        ArrayList<SimpleSelector> list = null;
+        for( int i = 0; i < selectors.size(); i++ ) {
+            SimpleSelector s = selectors.get( i );
+            SimpleSelector replaced = s.replaceVariables( context );
+            if( list == null && replaced != s ) {
+                list = new ArrayList<SimpleSelector>( selectors.size() );
+                list.addAll( selectors.subList( 0, i ) );
+            }
+            if( list != null ) {
+                list.add( replaced );
+            }
         }
-        return new SimpleSelectorSequence( list );
+        return list == null ? this : new SimpleSelectorSequence( list );
     }
 
     @Override
@@ -257,15 +282,23 @@ public class SimpleSelectorSequence implements SelectorSegment {
 
     @Override
     public boolean equals( Object obj ) {
+        if( obj == this ) {
+            return true;
+        }
         if( obj == null || !obj.getClass().equals( getClass() ) ) {
             return false;
         }
-        return selectors.equals( ((SimpleSelectorSequence)obj).selectors );
+        SimpleSelectorSequence that = (SimpleSelectorSequence)obj;
+        return hashCode() == that.hashCode() && selectors.equals( that.selectors );
     }
 
     @Override
     public int hashCode() {
-        return selectors.hashCode();
+        int h = hash;
+        if( h == 0 ) {
+            hash = h = selectors.hashCode();
+        }
+        return h;
     }
 
 }
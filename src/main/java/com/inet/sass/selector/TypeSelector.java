@@ -46,6 +46,6 @@ public class TypeSelector extends SimpleSelector {
         if( value.toString().equals( "&" ) ) {
             return ParentSelector.it;
         }
-        return new TypeSelector(value);
+        return value == localName ? this : new TypeSelector( value );
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.sourcemap;
+
+/**
+ * Encoder for the Base64 VLQ values of the "mappings" field of a source map.
+ */
+class Base64VLQ {
+
+    private static final char[] BASE64   = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private static final int    SHIFT    = 5;
+
+    private static final int    MASK     = ( 1 << SHIFT ) - 1;
+
+    private static final int    CONTINUE = 1 << SHIFT;
+
+    /**
+     * Append a signed value. The sign is stored in the lowest bit, the other bits are written in groups of 5 bits
+     * starting with the least significant group.
+     * 
+     * @param builder the target
+     * @param value the value
+     */
+    static void encode( StringBuilder builder, int value ) {
+        int vlq = value < 0 ? ( -value << 1 ) | 1 : value << 1;
+        do {
+            int digit = vlq & MASK;
+            vlq >>>= SHIFT;
+            if( vlq != 0 ) {
+                digit |= CONTINUE;
+            }
+            builder.append( BASE64[digit] );
+        } while( vlq != 0 );
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.sourcemap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.inet.sass.tree.SourceLocation;
+import com.inet.sass.util.StringUtil;
+
+/**
+ * Generator of a source map in the version 3 format. The mappings are encoded immediately while the CSS is printed:
+ * the printer calls {@link #addMapping(CharSequence, SourceLocation)} before it appends the text of a node. The
+ * generated position is taken from the characters that were appended to the output since the previous mapping, so
+ * every character of the output is visited only once.
+ * 
+ * <pre>
+ * SourceMapGenerator sourceMap = new SourceMapGenerator();
+ * String css = stylesheet.printState( sourceMap );
+ * String json = sourceMap.toJson( "style.css" );
+ * </pre>
+ */
+public class SourceMapGenerator {
+
+    private final Map<String, Integer> sources  = new LinkedHashMap<>();
+
+    private final StringBuilder        mappings = new StringBuilder();
+
+    // position of the output after the characters scanned so far
+    private int                        scanned;
+
+    private int                        line;
+
+    private int                        column;
+
+    // values of the previous segment, the fields of a segment are relative to it
+    private int                        segmentLine;
+
+    private int                        segmentColumn;
+
+    private int                        sourceIndex;
+
+    private int                        sourceLine;
+
+    private int                        sourceColumn;
+
+    private boolean                    lineHasSegment;
+
+    /**
+     * Map the current end of the output to a location in a source file.
+     * 
+     * @param output the output that was written so far, only characters appended since the last call are scanned
+     * @param location the source location of the node that will be printed next
+     */
+    public void addMapping( CharSequence output, SourceLocation location ) {
+        String uri = location.getUri();
+        int srcLine = location.getLineNumber() - 1;
+        if( uri == null || srcLine < 0 ) {
+            return;
+        }
+        int srcColumn = Math.max( 0, location.getColumnNumber() - 1 );
+        advance( output );
+
+        if( segmentLine < line ) {
+            do {
+                mappings.append( ';' );
+            } while( ++segmentLine < line );
+            segmentColumn = 0;
+            lineHasSegment = false;
+        }
+        if( lineHasSegment ) {
+            mappings.append( ',' );
+        }
+        lineHasSegment = true;
+
+        Integer index = sources.get( uri );
+        if( index == null ) {
+            sources.put( uri, index = sources.size() );
+        }
+
+        Base64VLQ.encode( mappings, column - segmentColumn );
+        Base64VLQ.encode( mappings, index - sourceIndex );
+        Base64VLQ.encode( mappings, srcLine - sourceLine );
+        Base64VLQ.encode( mappings, srcColumn - sourceColumn );
+        segmentColumn = column;
+        sourceIndex = index;
+        sourceLine = srcLine;
+        sourceColumn = srcColumn;
+    }
+
+    /**
+     * Update the generated line and column with the characters appended since the last call.
+     * 
+     * @param output the output
+     */
+    private void advance( CharSequence output ) {
+        int length = output.length();
+        for( int i = scanned; i < length; i++ ) {
+            if( output.charAt( i ) == '\n' ) {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+        }
+        scanned = length;
+    }
+
+    /**
+     * Get the encoded "mappings" field.
+     * 
+     * @return the mappings
+     */
+    public String getMappings() {
+        return mappings.toString();
+    }
+
+    /**
+     * Get the source files in the order of their index in the mappings.
+     * 
+     * @return the uris of the sources
+     */
+    public String[] getSources() {
+        return sources.keySet().toArray( new String[sources.size()] );
+    }
+
+    /**
+     * Create the JSON of the source map.
+     * 
+     * @param file the name of the generated CSS file, can be null
+     * @return the source map
+     */
+    public String toJson( String file ) {
+        StringBuilder json = new StringBuilder( mappings.length() + 100 );
+        json.append( "{\"version\":3" );
+        if( file != null ) {
+            json.append( ",\"file\":" );
+            StringUtil.appendJsonString( json, file );
+        }
+        json.append( ",\"sources\":[" );
+        boolean first = true;
+        for( String source : sources.keySet() ) {
+            if( !first ) {
+                json.append( ',' );
+            }
+            first = false;
+            StringUtil.appendJsonString( json, source );
+        }
+        json.append( "],\"names\":[],\"mappings\":" );
+        StringUtil.appendJsonString( json, mappings.toString() );
+        return json.append( '}' ).toString();
+    }
+}
@@ -25,6 +25,8 @@ import java.util.List;
 import com.inet.sass.ScssContext;
 import com.inet.sass.handler.SCSSErrorHandler;
 import com.inet.sass.selector.Selector;
+import com.inet.sass.selector.SelectorProduct;
+import com.inet.sass.sourcemap.SourceMapGenerator;
 import com.inet.sass.visitor.BlockNodeHandler;
 
 public class BlockNode extends Node {
@@ -77,7 +79,9 @@ public class BlockNode extends Node {
     }
 
     public String buildString(boolean indent) {
-        return buildString(indent, PRINT_STRATEGY);
+        StringBuilder builder = new StringBuilder();
+        buildString( builder, indent, PRINT_STRATEGY, null );
+        return builder.toString();
     }
 
     @Override
@@ -85,9 +89,17 @@ public class BlockNode extends Node {
         return buildString(false);
     }
 
+    @Override
+    public boolean printState( StringBuilder output, SourceMapGenerator sourceMap ) {
+        buildString( output, false, PRINT_STRATEGY, sourceMap );
+        return true;
+    }
+
     @Override
     public String toString() {
-        return "BlockNode [" + buildString(true, TO_STRING_STRATEGY) + "]";
+        StringBuilder builder = new StringBuilder( "BlockNode [" );
+        buildString( builder, true, TO_STRING_STRATEGY, null );
+        return builder.append( ']' ).toString();
     }
 
     private void replaceVariables(ScssContext context) {
@@ -95,11 +107,21 @@ public class BlockNode extends Node {
             return;
         }
 
-        ArrayList<Selector> newSelectorList = new ArrayList<Selector>();
-        for (Selector s : selectorList) {
-            newSelectorList.add(s.replaceVariables(context));
+        ArrayList<Selector> newSelectorList = null;
+        for( int i = 0; i < selectorList.size(); i++ ) {
+            Selector s = selectorList.get( i );
+            Selector replaced = s.replaceVariables( context );
+            if( newSelectorList == null && replaced != s ) {
+                newSelectorList = new ArrayList<Selector>( selectorList.size() );
+                newSelectorList.addAll( selectorList.subList( 0, i ) );
+            }
+            if( newSelectorList != null ) {
+                newSelectorList.add( replaced );
+            }
+        }
+        if( newSelectorList != null ) {
+            setSelectorList( newSelectorList );
         }
-        setSelectorList(newSelectorList);
     }
 
     public String getSelectors() {
@@ -117,33 +139,58 @@ public class BlockNode extends Node {
             replaceVariables( context );
             return BlockNodeHandler.traverse( context, this );
         } catch( Exception e ) {
-            SCSSErrorHandler.get().error( e );
+            SCSSErrorHandler.reportError( e, this );
         }
         return Collections.emptyList();
     }
 
-    private String buildString(boolean indent, BuildStringStrategy strategy) {
-        StringBuilder string = new StringBuilder();
-        int i = 0;
-        for (final Selector s : selectorList) {
-            string.append(s);
-            if (i != selectorList.size() - 1) {
-                string.append(", ");
+    /**
+     * Append the selectors and the children of this block.
+     * 
+     * @param string
+     *            the output
+     * @param indent
+     *            true, if the children are nested one level deeper, e.g. in
+     *            a @media
+     * @param strategy
+     *            the strategy for the children
+     * @param sourceMap
+     *            the source map or null
+     */
+    void buildString( StringBuilder string, boolean indent, BuildStringStrategy strategy, SourceMapGenerator sourceMap ) {
+        if( sourceMap != null ) {
+            sourceMap.addMapping( string, this );
+        }
+        if( selectorList instanceof SelectorProduct ) {
+            // write the combined selectors without creating them
+            ((SelectorProduct)selectorList).appendTo( string, ", " );
+        } else {
+            int i = 0;
+            for (final Selector s : selectorList) {
+                string.append(s);
+                if (i != selectorList.size() - 1) {
+                    string.append(", ");
+                }
+                i++;
             }
-            i++;
         }
         string.append(" {\n");
         for (Node child : getChildren()) {
             if (indent) {
                 string.append("\t");
             }
-            string.append("\t" + strategy.build(child) + "\n");
+            string.append( '\t' );
+            if( strategy == PRINT_STRATEGY ) {
+                child.printState( string, sourceMap );
+            } else {
+                string.append( strategy.build( child ) );
+            }
+            string.append( '\n' );
         }
         if (indent) {
             string.append("\t");
         }
         string.append("}");
-        return string.toString();
     }
 
     @Override
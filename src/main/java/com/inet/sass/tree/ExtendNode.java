@@ -75,7 +75,7 @@ public class ExtendNode extends Node {
 
             return ExtendNodeHandler.traverse( context, this );
         } catch( Exception e ) {
-            SCSSErrorHandler.get().error( e );
+            SCSSErrorHandler.reportError( e, this );
             return Collections.emptyList();
         }
     }
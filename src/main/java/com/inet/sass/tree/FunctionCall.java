@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import com.inet.sass.Scope;
 import com.inet.sass.ScssContext;
 import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.handler.SCSSProfiler;
 import com.inet.sass.parser.ActualArgumentList;
 import com.inet.sass.parser.FormalArgumentList;
 import com.inet.sass.parser.LexicalUnitImpl;
@@ -38,6 +39,19 @@ public class FunctionCall {
 
     public static SassListItem evaluate(ScssContext context,
             FunctionDefNode def, LexicalUnitImpl invocation) {
+        SCSSProfiler profiler = context.getProfiler();
+        if( profiler == null ) {
+            return evaluateImpl( context, def, invocation );
+        }
+        long start = System.nanoTime();
+        try {
+            return evaluateImpl( context, def, invocation );
+        } finally {
+            profiler.add( SCSSProfiler.Category.FUNCTION, def.getName(), start );
+        }
+    }
+
+    private static SassListItem evaluateImpl( ScssContext context, FunctionDefNode def, LexicalUnitImpl invocation ) {
         ActualArgumentList invocationArglist = invocation.getParameterList()
                 .expandVariableArguments();
         SassListItem value = null;
@@ -83,7 +97,7 @@ public class FunctionCall {
             }
         } catch( Exception ex ) {
             cause = ex;
-            SCSSErrorHandler.get().warning( ex );
+            SCSSErrorHandler.reportWarning( ex, invocation );
         }
         if (value == null) {
             ParseException pex = new ParseException( "Function " + invocation.getFunctionName() + " did not return a value", invocation );
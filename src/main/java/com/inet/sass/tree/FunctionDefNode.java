@@ -39,7 +39,7 @@ public class FunctionDefNode extends DefNode {
     @Override
     public Collection<Node> traverse(ScssContext context) {
         context.defineFunction(this);
-        setDefinitionScope(context.getCurrentScope());
+        setDefinitionScope(context.captureCurrentScope());
         return Collections.emptyList();
     }
 
@@ -24,6 +24,7 @@ import java.util.Iterator;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.parser.MediaList;
+import com.inet.sass.sourcemap.SourceMapGenerator;
 
 public class MediaNode extends Node {
 
@@ -49,12 +50,22 @@ public class MediaNode extends Node {
 
     @Override
     public String printState() {
-        return buildString(PRINT_STRATEGY, true);
+        StringBuilder builder = new StringBuilder();
+        buildString( builder, PRINT_STRATEGY, true, null );
+        return builder.toString();
+    }
+
+    @Override
+    public boolean printState( StringBuilder output, SourceMapGenerator sourceMap ) {
+        buildString( output, PRINT_STRATEGY, true, sourceMap );
+        return true;
     }
 
     @Override
     public String toString() {
-        return buildString(TO_STRING_STRATEGY, true);
+        StringBuilder builder = new StringBuilder();
+        buildString( builder, TO_STRING_STRATEGY, true, null );
+        return builder.toString();
     }
 
     @Override
@@ -75,10 +86,9 @@ public class MediaNode extends Node {
             Node child = it.next();
             if( child.getClass() == MediaNode.class ) {
                 MediaNode mediaChild = (MediaNode)child;
-                MediaList medium = new MediaList();
-                mediaChild.media.replaceVariables( context );
-                medium.addItem( media + " and " + mediaChild.media );
-                mediaChild.setMedia( medium );
+                if( media != null && mediaChild.media != null ) {
+                    mediaChild.setMedia( media.merge( mediaChild.media.replaceVariables( context ) ) );
+                }
                 result.add( child );
                 it.remove();
             }
@@ -95,8 +105,8 @@ public class MediaNode extends Node {
         return result;
     }
 
-    private String buildString(BuildStringStrategy strategy, boolean indent) {
-        StringBuilder builder = new StringBuilder("@media ");
+    private void buildString( StringBuilder builder, BuildStringStrategy strategy, boolean indent, SourceMapGenerator sourceMap ) {
+        builder.append( "@media " );
         if (media != null) {
             for (int i = 0; i < media.getLength(); i++) {
                 if (i > 0) {
@@ -108,12 +118,11 @@ public class MediaNode extends Node {
         builder.append(" {\n");
         for (Node child : getChildren()) {
             builder.append('\t');
-            if (child instanceof BlockNode) {
-                if (PRINT_STRATEGY.equals(strategy)) {
-                    builder.append(((BlockNode) child).buildString(indent));
+            if( PRINT_STRATEGY.equals( strategy ) ) {
+                if( child instanceof BlockNode ) {
+                    ((BlockNode)child).buildString( builder, indent, strategy, sourceMap );
                 } else {
-                    builder.append(strategy.build(child));
-
+                    child.printState( builder, sourceMap );
                 }
             } else {
                 builder.append(strategy.build(child));
@@ -121,7 +130,6 @@ public class MediaNode extends Node {
             builder.append('\n');
         }
         builder.append("}");
-        return builder.toString();
     }
 
     @Override
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.Collections;
 
 import com.inet.sass.ScssContext;
+import com.inet.sass.handler.SCSSDiagnostic.Severity;
 import com.inet.sass.handler.SCSSErrorHandler;
 import com.inet.sass.parser.SassListItem;
 
@@ -57,10 +58,10 @@ public class MessageNode extends Node {
                 handler.debug( msg );
                 break;
             case warn:
-                handler.warning( msg );
+                SCSSErrorHandler.report( Severity.WARNING, "@warn", msg, null, message );
                 break;
             case error:
-                handler.error( msg );
+                SCSSErrorHandler.report( Severity.ERROR, "@error", msg, null, message );
                 break;
         }
         return Collections.emptyList();
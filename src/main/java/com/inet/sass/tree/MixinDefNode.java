@@ -72,7 +72,7 @@ public class MixinDefNode extends DefNode {
     @Override
     public Collection<Node> traverse(ScssContext context) {
         context.defineMixin(this);
-        setDefinitionScope(context.getCurrentScope());
+        setDefinitionScope(context.captureCurrentScope());
         return Collections.emptyList();
     }
 }
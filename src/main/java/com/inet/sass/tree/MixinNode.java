@@ -84,7 +84,7 @@ public class MixinNode extends Node implements NodeWithUrlContent {
             // inner scope is managed by MixinNodeHandler
             return MixinNodeHandler.traverse( context, this );
         } catch( Exception ex ) {
-            SCSSErrorHandler.get().error( ex );
+            SCSSErrorHandler.reportError( ex, this );
             // TODO is ignoring this exception appropriate?
             return Collections.emptyList();
         }
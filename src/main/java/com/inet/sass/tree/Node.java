@@ -26,6 +26,7 @@ import com.inet.sass.ScssContext;
 import com.inet.sass.parser.ActualArgumentList;
 import com.inet.sass.parser.ParseException;
 import com.inet.sass.parser.SassListItem;
+import com.inet.sass.sourcemap.SourceMapGenerator;
 import com.inet.sass.tree.controldirective.TemporaryNode;
 
 public abstract class Node implements SourceLocation {
@@ -191,6 +192,26 @@ public abstract class Node implements SourceLocation {
         return null;
     }
 
+    /**
+     * Appends the current state of the node to the output of the whole style
+     * sheet. Nodes that appear in a source map add their mapping before they
+     * append their text.
+     * 
+     * @param output
+     *            the output of the style sheet
+     * @param sourceMap
+     *            the source map or null
+     * @return false if the node has no state, see {@link #printState()}
+     */
+    public boolean printState( StringBuilder output, SourceMapGenerator sourceMap ) {
+        String state = printState();
+        if( state == null ) {
+            return false;
+        }
+        output.append( state );
+        return true;
+    }
+
     public Node getParentNode() {
         return parentNode;
     }
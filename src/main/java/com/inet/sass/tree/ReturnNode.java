@@ -26,6 +26,9 @@ public class ReturnNode extends Node implements NodeWithUrlContent {
 
     private SassListItem expr;
 
+    // the value is a constant that was already evaluated
+    private boolean evaluated;
+
     public ReturnNode(SassListItem expression) {
         expr = expression;
     }
@@ -33,6 +36,7 @@ public class ReturnNode extends Node implements NodeWithUrlContent {
     private ReturnNode(ReturnNode nodeToCopy) {
         super(nodeToCopy);
         expr = nodeToCopy.expr;
+        evaluated = nodeToCopy.evaluated;
     }
 
     @Override
@@ -46,6 +50,17 @@ public class ReturnNode extends Node implements NodeWithUrlContent {
         return expr;
     }
 
+    /**
+     * Replace the expression with the already evaluated value of a constant.
+     * 
+     * @param expr
+     *            the evaluated value, must not depend on the context
+     */
+    public void setEvaluatedExpr( SassListItem expr ) {
+        this.expr = expr;
+        this.evaluated = true;
+    }
+
     /**
      * Evaluate the value of the return node in a context defined by the state
      * of ScssStylesheet (variables currently in scope, defined custom
@@ -55,6 +70,9 @@ public class ReturnNode extends Node implements NodeWithUrlContent {
      */
     public SassListItem evaluate(ScssContext context) {
         SassListItem expr = this.expr;
+        if( evaluated ) {
+            return expr;
+        }
         boolean arith = expr.containsArithmeticalOperator();
         expr = expr.evaluateFunctionsAndExpressions(context, arith);
         return expr;
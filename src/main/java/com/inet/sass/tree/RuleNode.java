@@ -21,7 +21,13 @@ import java.util.Collection;
 import java.util.Collections;
 
 import com.inet.sass.ScssContext;
+import com.inet.sass.parser.LexicalUnitImpl;
+import com.inet.sass.parser.ParseException;
+import com.inet.sass.parser.SCSSLexicalUnit;
+import com.inet.sass.parser.SassList;
 import com.inet.sass.parser.SassListItem;
+import com.inet.sass.parser.Unit;
+import com.inet.sass.sourcemap.SourceMapGenerator;
 import com.inet.sass.parser.StringInterpolationSequence;
 
 public class RuleNode extends Node implements NodeWithUrlContent {
@@ -30,8 +36,15 @@ public class RuleNode extends Node implements NodeWithUrlContent {
     SassListItem value;
     String comment;
     private boolean important;
+    // the value is a constant that was already evaluated
+    private boolean evaluated;
 
     public RuleNode( StringInterpolationSequence variable, SassListItem value, boolean important, String comment ) {
+        this( null, 0, 0, variable, value, important, comment );
+    }
+
+    public RuleNode( String uri, int line, int column, StringInterpolationSequence variable, SassListItem value, boolean important, String comment ) {
+        super( uri, line, column );
         this.variable = variable;
         this.value = value;
         this.important = important;
@@ -44,6 +57,7 @@ public class RuleNode extends Node implements NodeWithUrlContent {
         value = nodeToCopy.value;
         comment = nodeToCopy.comment;
         important = nodeToCopy.important;
+        evaluated = nodeToCopy.evaluated;
     }
 
     public StringInterpolationSequence getVariable() {
@@ -58,11 +72,32 @@ public class RuleNode extends Node implements NodeWithUrlContent {
         return value;
     }
 
+    /**
+     * Replace the value with the already evaluated value of a constant. The
+     * traversal has nothing to do for this node then.
+     * 
+     * @param value
+     *            the evaluated value, must not depend on the context
+     */
+    public void setEvaluatedValue( SassListItem value ) {
+        this.value = value;
+        this.evaluated = true;
+    }
+
     @Override
     public String printState() {
         return buildString(PRINT_STRATEGY);
     }
 
+    @Override
+    public boolean printState( StringBuilder output, SourceMapGenerator sourceMap ) {
+        if( sourceMap != null ) {
+            sourceMap.addMapping( output, this );
+        }
+        output.append( buildString( PRINT_STRATEGY ) );
+        return true;
+    }
+
     @Override
     public String toString() {
         return "Rule node [" + buildString(TO_STRING_STRATEGY) + "]";
@@ -86,6 +121,10 @@ public class RuleNode extends Node implements NodeWithUrlContent {
 
     @Override
     public Collection<Node> traverse(ScssContext context) {
+        if( evaluated ) {
+            checkUnits( value );
+            return Collections.singleton( (Node)this );
+        }
         /*
          * containsArithmeticalOperator() must be called before
          * replaceVariables. Because for the "/" operator, it needs to see if
@@ -95,9 +134,36 @@ public class RuleNode extends Node implements NodeWithUrlContent {
         boolean hasOperators = value.containsArithmeticalOperator();
         variable = variable.replaceVariables(context);
         value = value.evaluateFunctionsAndExpressions(context, hasOperators);
+        checkUnits( value );
         return Collections.singleton((Node) this);
     }
 
+    /**
+     * Check that the value contains no number with a compound unit like
+     * px*px. Such a number is only valid in calculations, not in the CSS
+     * output.
+     * 
+     * @param item
+     *            the evaluated value
+     * @throws ParseException
+     *             if a number has a compound unit
+     */
+    private void checkUnits( SassListItem item ) {
+        if( item instanceof LexicalUnitImpl ) {
+            LexicalUnitImpl number = (LexicalUnitImpl)item;
+            if( number.getItemType() == SCSSLexicalUnit.SAC_DIMENSION ) {
+                Unit unit = number.getUnit();
+                if( unit != null && unit.isCompound() ) {
+                    throw new ParseException( number.printState() + " isn't a valid CSS value.", number );
+                }
+            }
+        } else if( item instanceof SassList ) {
+            for( SassListItem child : (SassList)item ) {
+                checkUnits( child );
+            }
+        }
+    }
+
     private String buildString(BuildStringStrategy strategy) {
         String stringValue = strategy.build(value)
                 + (important ? " !important" : "");
@@ -30,6 +30,9 @@ public class VariableNode extends Node implements Definition, NodeWithUrlContent
 
     private final Variable variable;
 
+    // the value is a constant that was already evaluated
+    private boolean evaluated;
+
     public VariableNode(String name, SassListItem expr, boolean guarded) {
         super();
         variable = new Variable(name, expr, guarded);
@@ -43,6 +46,18 @@ public class VariableNode extends Node implements Definition, NodeWithUrlContent
         variable.setExpr(expr);
     }
 
+    /**
+     * Replace the value with the already evaluated value of a constant. The
+     * traversal must then not evaluate the value again.
+     * 
+     * @param expr
+     *            the evaluated value, must not depend on the context
+     */
+    public void setEvaluatedExpr( SassListItem expr ) {
+        variable.setExpr( expr );
+        evaluated = true;
+    }
+
     public String getName() {
         return variable.getName();
     }
@@ -67,19 +82,37 @@ public class VariableNode extends Node implements Definition, NodeWithUrlContent
 
     @Override
     public Collection<Node> traverse(ScssContext context) {
-        /*
-         * containsArithmeticalOperator() must be called before
-         * replaceVariables. Because for the "/" operator, it needs to see if
-         * its predecessor or successor is a Variable or not, to determine it is
-         * an arithmetic operator.
-         */
-        boolean hasOperator = variable.getExpr().containsArithmeticalOperator();
-        variable.setExpr(variable.getExpr().evaluateFunctionsAndExpressions(
-                context, hasOperator));
+        if( !evaluated ) {
+            /*
+             * containsArithmeticalOperator() must be called before
+             * replaceVariables. Because for the "/" operator, it needs to see if
+             * its predecessor or successor is a Variable or not, to determine it is
+             * an arithmetic operator.
+             */
+            boolean hasOperator = variable.getExpr().containsArithmeticalOperator();
+            variable.setExpr(variable.getExpr().evaluateFunctionsAndExpressions(
+                    context, hasOperator));
+        }
         VariableNodeHandler.traverse(context, this);
         return Collections.emptyList();
     }
 
+    /**
+     * Evaluate and set the variable without modifying this node. This is used for the body of loops which is
+     * traversed for every iteration without creating a copy of this node.
+     * 
+     * @param context
+     *            current compilation context
+     */
+    public void assign( ScssContext context ) {
+        Variable value = variable;
+        if( !evaluated ) {
+            boolean hasOperator = variable.getExpr().containsArithmeticalOperator();
+            value = new Variable( getName(), variable.getExpr().evaluateFunctionsAndExpressions( context, hasOperator ), isGuarded() );
+        }
+        VariableNodeHandler.traverse( context, value );
+    }
+
     private String buildString(BuildStringStrategy strategy) {
         StringBuilder builder = new StringBuilder("$");
         builder.append(getName()).append(": ")
@@ -89,14 +122,18 @@ public class VariableNode extends Node implements Definition, NodeWithUrlContent
 
     @Override
     public VariableNode copy() {
-        return new VariableNode(getName(), getExpr(), isGuarded());
+        VariableNode copy = new VariableNode(getName(), getExpr(), isGuarded());
+        copy.evaluated = evaluated;
+        return copy;
     }
 
     @Override
     public VariableNode updateUrl(String prefix) {
         if (getExpr() != null) {
             SassListItem newExpr = variable.getExpr().updateUrl(prefix);
-            return new VariableNode(getName(), newExpr, isGuarded());
+            VariableNode newInstance = new VariableNode(getName(), newExpr, isGuarded());
+            newInstance.evaluated = evaluated;
+            return newInstance;
         }
         return this;
     }
@@ -31,8 +31,12 @@ public class EachDefNode extends Node implements NodeWithUrlContent {
     private List<String> variableNames;
     private SassListItem list;
 
-    public EachDefNode( List<String> variableNames, SassListItem list) {
-        super();
+    public EachDefNode( List<String> variableNames, SassListItem list ) {
+        this( null, 0, 0, variableNames, list );
+    }
+
+    public EachDefNode( String uri, int line, int column, List<String> variableNames, SassListItem list ) {
+        super( uri, line, column );
         this.variableNames = variableNames;
         this.list = list;
     }
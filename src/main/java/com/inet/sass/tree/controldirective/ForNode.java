@@ -31,9 +31,12 @@ public class ForNode extends Node {
     private final SassListItem to;
     private final boolean exclusive;
 
-    public ForNode(String variableName, SassListItem from, SassListItem to,
-            boolean exclusive) {
-        super();
+    public ForNode( String variableName, SassListItem from, SassListItem to, boolean exclusive ) {
+        this( null, 0, 0, variableName, from, to, exclusive );
+    }
+
+    public ForNode( String uri, int line, int column, String variableName, SassListItem from, SassListItem to, boolean exclusive ) {
+        super( uri, line, column );
         this.variableName = variableName;
         this.from = from;
         this.to = to;
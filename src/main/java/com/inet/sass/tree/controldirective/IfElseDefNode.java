@@ -48,7 +48,7 @@ public class IfElseDefNode extends Node {
         try {
             return IfElseNodeHandler.traverse(context, this);
         } catch (Exception e) {
-            SCSSErrorHandler.get().error( e );
+            SCSSErrorHandler.reportError( e, this );
             return Collections.emptyList();
         }
     }
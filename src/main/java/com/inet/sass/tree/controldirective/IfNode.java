@@ -26,6 +26,9 @@ import com.inet.sass.tree.Node;
 public class IfNode extends Node implements IfElseNode {
     private SassListItem expression;
 
+    // the expression is a constant that was already evaluated
+    private boolean evaluated;
+
     public IfNode(SassListItem expression) {
         if (expression == null) {
             expression = LexicalUnitImpl.createIdent("false");
@@ -36,6 +39,7 @@ public class IfNode extends Node implements IfElseNode {
     private IfNode(IfNode nodeToCopy) {
         super(nodeToCopy);
         expression = nodeToCopy.expression;
+        evaluated = nodeToCopy.evaluated;
     }
 
     @Override
@@ -43,6 +47,27 @@ public class IfNode extends Node implements IfElseNode {
         return expression;
     }
 
+    /**
+     * Replace the condition with the already evaluated value of a constant.
+     * The traversal must then not evaluate the condition again.
+     * 
+     * @param expression
+     *            the evaluated condition, must not depend on the context
+     */
+    public void setEvaluatedExpression( SassListItem expression ) {
+        this.expression = expression;
+        evaluated = true;
+    }
+
+    /**
+     * If the condition is a constant that was already evaluated.
+     * 
+     * @return true, if evaluated
+     */
+    public boolean isEvaluated() {
+        return evaluated;
+    }
+
     @Override
     public String toString() {
         return "@if " + expression.toString();
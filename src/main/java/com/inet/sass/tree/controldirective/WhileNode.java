@@ -28,7 +28,12 @@ public class WhileNode extends Node {
 
     private SassListItem condition;
 
-    public WhileNode(SassListItem condition) {
+    public WhileNode( SassListItem condition ) {
+        this( null, 0, 0, condition );
+    }
+
+    public WhileNode( String uri, int line, int column, SassListItem condition ) {
+        super( uri, line, column );
         this.condition = condition;
     }
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.util;
+
+/**
+ * The value of a color with the RGB components packed into an int and the
+ * alpha value. The HSL components are calculated on the first request, or set
+ * if the color was created from them. A color is cached at the lexical unit
+ * with {@link com.inet.sass.parser.LexicalUnitImpl#getColor()} so that chained
+ * color functions do not parse the color again. Only colors with RGB
+ * components in the range 0 to 255 can be represented.
+ */
+public final class Color {
+
+    private final int        rgb;
+
+    private final double     alpha;
+
+    // the HSL components, calculated on demand
+    private volatile double[] hsl;
+
+    private Color( int rgb, double alpha, double[] hsl ) {
+        this.rgb = rgb;
+        this.alpha = alpha;
+        this.hsl = hsl;
+    }
+
+    /**
+     * Create a color from the RGB components.
+     * 
+     * @param red
+     *            the red component
+     * @param green
+     *            the green component
+     * @param blue
+     *            the blue component
+     * @param alpha
+     *            the alpha value
+     * @return the color or null if a component is out of range
+     */
+    public static Color fromRgb( int red, int green, int blue, double alpha ) {
+        if( ((red | green | blue) & ~0xFF) != 0 ) {
+            return null;
+        }
+        return new Color( (red << 16) | (green << 8) | blue, alpha, null );
+    }
+
+    /**
+     * Create a color from the HSL components. The RGB components are
+     * calculated like with {@link ColorUtil#hslToRgb(double[])}.
+     * 
+     * @param hue
+     *            the hue in degrees
+     * @param saturation
+     *            the saturation in percent
+     * @param lightness
+     *            the lightness in percent
+     * @param alpha
+     *            the alpha value
+     * @return the color or null if the RGB components are out of range
+     */
+    public static Color fromHsl( double hue, double saturation, double lightness, double alpha ) {
+        int rgb = ColorUtil.hslToPackedRgb( hue, saturation, lightness );
+        if( rgb < 0 ) {
+            return null;
+        }
+        return new Color( rgb, alpha, new double[] { hue, saturation, lightness } );
+    }
+
+    /**
+     * Get the red component.
+     * 
+     * @return the value in the range 0 to 255
+     */
+    public int getRed() {
+        return rgb >> 16;
+    }
+
+    /**
+     * Get the green component.
+     * 
+     * @return the value in the range 0 to 255
+     */
+    public int getGreen() {
+        return (rgb >> 8) & 0xFF;
+    }
+
+    /**
+     * Get the blue component.
+     * 
+     * @return the value in the range 0 to 255
+     */
+    public int getBlue() {
+        return rgb & 0xFF;
+    }
+
+    /**
+     * Get the packed RGB components.
+     * 
+     * @return the value like 0xRRGGBB
+     */
+    public int getRgb() {
+        return rgb;
+    }
+
+    /**
+     * Get the alpha value.
+     * 
+     * @return the value, 1 for an opaque color
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Get the hue.
+     * 
+     * @return the value in degrees
+     */
+    public double getHue() {
+        return hsl()[0];
+    }
+
+    /**
+     * Get the saturation.
+     * 
+     * @return the value in percent
+     */
+    public double getSaturation() {
+        return hsl()[1];
+    }
+
+    /**
+     * Get the lightness.
+     * 
+     * @return the value in percent
+     */
+    public double getLightness() {
+        return hsl()[2];
+    }
+
+    /**
+     * Get the RGB components as new array.
+     * 
+     * @return the red, green and blue components
+     */
+    public int[] toRgbArray() {
+        return new int[] { getRed(), getGreen(), getBlue() };
+    }
+
+    /**
+     * Get the HSL components as new array.
+     * 
+     * @return the hue, saturation and lightness
+     */
+    public double[] toHslArray() {
+        return hsl().clone();
+    }
+
+    /**
+     * Get the cached HSL components. The array must not be modified.
+     * 
+     * @return the components
+     */
+    private double[] hsl() {
+        double[] hsl = this.hsl;
+        if( hsl == null ) {
+            this.hsl = hsl = ColorUtil.calculateHsl( getRed(), getGreen(), getBlue() );
+        }
+        return hsl;
+    }
+}
@@ -339,6 +339,10 @@ public class ColorUtil {
      * @return The alpha component of color.
      */
     public static double getAlpha(LexicalUnitImpl color) {
+        Color value = color.getColor();
+        if( value != null ) {
+            return value.getAlpha();
+        }
         if (isHsla(color) || isRgba(color)) {
             ActualArgumentList params = color.getParameterList();
             return params.get(params.size() - 1).getContainedValue()
@@ -360,6 +364,10 @@ public class ColorUtil {
      * @return RGB components or null if not a color
      */
     public static int[] colorToRgb(LexicalUnitImpl color) {
+        Color value = color.getColor();
+        if( value != null ) {
+            return value.toRgbArray();
+        }
         if (isRgba(color)) {
             if (color.getParameterList().size() == 2
                     && color.getParameterList().get(0) instanceof LexicalUnitImpl) {
@@ -388,6 +396,78 @@ public class ColorUtil {
         return null;
     }
 
+    /**
+     * Converts a lexical unit into a color value. Use
+     * {@link LexicalUnitImpl#getColor()} to get the cached value.
+     * 
+     * @param color
+     *            a lexical unit that represents a color
+     * @return the color or null if not a color or a component is out of range
+     */
+    public static Color parseColor( LexicalUnitImpl color ) {
+        if( isRgba( color ) ) {
+            ActualArgumentList params = color.getParameterList();
+            double alpha = params.get( params.size() - 1 ).getContainedValue().getDoubleValue();
+            if( params.size() == 2 ) {
+                if( !(params.get( 0 ) instanceof LexicalUnitImpl) ) {
+                    return null;
+                }
+                Color rgb = ((LexicalUnitImpl)params.get( 0 )).getColor();
+                return rgb == null ? null : Color.fromRgb( rgb.getRed(), rgb.getGreen(), rgb.getBlue(), alpha );
+            }
+            return rgbFunctionToColor( params, alpha );
+        } else if( isHsla( color ) ) {
+            ActualArgumentList params = color.getParameterList();
+            return hslFunctionToColor( params, params.get( 3 ).getContainedValue().getDoubleValue() );
+        } else if( isHexColor( color ) ) {
+            return hexColorToColor( color.getStringValue() );
+        } else if( isHslColor( color ) ) {
+            return hslFunctionToColor( color.getParameterList(), 1 );
+        } else if( isRgbFunction( color ) ) {
+            return rgbFunctionToColor( color.getParameterList(), 1 );
+        } else if( isColorName( color ) ) {
+            return hexColorToColor( colorNameToHex.get( color.getStringValue() ) );
+        }
+        return null;
+    }
+
+    private static Color rgbFunctionToColor( ActualArgumentList params, double alpha ) {
+        int red = params.get( 0 ).getContainedValue().getIntegerValue();
+        int green = params.get( 1 ).getContainedValue().getIntegerValue();
+        int blue = params.get( 2 ).getContainedValue().getIntegerValue();
+        return Color.fromRgb( red, green, blue, alpha );
+    }
+
+    private static Color hslFunctionToColor( ActualArgumentList params, double alpha ) {
+        double hue = params.get( 0 ).getContainedValue().getDoubleValue();
+        double saturation = params.get( 1 ).getContainedValue().getDoubleValue();
+        double lightness = params.get( 2 ).getContainedValue().getDoubleValue();
+        return Color.fromHsl( hue, saturation, lightness, alpha );
+    }
+
+    /**
+     * Converts a hex color with three or six hex characters without creating
+     * sub strings. The caller must ensure that isHexColor(hexColor) returns
+     * true for the parameter.
+     * 
+     * @param hexColor
+     *            a hexadecimal representation for a color
+     * @return the color
+     */
+    private static Color hexColorToColor( String hexColor ) {
+        if( hexColor.length() == 4 ) {
+            int r = Character.digit( hexColor.charAt( 1 ), 16 );
+            int g = Character.digit( hexColor.charAt( 2 ), 16 );
+            int b = Character.digit( hexColor.charAt( 3 ), 16 );
+            return Color.fromRgb( r * 17, g * 17, b * 17, 1 );
+        }
+        int rgb = 0;
+        for( int i = 1; i < 7; i++ ) {
+            rgb = (rgb << 4) | Character.digit( hexColor.charAt( i ), 16 );
+        }
+        return Color.fromRgb( rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF, 1 );
+    }
+
     /**
      * Converts an array of RGB components to a string representing the color.
      * 
@@ -396,6 +476,9 @@ public class ColorUtil {
      * @return a valid string representation of the color
      */
     public static String rgbToColorString(int[] rgb) {
+        if( ((rgb[0] | rgb[1] | rgb[2]) & ~0xFF) == 0 ) {
+            return rgbToColorString( (rgb[0] << 16) | (rgb[1] << 8) | rgb[2] );
+        }
         String colorString = rgbToHexColor(rgb, 6);
         if (hexToColorName.containsKey(colorString)) {
             colorString = hexToColorName.get(colorString);
@@ -403,6 +486,27 @@ public class ColorUtil {
         return colorString;
     }
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Converts packed RGB components to a string representing the color.
+     * 
+     * @param rgb
+     *            the RGB components of a color like 0xRRGGBB
+     * @return a valid string representation of the color
+     */
+    public static String rgbToColorString( int rgb ) {
+        char[] chars = new char[7];
+        chars[0] = '#';
+        for( int i = 6; i > 0; i-- ) {
+            chars[i] = HEX_DIGITS[rgb & 0xF];
+            rgb >>= 4;
+        }
+        String colorString = new String( chars );
+        String colorName = hexToColorName.get( colorString );
+        return colorName != null ? colorName : colorString;
+    }
+
     /**
      * Converts an array of HSL components to a string representing the color.
      * 
@@ -424,6 +528,33 @@ public class ColorUtil {
         return rgb;
     }
 
+    /**
+     * Converts HSL components to packed RGB components with the same
+     * calculation as {@link #hslToRgb(double[])}.
+     * 
+     * @param hue
+     *            the hue in degrees
+     * @param saturation
+     *            the saturation in percent
+     * @param lightness
+     *            the lightness in percent
+     * @return the RGB components like 0xRRGGBB or -1 if a component is out of range
+     */
+    static int hslToPackedRgb( double hue, double saturation, double lightness ) {
+        double h = ((hue % 360) + 360) % 360 / 360.0;
+        double s = saturation / 100;
+        double l = lightness / 100;
+        double m2 = l <= 0.5 ? l * (s + 1) : l + s - l * s;
+        double m1 = l * 2 - m2;
+        long r = Math.round( hueToRgb( m1, m2, h + 1f / 3 ) * 255 );
+        long g = Math.round( hueToRgb( m1, m2, h ) * 255 );
+        long b = Math.round( hueToRgb( m1, m2, h - 1f / 3 ) * 255 );
+        if( ((r | g | b) & ~0xFFL) != 0 ) {
+            return -1;
+        }
+        return (int)((r << 16) | (g << 8) | b);
+    }
+
     /**
      * Converts a color into an array of its HSL (hue, saturation, lightness)
      * components.
@@ -433,6 +564,10 @@ public class ColorUtil {
      * @return HSL components or null if not a color
      */
     public static double[] colorToHsl(LexicalUnitImpl color) {
+        Color value = color.getColor();
+        if( value != null ) {
+            return value.toHslArray();
+        }
         if (isHslColor(color) || isHsla(color)) {
             ActualArgumentList params = color.getParameterList();
             double hue = params.get( 0 ).getContainedValue().getDoubleValue();
@@ -557,7 +692,7 @@ public class ColorUtil {
         return hslToRgb(new double[] { hue, saturation, lightness });
     }
 
-    private static double[] calculateHsl(int red, int green, int blue) {
+    static double[] calculateHsl(int red, int green, int blue) {
         double[] hsl = new double[3];
 
         double r = red / 255.0;
@@ -623,7 +758,9 @@ public class ColorUtil {
     }
 
     public static LexicalUnitImpl createHexColor( String uri, int line, int column, int[] rgb ) {
-        return LexicalUnitImpl.createIdent( uri, line, column, rgbToColorString( rgb ) );
+        LexicalUnitImpl color = LexicalUnitImpl.createIdent( uri, line, column, rgbToColorString( rgb ) );
+        color.setColor( Color.fromRgb( rgb[0], rgb[1], rgb[2], 1 ) );
+        return color;
     }
 
     public static LexicalUnitImpl createRgbaColor( String uri, int line, int column, int red, int green, int blue, double alpha ) {
@@ -632,7 +769,9 @@ public class ColorUtil {
         LexicalUnitImpl blueUnit = LexicalUnitImpl.createNumber( null, line, column, blue );
         LexicalUnitImpl alphaUnit = LexicalUnitImpl.createNumber( null, line, column, alpha );
         ActualArgumentList args = new ActualArgumentList( SassList.Separator.COMMA, redUnit, greenUnit, blueUnit, alphaUnit );
-        return LexicalUnitImpl.createFunction( uri, line, column, "rgba", args );
+        LexicalUnitImpl color = LexicalUnitImpl.createFunction( uri, line, column, "rgba", args );
+        color.setColor( Color.fromRgb( red, green, blue, alpha ) );
+        return color;
     }
 
     public static LexicalUnitImpl createHslaColor( double hue, double saturation, double lightness, double alpha, int line, int column ) {
@@ -641,14 +780,20 @@ public class ColorUtil {
         LexicalUnitImpl lightnessUnit = LexicalUnitImpl.createPercentage( null, line, column, lightness );
         LexicalUnitImpl alphaUnit = LexicalUnitImpl.createNumber( null, line, column, alpha );
         ActualArgumentList args = new ActualArgumentList( SassList.Separator.COMMA, hueUnit, saturationUnit, lightnessUnit, alphaUnit );
-        return LexicalUnitImpl.createFunction( null, line, column, "hsla", args );
+        LexicalUnitImpl color = LexicalUnitImpl.createFunction( null, line, column, "hsla", args );
+        color.setColor( Color.fromHsl( hue, saturation, lightness, alpha ) );
+        return color;
     }
 
     public static LexicalUnitImpl createHslaOrHslColor( double[] hsl, double alpha, int line, int column ) {
+        return createHslaOrHslColor( hsl[0], hsl[1], hsl[2], alpha, line, column );
+    }
+
+    public static LexicalUnitImpl createHslaOrHslColor( double hue, double saturation, double lightness, double alpha, int line, int column ) {
         if (alpha < 1.0f) {
-            return createHslaColor(hsl[0], hsl[1], hsl[2], alpha, line, column);
+            return createHslaColor(hue, saturation, lightness, alpha, line, column);
         } else {
-            return createHslFunction(hsl[0], hsl[1], hsl[2], line, column);
+            return createHslFunction(hue, saturation, lightness, line, column);
         }
     }
 
@@ -666,15 +811,48 @@ public class ColorUtil {
         }
     }
 
+    /**
+     * Creates a hex color if alpha is equal to one. Otherwise creates an RGBA
+     * color.
+     * 
+     * @return An object representing a color.
+     */
+    public static LexicalUnitImpl createRgbaOrHexColor( int red, int green, int blue, double alpha, int line, int column ) {
+        if( alpha < 1.0f ) {
+            return createRgbaColor( null, line, column, red, green, blue, alpha );
+        }
+        Color value = Color.fromRgb( red, green, blue, 1 );
+        if( value == null ) {
+            return createHexColor( null, line, column, new int[] { red, green, blue } );
+        }
+        LexicalUnitImpl color = LexicalUnitImpl.createIdent( null, line, column, rgbToColorString( value.getRgb() ) );
+        color.setColor( value );
+        return color;
+    }
+
     private static LexicalUnitImpl createHslFunction( double hue, double saturation, double lightness, int ln, int cn ) {
         LexicalUnitImpl hueUnit = LexicalUnitImpl.createNumber( null, ln, cn, hue );
         LexicalUnitImpl saturationUnit = LexicalUnitImpl.createPercentage( null, ln, cn, saturation );
         LexicalUnitImpl lightnessUnit = LexicalUnitImpl.createPercentage( null, ln, cn, lightness );
         ActualArgumentList hslParams = new ActualArgumentList( Separator.COMMA, hueUnit, saturationUnit, lightnessUnit );
-        return LexicalUnitImpl.createFunction( null, ln, cn, "hsl", hslParams );
+        LexicalUnitImpl color = LexicalUnitImpl.createFunction( null, ln, cn, "hsl", hslParams );
+        color.setColor( Color.fromHsl( hue, saturation, lightness, 1 ) );
+        return color;
     }
 
     private static LexicalUnitImpl adjust(LexicalUnitImpl color, double amountByPercent, ColorOperation op) {
+        Color value = color.getColor();
+        if( value != null ) {
+            double lightness = value.getLightness();
+            if( op == ColorOperation.Darken ) {
+                lightness = lightness - amountByPercent;
+                lightness = lightness < 0 ? 0 : lightness;
+            } else if( op == ColorOperation.Lighten ) {
+                lightness = lightness + amountByPercent;
+                lightness = lightness > 100 ? 100 : lightness;
+            }
+            return createHslaOrHslColor( value.getHue(), value.getSaturation(), lightness, value.getAlpha(), color.getLineNumber(), color.getColumnNumber() );
+        }
 
         double[] hsl = colorToHsl(color);
         if( hsl == null ) {
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.inet.sass.parser.LexicalUnitImpl;
+
+/**
+ * Writes numbers for the CSS output. The result is the same as with a
+ * DecimalFormat with the pattern "0.#####" and US symbols: the shortest digits
+ * that identify the value like in {@link Double#toString(double)}, rounded to
+ * at most 5 fraction digits, no trailing zeros and no grouping. A tie of these
+ * digits is rounded in the direction of the exact binary value, or half even
+ * if the value is exact. Like DecimalFormat, 0.000005 is rounded down to 0,
+ * although its binary value lies above the tie. The digits are appended
+ * directly, a BigDecimal is only used for large values and for values very
+ * near to a rounding tie.
+ */
+public class NumberUtil {
+
+    private static final int    FRACTION_DIGITS   = 5;
+
+    // the limit for integers that have an exact binary value
+    private static final double MAX_EXACT_INTEGER = (double)(1L << 53);
+
+    // the limit for values that can be scaled with enough precision to decide the rounding
+    private static final double MAX_SCALED        = (double)(1L << 36) / LexicalUnitImpl.PRECISION;
+
+    // the smallest tie, DecimalFormat rounds it down although its binary value is larger
+    private static final double MIN_TIE           = 0.000005;
+
+    private NumberUtil() {
+        // static helper
+    }
+
+    /**
+     * Format a number for the CSS output.
+     * 
+     * @param value
+     *            the number
+     * @return the text
+     */
+    public static String format( double value ) {
+        if( value == (int)value && (value != 0 || 1 / value > 0) ) {
+            return Integer.toString( (int)value );
+        }
+        StringBuilder builder = new StringBuilder( 16 );
+        append( builder, value );
+        return builder.toString();
+    }
+
+    /**
+     * Append a number for the CSS output.
+     * 
+     * @param builder
+     *            the target
+     * @param value
+     *            the number
+     */
+    public static void append( StringBuilder builder, double value ) {
+        try {
+            append( (Appendable)builder, value );
+        } catch( IOException ex ) {
+            // a StringBuilder does not throw it
+            throw new IllegalStateException( ex );
+        }
+    }
+
+    /**
+     * Append a number for the CSS output.
+     * 
+     * @param out
+     *            the target
+     * @param value
+     *            the number
+     * @throws IOException
+     *             if the target throws it
+     */
+    public static void append( Appendable out, double value ) throws IOException {
+        if( Double.isNaN( value ) ) {
+            out.append( "NaN" );
+            return;
+        }
+        // like DecimalFormat the sign is also written for a negative zero and for values rounded to zero
+        boolean negative = value < 0 || (value == 0 && 1 / value < 0);
+        double abs = Math.abs( value );
+        if( Double.isInfinite( abs ) ) {
+            out.append( negative ? "-∞" : "∞" );
+            return;
+        }
+        if( negative ) {
+            out.append( '-' );
+        }
+        if( abs >= MAX_EXACT_INTEGER ) {
+            // only integers, DecimalFormat writes the shortest digits that identify the value
+            out.append( BigDecimal.valueOf( abs ).toPlainString() );
+            return;
+        }
+        if( abs == (long)abs ) {
+            appendDigits( out, (long)abs, 0 );
+            return;
+        }
+        if( abs >= MAX_SCALED ) {
+            // the binary value can have more fraction digits than the shortest digits that identify it
+            BigDecimal digits = BigDecimal.valueOf( abs );
+            if( digits.scale() > FRACTION_DIGITS ) {
+                BigDecimal rounded = digits.setScale( FRACTION_DIGITS, RoundingMode.HALF_DOWN );
+                if( !rounded.equals( digits.setScale( FRACTION_DIGITS, RoundingMode.HALF_UP ) ) ) {
+                    // a tie of the shortest digits
+                    rounded = new BigDecimal( abs ).setScale( FRACTION_DIGITS, RoundingMode.HALF_EVEN );
+                }
+                digits = rounded;
+            }
+            out.append( digits.stripTrailingZeros().toPlainString() );
+            return;
+        }
+        if( abs == MIN_TIE ) {
+            out.append( '0' );
+            return;
+        }
+        double scaled = abs * LexicalUnitImpl.PRECISION;
+        double floor = Math.floor( scaled );
+        double rest = scaled - floor;
+        long units;
+        if( Math.abs( rest - 0.5 ) < 1E-4 ) {
+            // the multiplication can hide on which side of the tie the exact binary value is
+            units = new BigDecimal( abs ).movePointRight( FRACTION_DIGITS ).setScale( 0, RoundingMode.HALF_EVEN ).longValue();
+        } else {
+            units = (long)floor + (rest > 0.5 ? 1 : 0);
+        }
+        long integer = units / LexicalUnitImpl.PRECISION;
+        long fraction = units % LexicalUnitImpl.PRECISION;
+        appendDigits( out, integer, 0 );
+        if( fraction != 0 ) {
+            int digits = FRACTION_DIGITS;
+            while( fraction % 10 == 0 ) {
+                fraction /= 10;
+                digits--;
+            }
+            out.append( '.' );
+            appendDigits( out, fraction, digits );
+        }
+    }
+
+    /**
+     * Append the decimal digits of a not negative number.
+     * 
+     * @param out
+     *            the target
+     * @param value
+     *            the number
+     * @param minDigits
+     *            the minimum count of digits, filled with leading zeros
+     * @throws IOException
+     *             if the target throws it
+     */
+    private static void appendDigits( Appendable out, long value, int minDigits ) throws IOException {
+        long divisor = 1;
+        int digits = 1;
+        while( divisor <= value / 10 ) {
+            divisor *= 10;
+            digits++;
+        }
+        for( ; digits < minDigits; digits++ ) {
+            out.append( '0' );
+        }
+        for( ; divisor > 0; divisor /= 10 ) {
+            out.append( (char)('0' + value / divisor % 10) );
+        }
+    }
+}
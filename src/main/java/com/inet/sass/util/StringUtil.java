@@ -134,4 +134,43 @@ public class StringUtil {
             String delim) {
         return collectionToDelimitedString(coll, delim, "", "");
     }
+
+    /**
+     * Append a JSON string literal.
+     * 
+     * @param json the target
+     * @param str the string, can be null
+     */
+    public static void appendJsonString( StringBuilder json, String str ) {
+        if( str == null ) {
+            json.append( "null" );
+            return;
+        }
+        json.append( '"' );
+        for( int i = 0; i < str.length(); i++ ) {
+            char ch = str.charAt( i );
+            switch( ch ) {
+                case '"':
+                case '\\':
+                    json.append( '\\' ).append( ch );
+                    break;
+                case '\n':
+                    json.append( "\\n" );
+                    break;
+                case '\r':
+                    json.append( "\\r" );
+                    break;
+                case '\t':
+                    json.append( "\\t" );
+                    break;
+                default:
+                    if( ch < 0x20 ) {
+                        json.append( String.format( "\\u%04x", (int)ch ) );
+                    } else {
+                        json.append( ch );
+                    }
+            }
+        }
+        json.append( '"' );
+    }
 }
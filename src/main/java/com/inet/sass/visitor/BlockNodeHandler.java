@@ -25,6 +25,7 @@ import java.util.List;
 import com.inet.sass.ScssContext;
 import com.inet.sass.ScssStylesheet;
 import com.inet.sass.selector.Selector;
+import com.inet.sass.selector.SelectorProduct;
 import com.inet.sass.tree.BlockNode;
 import com.inet.sass.tree.MediaNode;
 import com.inet.sass.tree.NestPropertiesNode;
@@ -166,16 +167,17 @@ public class BlockNodeHandler {
         node.setSelectorList(newSelectors);
     }
 
+    /**
+     * Combine the selectors of the parent block with the selectors of the
+     * nested block. The combined selectors are created lazily, most of them
+     * are only printed once.
+     * 
+     * @param parentBlock
+     *            the parent block
+     * @param node
+     *            the nested block
+     */
     private static void replaceParentSelectors( BlockNode parentBlock, BlockNode node ) {
-        ArrayList<Selector> newSelectors = new ArrayList<Selector>();
-
-        for (Selector parentSel : parentBlock.getSelectorList()) {
-            for( Selector sel : node.getSelectorList() ) {
-                newSelectors.add( sel.replaceParentReference( parentSel ) );
-            }
-        }
-
-        node.setSelectorList(newSelectors);
-
+        node.setSelectorList( new SelectorProduct( parentBlock.getSelectorList(), node.getSelectorList() ) );
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.visitor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.inet.sass.ScssContext;
+import com.inet.sass.parser.SassListItem;
+import com.inet.sass.tree.Node;
+import com.inet.sass.tree.ReturnNode;
+import com.inet.sass.tree.RuleNode;
+import com.inet.sass.tree.VariableNode;
+import com.inet.sass.tree.controldirective.IfElseDefNode;
+
+/**
+ * Evaluate constant values once after parsing. A value is constant if it contains no variables, function calls,
+ * interpolation or parent references. Constant arithmetic like <code>(1rem * 2)</code> is folded to its result and the
+ * nodes are marked as evaluated. The traversal of such nodes, including all copies from loop iterations and mixin
+ * expansions, does not evaluate the value again. Branches of @if with a constant condition that can never be executed
+ * are removed.
+ */
+public class ConstantFoldingHandler {
+
+    /**
+     * Evaluate all constant values in the node and its descendants.
+     * 
+     * @param context
+     *            current compilation context
+     * @param node
+     *            the root node, typically a parsed stylesheet
+     */
+    public static void modifyTree( ScssContext context, Node node ) {
+        List<Node> children = node.getChildren();
+        for( int i = 0; i < children.size(); i++ ) {
+            Node child = children.get( i );
+            Class<?> clazz = child.getClass();
+            if( clazz == RuleNode.class ) {
+                RuleNode rule = (RuleNode)child;
+                if( !rule.getVariable().containsInterpolation() ) {
+                    SassListItem value = evaluate( context, rule.getValue() );
+                    if( value != null ) {
+                        rule.setEvaluatedValue( value );
+                    }
+                }
+            } else if( clazz == VariableNode.class ) {
+                VariableNode variable = (VariableNode)child;
+                SassListItem value = evaluate( context, variable.getExpr() );
+                if( value != null ) {
+                    variable.setEvaluatedExpr( value );
+                }
+            } else if( clazz == ReturnNode.class ) {
+                ReturnNode returnNode = (ReturnNode)child;
+                SassListItem value = evaluate( context, returnNode.getExpr() );
+                if( value != null ) {
+                    returnNode.setEvaluatedExpr( value );
+                }
+            } else if( clazz == IfElseDefNode.class ) {
+                IfElseNodeHandler.fold( context, (IfElseDefNode)child, Collections.emptySet() );
+                modifyTree( context, child );
+            } else {
+                modifyTree( context, child );
+            }
+        }
+    }
+
+    /**
+     * Evaluate a constant value the same way as the traversal of the node would do it.
+     * 
+     * @param context
+     *            current compilation context, the result does not depend on it
+     * @param value
+     *            the value of the node
+     * @return the evaluated value or null if the value is not a constant
+     */
+    private static SassListItem evaluate( ScssContext context, SassListItem value ) {
+        return evaluate( context, value, Collections.emptySet() );
+    }
+
+    /**
+     * Evaluate a value that depends only on constant variables.
+     * 
+     * @param context
+     *            current compilation context, the constant variables must be defined in its scope
+     * @param value
+     *            the value of the node
+     * @param constantVariables
+     *            the names of the variables that are constant during the compilation
+     * @return the evaluated value or null if the value is not a constant
+     */
+    static SassListItem evaluate( ScssContext context, SassListItem value, Set<String> constantVariables ) {
+        if( value == null || !value.isConstant( constantVariables ) ) {
+            return null;
+        }
+        try {
+            /*
+             * containsArithmeticalOperator() must be called on the unevaluated value. For the "/" operator it
+             * decides whether it is a division or a CSS separator.
+             */
+            return value.evaluateFunctionsAndExpressions( context, value.containsArithmeticalOperator() );
+        } catch( RuntimeException ex ) {
+            // an invalid expression is reported from the traversal with the correct scope
+            return null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.visitor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.inet.sass.Scope;
+import com.inet.sass.ScssContext;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.parser.SassListItem;
+import com.inet.sass.parser.Variable;
+import com.inet.sass.tree.DefNode;
+import com.inet.sass.tree.ImportNode;
+import com.inet.sass.tree.Node;
+import com.inet.sass.tree.VariableNode;
+import com.inet.sass.tree.controldirective.EachDefNode;
+import com.inet.sass.tree.controldirective.ForNode;
+import com.inet.sass.tree.controldirective.IfElseDefNode;
+
+/**
+ * Optional pass after parsing that removes the branches of @if/@else which can never be executed with the constant
+ * variables of the context, for example the <code>$enable-*</code> feature flags of a theme. Conditions that depend
+ * only on these variables are evaluated once and the unreachable branches are removed before the traversal.
+ * <p>
+ * A variable is only used if neither the style sheet nor any of its imports assigns it without <code>!default</code>
+ * or uses its name for a loop variable or an argument of a mixin or function.
+ */
+public class DeadCodeEliminationHandler {
+
+    /**
+     * Remove the unreachable branches in the node and its descendants. Does nothing if the context has no constant
+     * variables.
+     * 
+     * @param context
+     *            current compilation context
+     * @param node
+     *            the root node, typically a parsed stylesheet
+     */
+    public static void modifyTree( ScssContext context, Node node ) {
+        Map<String, SassListItem> variables = context.getConstantVariables();
+        if( variables == null || variables.isEmpty() ) {
+            return;
+        }
+        Set<String> names = new HashSet<>( variables.keySet() );
+        removeAssigned( node, names );
+        if( names.isEmpty() ) {
+            return;
+        }
+        // evaluate the conditions with the constant variables only, the current scope can have local variables
+        Scope constants = new Scope();
+        for( String name : names ) {
+            constants.addVariable( new Variable( name, variables.get( name ) ) );
+        }
+        Scope previousScope = context.openVariableScope( constants );
+        try {
+            prune( context, node, names );
+        } finally {
+            context.closeVariableScope( previousScope );
+        }
+    }
+
+    /**
+     * Get the variables that are constant for the whole compile. The imports are parsed before the traversal because
+     * an import can assign a variable that is used in a condition of the importing style sheet. The parsed imports are
+     * kept for the traversal.
+     * 
+     * @param stylesheet
+     *            the compiled style sheet
+     * @param variables
+     *            the requested constant variables by name
+     * @return the variables that are not assigned by the style sheet or one of its imports
+     */
+    public static Map<String, SassListItem> getConstants( ScssStylesheet stylesheet, Map<String, SassListItem> variables ) {
+        Set<String> names = new HashSet<>( variables.keySet() );
+        Set<String> visited = new HashSet<>();
+        visited.add( stylesheet.getUri() );
+        removeAssigned( stylesheet, stylesheet, names, visited );
+        Map<String, SassListItem> constants = new HashMap<>();
+        for( String name : names ) {
+            constants.put( name, variables.get( name ) );
+        }
+        return constants;
+    }
+
+    /**
+     * Remove the names of all variables that the node, its descendants or the imported style sheets can change.
+     * 
+     * @param stylesheet
+     *            the style sheet of the node
+     * @param node
+     *            the current node
+     * @param names
+     *            the names of the constant variables
+     * @param visited
+     *            the URIs of the already inspected style sheets
+     */
+    private static void removeAssigned( ScssStylesheet stylesheet, Node node, Set<String> names, Set<String> visited ) {
+        for( Node child : node.getChildren() ) {
+            if( names.isEmpty() ) {
+                return;
+            }
+            if( child instanceof ImportNode ) {
+                ImportNode importNode = (ImportNode)child;
+                if( importNode.isPureCssImport() ) {
+                    continue;
+                }
+                ScssStylesheet imported;
+                try {
+                    imported = stylesheet.peekImport( importNode.getUri() );
+                } catch( Exception ex ) {
+                    // the traversal reports the error
+                    continue;
+                }
+                if( imported != null && visited.add( imported.getUri() ) ) {
+                    removeAssigned( imported, imported, names, visited );
+                }
+                continue;
+            }
+            removeAssignedBy( child, names );
+            removeAssigned( stylesheet, child, names, visited );
+        }
+    }
+
+    /**
+     * Remove the names of the variables that the node itself can change.
+     * 
+     * @param node
+     *            the current node
+     * @param names
+     *            the names of the constant variables
+     */
+    private static void removeAssignedBy( Node node, Set<String> names ) {
+        if( node instanceof VariableNode ) {
+            VariableNode variable = (VariableNode)node;
+            if( !variable.isGuarded() ) {
+                names.remove( variable.getName() );
+            }
+        } else if( node instanceof DefNode ) {
+            for( Variable arg : ((DefNode)node).getArglist() ) {
+                names.remove( arg.getName() );
+            }
+        } else if( node instanceof ForNode ) {
+            names.remove( ((ForNode)node).getVariableName() );
+        } else if( node instanceof EachDefNode ) {
+            names.removeAll( ((EachDefNode)node).getVariableNames() );
+        }
+    }
+
+    /**
+     * Remove the names of all variables that the node or its descendants can change.
+     * 
+     * @param node
+     *            the current node
+     * @param names
+     *            the names of the constant variables
+     */
+    private static void removeAssigned( Node node, Set<String> names ) {
+        for( Node child : node.getChildren() ) {
+            removeAssignedBy( child, names );
+            removeAssigned( child, names );
+        }
+    }
+
+    private static void prune( ScssContext context, Node node, Set<String> names ) {
+        List<Node> children = node.getChildren();
+        for( int i = 0; i < children.size(); i++ ) {
+            Node child = children.get( i );
+            if( child instanceof IfElseDefNode ) {
+                IfElseNodeHandler.fold( context, (IfElseDefNode)child, names );
+            }
+            prune( context, child, names );
+        }
+    }
+}
@@ -21,10 +21,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.parser.ParseException;
 import com.inet.sass.selector.Selector;
+import com.inet.sass.selector.SelectorProduct;
 import com.inet.sass.selector.SelectorSet;
 import com.inet.sass.selector.SimpleSelectorSequence;
 import com.inet.sass.tree.BlockNode;
@@ -63,6 +65,7 @@ public class ExtendNodeHandler {
 
     public static void modifyTree(ScssContext context, Node node) {
         Iterable<Extension> extensions = context.getExtensions();
+        boolean hasExtensions = extensions.iterator().hasNext();
 
         for( Iterator<Node> nodeIt = node.getChildren().iterator(); nodeIt.hasNext(); ) {
             Node child = nodeIt.next();
@@ -70,12 +73,20 @@ public class ExtendNodeHandler {
             Class<?> clazz = child.getClass();
             if( clazz == BlockNode.class ) {
                 BlockNode blockNode = (BlockNode)child;
+                List<Selector> selectorList = blockNode.getSelectorList();
+                if( !hasExtensions && selectorList instanceof SelectorProduct && ((SelectorProduct)selectorList).isPlain() ) {
+                    // nothing to extend, deduplicate or remove, keep the lazy selectors
+                    continue;
+                }
                 // need a copy as the selector list is modified below
                 SelectorSet newSelectors = new SelectorSet();
-                for( Selector selector : blockNode.getSelectorList() ) {
+                for( Selector selector : selectorList ) {
                     // keep order while avoiding duplicates
+                    selector = context.intern( selector );
                     newSelectors.add( selector );
-                    newSelectors.addAll( createSelectorsForExtensions( selector, extensions ) );
+                    if( hasExtensions ) {
+                        newSelectors.addAll( createSelectorsForExtensions( selector, extensions ) );
+                    }
                 }
 
                 // remove all placeholder selectors
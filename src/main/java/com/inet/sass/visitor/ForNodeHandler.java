@@ -16,10 +16,11 @@
  */
 package com.inet.sass.visitor;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.parser.LexicalUnitImpl;
@@ -37,15 +38,31 @@ public class ForNodeHandler extends LoopNodeHandler {
         if (forNode.isExclusive()) {
             toInt = toInt - 1;
         }
-        Collection<List<Variable>> indices = new ArrayList<>();
-        for( int idx = fromInt; idx <= toInt; ++idx ) {
-            SassListItem from = forNode.getFrom();
-            LexicalUnitImpl idxUnit = LexicalUnitImpl.createInteger( from.getUri(), //
-                                                                     from.getLineNumber(), //
-                                                                     from.getColumnNumber(), //
-                                                                     idx );
-            indices.add( Collections.singletonList( new Variable( forNode.getVariableName(), idxUnit ) ) );
-        }
+        SassListItem from = forNode.getFrom();
+        String name = forNode.getVariableName();
+        long first = fromInt;
+        long last = toInt;
+        // the index variable is created only when the iteration is executed
+        Iterable<List<Variable>> indices = () -> new Iterator<List<Variable>>() {
+            private long idx = first;
+
+            @Override
+            public boolean hasNext() {
+                return idx <= last;
+            }
+
+            @Override
+            public List<Variable> next() {
+                if( idx > last ) {
+                    throw new NoSuchElementException();
+                }
+                LexicalUnitImpl idxUnit = LexicalUnitImpl.createInteger( from.getUri(), //
+                                                                         from.getLineNumber(), //
+                                                                         from.getColumnNumber(), //
+                                                                         (int)idx++ );
+                return Collections.singletonList( new Variable( name, idxUnit ) );
+            }
+        };
         return replaceLoopNode( context, forNode, indices );
     }
 
@@ -18,6 +18,8 @@ package com.inet.sass.visitor;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.expression.BinaryOperator;
@@ -33,19 +35,23 @@ public class IfElseNodeHandler {
 
     public static Collection<Node> traverse(ScssContext context,
             IfElseDefNode node) throws Exception {
-        for (final Node child : node.getChildren()) {
+        List<Node> children = node.getChildren();
+        int size = children.size();
+        for( int i = 0; i < size; i++ ) {
+            Node child = children.get( i );
             if (child instanceof IfNode) {
-                SassListItem expression = ((IfNode) child).getExpression();
-                expression = expression.evaluateFunctionsAndExpressions(
-                        context, true);
+                IfNode ifNode = (IfNode)child;
+                SassListItem expression = ifNode.getExpression();
+                if( !ifNode.isEvaluated() ) {
+                    expression = expression.evaluateFunctionsAndExpressions(
+                            context, true);
+                }
 
                 if (BinaryOperator.isTrue(expression)) {
                     return traverseChild(context, node.getParentNode(), child);
                 }
             } else {
-                if (!(child instanceof ElseNode)
-                        && node.getChildren().indexOf(child) == node
-                                .getChildren().size() - 1) {
+                if( !(child instanceof ElseNode) && i == size - 1 ) {
                     throw new ParseException( "Invalid @if/@else in scss file for " + node, node );
                 } else {
                     return traverseChild(context, node.getParentNode(), child);
@@ -56,6 +62,46 @@ public class IfElseNodeHandler {
         return Collections.emptyList();
     }
 
+    /**
+     * Evaluate the constant conditions of the branches once after parsing and
+     * remove the branches that can never be executed: branches with a
+     * condition that is always false and all branches after a condition that
+     * is always true.
+     * 
+     * @param context
+     *            current compilation context
+     * @param node
+     *            the @if/@else node
+     * @param constantVariables
+     *            the names of the variables that are constant during the
+     *            compilation
+     */
+    static void fold( ScssContext context, IfElseDefNode node, Set<String> constantVariables ) {
+        List<Node> children = node.getChildren();
+        for( int i = 0; i < children.size(); i++ ) {
+            Node child = children.get( i );
+            if( !(child instanceof IfNode) ) {
+                // the else branch is always the last
+                return;
+            }
+            IfNode ifNode = (IfNode)child;
+            SassListItem expression = ifNode.isEvaluated() ? ifNode.getExpression() : ConstantFoldingHandler.evaluate( context, ifNode.getExpression(), constantVariables );
+            if( expression == null ) {
+                // depends on the context, the following branches are reachable
+                return;
+            }
+            ifNode.setEvaluatedExpression( expression );
+            if( BinaryOperator.isTrue( expression ) ) {
+                while( children.size() > i + 1 ) {
+                    node.replaceNode( children.get( i + 1 ), Collections.<Node> emptyList() );
+                }
+                return;
+            }
+            node.replaceNode( ifNode, Collections.<Node> emptyList() );
+            i--;
+        }
+    }
+
     private static Collection<Node> traverseChild(ScssContext context,
             Node parent, Node child) {
         TemporaryNode tempParent = new TemporaryNode(parent,
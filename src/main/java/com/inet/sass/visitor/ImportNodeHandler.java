@@ -24,6 +24,7 @@ import java.util.List;
 
 import com.inet.sass.ScssContext;
 import com.inet.sass.ScssStylesheet;
+import com.inet.sass.handler.SCSSDiagnostic.Severity;
 import com.inet.sass.handler.SCSSErrorHandler;
 import com.inet.sass.tree.ImportNode;
 import com.inet.sass.tree.Node;
@@ -43,7 +44,7 @@ public class ImportNodeHandler {
 
                 imported = styleSheet.importStylesheet( importNode.getUri() );
                 if (imported == null) {
-                    SCSSErrorHandler.get().error( "Import '" + importNode.getUri() + "' in '" + styleSheet.getUri() + "' could not be found" );
+                    SCSSErrorHandler.report( Severity.ERROR, "import-not-found", "Import '" + importNode.getUri() + "' in '" + styleSheet.getUri() + "' could not be found", null, importNode );
                     return Collections.emptyList();
                 }
 
@@ -55,10 +56,12 @@ public class ImportNodeHandler {
                     updateUrlInImportedSheet(imported, prefix, imported,
                             context);
                 }
+                DeadCodeEliminationHandler.modifyTree( context, imported );
+                ConstantFoldingHandler.modifyTree( context, imported );
 
                 importedChildren = new ArrayList<Node>(imported.getChildren());
             } catch (Exception e) {
-                SCSSErrorHandler.get().error( e );
+                SCSSErrorHandler.reportError( e, importNode );
                 return Collections.emptyList();
             }
 
@@ -73,7 +76,7 @@ public class ImportNodeHandler {
             return result;
         } else {
             if (styleSheet != importNode.getParentNode()) {
-                SCSSErrorHandler.get().error( "CSS imports can only be used at the top level, not as nested imports. Within style rules, use SCSS imports." );
+                SCSSErrorHandler.report( Severity.ERROR, "nested-css-import", "CSS imports can only be used at the top level, not as nested imports. Within style rules, use SCSS imports.", null, importNode );
                 return Collections.emptyList();
 
             }
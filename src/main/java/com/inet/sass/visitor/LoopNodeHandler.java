@@ -16,12 +16,17 @@
  */
 package com.inet.sass.visitor;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import com.inet.sass.Scope;
 import com.inet.sass.ScssContext;
+import com.inet.sass.handler.SCSSProfiler;
 import com.inet.sass.parser.Variable;
 import com.inet.sass.tree.Node;
+import com.inet.sass.tree.VariableNode;
+import com.inet.sass.tree.controldirective.ForNode;
 import com.inet.sass.tree.controldirective.TemporaryNode;
 
 /**
@@ -43,27 +48,76 @@ public abstract class LoopNodeHandler {
     protected static Collection<Node> replaceLoopNode( ScssContext context, Node loopNode, Iterable<List<Variable>> loopVariables ) {
         // the type of this node does not matter much as long as it can have
         // children that can be traversed
+        SCSSProfiler profiler = context.getProfiler();
+        long start = profiler == null ? 0 : System.nanoTime();
         TemporaryNode tempParent = new TemporaryNode( loopNode.getParentNode() );
-        List<Node> children = loopNode.getChildren();
-        for( final List<Variable> vars : loopVariables ) {
-            iteration( context, children, tempParent, vars );
+        Scope frame = null;
+        context.startLoop();
+        try {
+            for( final List<Variable> vars : loopVariables ) {
+                frame = iteration( context, loopNode, tempParent, vars, frame );
+            }
+        } finally {
+            context.endLoop( tempParent.getChildren().size() );
+            if( profiler != null ) {
+                profiler.add( SCSSProfiler.Category.LOOP, profileName( loopNode instanceof ForNode ? "@for" : "@each", loopNode ), start );
+            }
         }
-        // the newly created nodes have already been traversed
-        return tempParent.getChildren();
+        // the newly created nodes have already been traversed, return a copy
+        // because the caller moves the nodes to their new parent
+        return new ArrayList<>( tempParent.getChildren() );
     }
 
-    static void iteration( ScssContext context, List<Node> loopChildren, TemporaryNode newParent, List<Variable> loopVariables ) {
-        context.openVariableScope();
+    /**
+     * Get the name of a loop in the profiler report.
+     * 
+     * @param directive
+     *            the directive like "@for"
+     * @param loopNode
+     *            the loop
+     * @return the name with the source location
+     */
+    static String profileName( String directive, Node loopNode ) {
+        return directive + " " + loopNode.getUri() + ':' + loopNode.getLineNumber();
+    }
+
+    /**
+     * Traverse the body of a loop once. The children of the loop are a template which is not modified. Variable
+     * assignments are evaluated directly, all other children are copied and traversed as child of the new parent.
+     * 
+     * @param context
+     *            current compilation context
+     * @param loopNode
+     *            the loop with the body
+     * @param newParent
+     *            the parent for the created nodes
+     * @param loopVariables
+     *            the loop variables of this iteration
+     * @param previousFrame
+     *            the scope of the previous iteration which can be reused, or null
+     * @return the scope of this iteration
+     */
+    static Scope iteration( ScssContext context, Node loopNode, TemporaryNode newParent, List<Variable> loopVariables, Scope previousFrame ) {
+        context.loopIteration( loopNode );
+        int outputNodes = newParent.getChildren().size();
+        Scope frame = context.openLoopScope( previousFrame );
         try {
             for( Variable loopVar : loopVariables ) {
                 context.addVariable( loopVar );
             }
-            for( final Node child : loopChildren ) {
-                Node copy = child.copy();
-                newParent.appendAndTraverse( context, copy );
+            for( final Node child : loopNode.getChildren() ) {
+                if( child.getClass() == VariableNode.class ) {
+                    // produces no output, a copy is not needed
+                    ((VariableNode)child).assign( context );
+                } else {
+                    Node copy = child.copy();
+                    newParent.appendAndTraverse( context, copy );
+                }
             }
         } finally {
             context.closeVariableScope();
         }
+        context.loopOutput( loopNode, newParent.getChildren().size() - outputNodes );
+        return frame;
     }
 }
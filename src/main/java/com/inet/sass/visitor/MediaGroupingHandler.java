@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.visitor;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.inet.sass.parser.MediaList;
+import com.inet.sass.tree.BlockNode;
+import com.inet.sass.tree.CommentNode;
+import com.inet.sass.tree.MediaNode;
+import com.inet.sass.tree.Node;
+
+/**
+ * Optional pass after the @extend handling that groups @media rules with equal media queries into one @media. Nested
+ * rules and mixins like <code>media-breakpoint-up</code> create a separate @media for every block.
+ * <p>
+ * The media queries are compared with their structured form, see {@link MediaList#getQueries()}. A @media is moved up
+ * to a previous equal @media only if the blocks between do not set a related property, so the cascade does not change.
+ */
+public class MediaGroupingHandler {
+
+    /**
+     * Group the equal @media children of the node.
+     * 
+     * @param node
+     *            the root node, typically a compiled stylesheet
+     */
+    public static void modifyTree( Node node ) {
+        List<Node> children = node.getChildren();
+        Map<MediaList, Integer> medias = new HashMap<>();
+        Map<Node, Set<String>> properties = new IdentityHashMap<>();
+        for( int i = 0; i < children.size(); i++ ) {
+            Node child = children.get( i );
+            Class<?> clazz = child.getClass();
+            if( clazz == CommentNode.class || (clazz == BlockNode.class && OutputOptimizationHandler.isPlain( child )) ) {
+                continue;
+            }
+            MediaList media = clazz == MediaNode.class ? ((MediaNode)child).getMedia() : null;
+            if( media == null || !isPlain( child ) ) {
+                // the order relative to other rules is unknown
+                medias.clear();
+                continue;
+            }
+            Integer previous = medias.get( media );
+            if( previous != null && OutputOptimizationHandler.canMove( children, previous, i, properties ) ) {
+                Node target = children.get( previous );
+                for( Node block : child.getChildren().toArray( new Node[0] ) ) {
+                    target.appendChild( block );
+                }
+                properties.remove( target );
+                children.remove( i-- );
+                continue;
+            }
+            medias.put( media, i );
+        }
+    }
+
+    /**
+     * Check if the @media contains only blocks with declarations and comments.
+     * 
+     * @param media
+     *            the @media
+     * @return true, if the @media can be moved
+     */
+    private static boolean isPlain( Node media ) {
+        for( Node child : media.getChildren() ) {
+            if( child.getClass() != BlockNode.class || !OutputOptimizationHandler.isPlain( child ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
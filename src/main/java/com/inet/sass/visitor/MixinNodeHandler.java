@@ -23,6 +23,7 @@ import java.util.Collections;
 import com.inet.sass.Scope;
 import com.inet.sass.ScssContext;
 import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.handler.SCSSProfiler;
 import com.inet.sass.parser.ParseException;
 import com.inet.sass.parser.Variable;
 import com.inet.sass.tree.MixinDefNode;
@@ -40,10 +41,19 @@ public class MixinNodeHandler {
             MixinNode node) {
         MixinDefNode mixinDef = context.getMixinDefinition(node.getName());
         if (mixinDef == null) {
-            SCSSErrorHandler.get().error( new ParseException( "Mixin Definition: " + node.getName() + " not found", node ) );
+            SCSSErrorHandler.reportError( new ParseException( "Mixin Definition: " + node.getName() + " not found", node ), node );
             return Collections.emptyList();
         }
-        return replaceMixinNode(context, node, mixinDef);
+        SCSSProfiler profiler = context.getProfiler();
+        if( profiler == null ) {
+            return replaceMixinNode( context, node, mixinDef );
+        }
+        long start = System.nanoTime();
+        try {
+            return replaceMixinNode( context, node, mixinDef );
+        } finally {
+            profiler.add( SCSSProfiler.Category.MIXIN, node.getName(), start );
+        }
     }
 
     private static Collection<Node> replaceMixinNode( ScssContext context, MixinNode mixinNode, MixinDefNode mixinDef ) {
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.inet.sass.selector.Selector;
+import com.inet.sass.selector.SelectorProduct;
+import com.inet.sass.selector.SelectorSet;
+import com.inet.sass.tree.BlockNode;
+import com.inet.sass.tree.CommentNode;
+import com.inet.sass.tree.MediaNode;
+import com.inet.sass.tree.Node;
+import com.inet.sass.tree.RuleNode;
+import com.inet.sass.util.ColorUtil;
+
+/**
+ * Optional pass after the @extend handling that makes the generated CSS smaller without changing the cascade:
+ * <ul>
+ * <li>a declaration is removed if a later declaration of the same property in the same block overrides it</li>
+ * <li>adjacent blocks with the same selectors are combined into one block</li>
+ * <li>a block with the same declarations as a previous block is removed and its selectors are added to the previous
+ * block, if no block between them sets a related property</li>
+ * </ul>
+ * Only blocks which contain nothing else than declarations and comments are changed. Different values of the same
+ * property are only combined if they use the same units and keywords, other values are typically fallbacks for older
+ * browsers. Blocks with pseudo-classes or pseudo-elements that are not supported by every browser are never merged.
+ */
+public class OutputOptimizationHandler {
+
+    /**
+     * Shorthand properties whose longhands have a different name prefix, by the prefix of the longhand. Aliases are
+     * listed with the full property name.
+     */
+    private static final Map<String, String> SHORTHANDS = new HashMap<>();
+    static {
+        SHORTHANDS.put( "word-wrap", "overflow" );
+        SHORTHANDS.put( "grid-gap", "gap" );
+        SHORTHANDS.put( "grid-row-gap", "gap" );
+        SHORTHANDS.put( "grid-column-gap", "gap" );
+        SHORTHANDS.put( "page", "break" );
+        SHORTHANDS.put( "line", "font" );
+        SHORTHANDS.put( "top", "inset" );
+        SHORTHANDS.put( "right", "inset" );
+        SHORTHANDS.put( "bottom", "inset" );
+        SHORTHANDS.put( "left", "inset" );
+        SHORTHANDS.put( "align", "place" );
+        SHORTHANDS.put( "justify", "place" );
+        SHORTHANDS.put( "row", "gap" );
+        SHORTHANDS.put( "column", "gap" );
+        SHORTHANDS.put( "columns", "gap" );
+    }
+
+    /**
+     * The pseudo-classes and pseudo-elements that every browser supports.
+     */
+    private static final Pattern             VALUE_TOKEN  = Pattern.compile( "[^ ,/]+|[ ,/]+" );
+
+    private static final Pattern             NUMBER       = Pattern.compile( "[-+]?(?:\\d+\\.?\\d*|\\.\\d+)([a-zA-Z%]*)" );
+
+    private static final Set<String>         SAFE_PSEUDOS = new HashSet<>( Arrays.asList( "link", "visited", "hover", "focus", "active",
+                    "first-child", "last-child", "only-child", "nth-child", "nth-last-child", "first-of-type", "last-of-type", "only-of-type",
+                    "nth-of-type", "nth-last-of-type", "empty", "root", "target", "checked", "disabled", "enabled", "lang", "before", "after",
+                    "first-line", "first-letter" ) );
+
+    /**
+     * Optimize the blocks in the node and in its @media children.
+     * 
+     * @param node
+     *            the root node, typically a compiled stylesheet
+     */
+    public static void modifyTree( Node node ) {
+        List<Node> children = node.getChildren();
+        BlockNode previous = null;
+        String previousSelectors = null;
+        for( Iterator<Node> it = children.iterator(); it.hasNext(); ) {
+            Node child = it.next();
+            Class<?> clazz = child.getClass();
+            if( clazz == BlockNode.class && isPlain( child ) ) {
+                BlockNode block = (BlockNode)child;
+                String selectors = getSelectors( block );
+                if( previous != null && selectors.equals( previousSelectors ) ) {
+                    for( Node rule : new ArrayList<>( block.getChildren() ) ) {
+                        previous.appendChild( rule );
+                    }
+                    it.remove();
+                    continue;
+                }
+                previous = block;
+                previousSelectors = selectors;
+                continue;
+            }
+            if( clazz == MediaNode.class ) {
+                modifyTree( child );
+            }
+            previous = null;
+        }
+
+        for( Node child : children ) {
+            if( child.getClass() == BlockNode.class && isPlain( child ) ) {
+                removeOverridden( child );
+            }
+        }
+
+        mergeEqualBlocks( children );
+    }
+
+    /**
+     * Check if the block contains only declarations and comments.
+     * 
+     * @param block
+     *            the block
+     * @return true, if the block can be optimized
+     */
+    static boolean isPlain( Node block ) {
+        for( Node child : block.getChildren() ) {
+            Class<?> clazz = child.getClass();
+            if( clazz != RuleNode.class && clazz != CommentNode.class ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the printed selector list of a block.
+     * 
+     * @param block
+     *            the block
+     * @return the selectors separated with comma
+     */
+    private static String getSelectors( BlockNode block ) {
+        List<Selector> selectorList = block.getSelectorList();
+        StringBuilder builder = new StringBuilder();
+        if( selectorList instanceof SelectorProduct ) {
+            ((SelectorProduct)selectorList).appendTo( builder, ", " );
+        } else {
+            for( Selector selector : selectorList ) {
+                if( builder.length() > 0 ) {
+                    builder.append( ", " );
+                }
+                builder.append( selector );
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Remove the declarations which are overridden by a later declaration of the same property in the block.
+     * 
+     * @param block
+     *            a block with declarations and comments only
+     */
+    private static void removeOverridden( Node block ) {
+        List<Node> children = block.getChildren();
+        Map<String, RuleNode> later = new HashMap<>();
+        // walk backwards so that the last declaration of every property is known
+        for( int i = children.size() - 1; i >= 0; i-- ) {
+            Node child = children.get( i );
+            if( child.getClass() != RuleNode.class ) {
+                continue;
+            }
+            RuleNode rule = (RuleNode)child;
+            if( rule.getComment() != null ) {
+                continue;
+            }
+            String property = rule.getVariable().toString();
+            RuleNode next = later.get( property );
+            if( next != null ) {
+                String value = Node.PRINT_STRATEGY.build( rule.getValue() );
+                String nextValue = Node.PRINT_STRATEGY.build( next.getValue() );
+                if( isImportant( rule, value ) && !isImportant( next, nextValue ) ) {
+                    // a declaration without !important can not override it
+                    later.put( property, rule );
+                    continue;
+                }
+                if( value.equals( nextValue ) || (!isFallback( value ) && !isFallback( nextValue ) && getValueClass( value ).equals( getValueClass( nextValue ) )) ) {
+                    children.remove( i );
+                    continue;
+                }
+            }
+            later.put( property, rule );
+        }
+    }
+
+    /**
+     * Check if a declaration has the !important flag. The parser keeps the flag as part of the value.
+     * 
+     * @param rule
+     *            the declaration
+     * @param value
+     *            the printed value
+     * @return true, if important
+     */
+    private static boolean isImportant( RuleNode rule, String value ) {
+        return rule.isImportant() || value.endsWith( "!important" );
+    }
+
+    /**
+     * Check if a value can be a fallback for older browsers, for example <code>-webkit-box</code> or
+     * <code>rgba(0,0,0,.5)</code>.
+     * 
+     * @param value
+     *            the printed value
+     * @return true, if the value uses a function or a vendor prefixed identifier
+     */
+    private static boolean isFallback( String value ) {
+        for( int i = 0; i < value.length(); i++ ) {
+            char ch = value.charAt( i );
+            if( ch == '(' ) {
+                return true;
+            }
+            if( ch == '-' && (i == 0 || value.charAt( i - 1 ) == ' ' || value.charAt( i - 1 ) == ',') && i + 1 < value.length() && Character.isLetter( value.charAt( i + 1 ) ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the class of a value. Numbers are replaced with their unit and colors and strings with a placeholder,
+     * keywords are kept. A browser that does not know a unit or a keyword of a later value uses the earlier value, for
+     * example with <code>height: 100%; height: 100dvh</code>.
+     * 
+     * @param value
+     *            the printed value without functions
+     * @return the class
+     */
+    private static String getValueClass( String value ) {
+        StringBuilder builder = new StringBuilder();
+        Matcher matcher = VALUE_TOKEN.matcher( value );
+        while( matcher.find() ) {
+            String token = matcher.group();
+            if( ColorUtil.isHexColor( token ) || ColorUtil.isColorName( token ) ) {
+                builder.append( '#' );
+            } else if( token.charAt( 0 ) == '"' || token.charAt( 0 ) == '\'' ) {
+                builder.append( "\"\"" );
+            } else {
+                Matcher number = NUMBER.matcher( token );
+                builder.append( number.matches() ? "0" + number.group( 1 ) : token );
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Remove the blocks with the same declarations as a previous block and add their selectors to the previous block.
+     * 
+     * @param children
+     *            the children of the stylesheet or of a @media
+     */
+    private static void mergeEqualBlocks( List<Node> children ) {
+        Map<String, Integer> bodies = new HashMap<>();
+        Map<Node, Set<String>> properties = new IdentityHashMap<>();
+        for( int i = 0; i < children.size(); i++ ) {
+            Node child = children.get( i );
+            Class<?> clazz = child.getClass();
+            if( clazz == CommentNode.class ) {
+                continue;
+            }
+            if( clazz != BlockNode.class || !isPlain( child ) ) {
+                // the order relative to other rules is unknown
+                bodies.clear();
+                continue;
+            }
+            String body = getBody( child );
+            Integer previous = bodies.get( body );
+            if( previous != null && canMove( children, previous, i, properties ) && hasSafeSelectors( (BlockNode)children.get( previous ) )
+                            && hasSafeSelectors( (BlockNode)child ) ) {
+                BlockNode target = (BlockNode)children.get( previous );
+                SelectorSet selectors = new SelectorSet( target.getSelectorList() );
+                selectors.addAll( ((BlockNode)child).getSelectorList() );
+                target.setSelectorList( new ArrayList<Selector>( selectors ) );
+                children.remove( i-- );
+                continue;
+            }
+            bodies.put( body, i );
+        }
+    }
+
+    /**
+     * Check if the selectors of a block use only pseudo-classes and pseudo-elements that every browser supports. A
+     * browser drops the whole rule if it does not know one of its selectors, for example "::-moz-placeholder" or
+     * ":focus-visible", so such a block must not be merged with other selectors.
+     * 
+     * @param block
+     *            the block
+     * @return true, if the selectors can be merged
+     */
+    static boolean hasSafeSelectors( BlockNode block ) {
+        String selectors = getSelectors( block );
+        for( int i = 0; i < selectors.length(); i++ ) {
+            char ch = selectors.charAt( i );
+            switch( ch ) {
+                case '[':
+                    // attribute values can contain a colon
+                    i = skip( selectors, i, ']' );
+                    break;
+                case '"':
+                case '\'':
+                    i = skip( selectors, i, ch );
+                    break;
+                case ':':
+                    int start = i + 1 < selectors.length() && selectors.charAt( i + 1 ) == ':' ? i + 2 : i + 1;
+                    int end = start;
+                    while( end < selectors.length() && (Character.isLetterOrDigit( selectors.charAt( end ) ) || selectors.charAt( end ) == '-') ) {
+                        end++;
+                    }
+                    if( !SAFE_PSEUDOS.contains( selectors.substring( start, end ).toLowerCase() ) ) {
+                        return false;
+                    }
+                    i = end - 1;
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the end of a quoted string or an attribute selector.
+     * 
+     * @param str
+     *            the selectors
+     * @param start
+     *            the index of the start character
+     * @param end
+     *            the end character
+     * @return the index of the end character or the last index
+     */
+    private static int skip( String str, int start, char end ) {
+        int idx = str.indexOf( end, start + 1 );
+        return idx < 0 ? str.length() - 1 : idx;
+    }
+
+    /**
+     * Get the printed declarations of a block.
+     * 
+     * @param block
+     *            the block
+     * @return the declarations, one per line
+     */
+    private static String getBody( Node block ) {
+        StringBuilder builder = new StringBuilder();
+        for( Node child : block.getChildren() ) {
+            child.printState( builder, null );
+            builder.append( '\n' );
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Check if the declarations of the block or @media at the index "to" can be moved to the position "from". This is
+     * the case if the blocks between do not set any property that is related to one of the declarations.
+     * 
+     * @param children
+     *            the children of the parent node
+     * @param from
+     *            the index of the previous block with equal declarations or the previous equal @media
+     * @param to
+     *            the index of the block or @media to move
+     * @param properties
+     *            cache of the property families of the blocks
+     * @return true, if the cascade does not change
+     */
+    static boolean canMove( List<Node> children, int from, int to, Map<Node, Set<String>> properties ) {
+        Set<String> moved = getFamilies( children.get( to ), properties );
+        for( int i = from + 1; i < to; i++ ) {
+            Node child = children.get( i );
+            if( child.getClass() == CommentNode.class ) {
+                continue;
+            }
+            Set<String> families = getFamilies( child, properties );
+            if( families.contains( "all" ) || moved.contains( "all" ) ) {
+                return false;
+            }
+            for( String family : families ) {
+                if( moved.contains( family ) ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the families of the properties that a block or the blocks of a @media set, for example "margin" for
+     * "margin-left".
+     * 
+     * @param block
+     *            the block or @media
+     * @param properties
+     *            cache of the already calculated blocks
+     * @return the families
+     */
+    static Set<String> getFamilies( Node block, Map<Node, Set<String>> properties ) {
+        Set<String> families = properties.get( block );
+        if( families == null ) {
+            families = new HashSet<>();
+            for( Node child : block.getChildren() ) {
+                Class<?> clazz = child.getClass();
+                if( clazz == RuleNode.class ) {
+                    families.add( getFamily( ((RuleNode)child).getVariable().toString() ) );
+                } else if( clazz == BlockNode.class ) {
+                    // the blocks of a @media
+                    families.addAll( getFamilies( child, properties ) );
+                }
+            }
+            properties.put( block, families );
+        }
+        return families;
+    }
+
+    /**
+     * Get the family of a property, this is the shorthand property that can set it.
+     * 
+     * @param property
+     *            the property name
+     * @return the family
+     */
+    private static String getFamily( String property ) {
+        if( property.startsWith( "--" ) ) {
+            // custom property
+            return property;
+        }
+        int start = 0;
+        if( property.startsWith( "-" ) ) {
+            // vendor prefix
+            start = property.indexOf( '-', 1 ) + 1;
+        }
+        String shorthand = SHORTHANDS.get( property.substring( start ) );
+        if( shorthand != null ) {
+            return shorthand;
+        }
+        int end = property.indexOf( '-', start );
+        String family = property.substring( start, end < 0 ? property.length() : end );
+        shorthand = SHORTHANDS.get( family );
+        return shorthand != null ? shorthand : family;
+    }
+}
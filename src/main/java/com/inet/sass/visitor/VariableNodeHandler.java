@@ -26,17 +26,29 @@ import com.inet.sass.tree.VariableNode;
 public class VariableNodeHandler {
 
     public static void traverse( ScssContext context, VariableNode node ) {
+        traverse( context, node.getVariable() );
+    }
+
+    /**
+     * Set the variable in the current scope. A guarded variable (!default) is only set if it has no value.
+     * 
+     * @param context
+     *            current compilation context
+     * @param node
+     *            the evaluated variable
+     */
+    public static void traverse( ScssContext context, Variable node ) {
         if( !node.isGuarded() ) {
-            context.setVariable( node.getVariable() );
+            context.setVariable( node );
             return;
         }
         Variable variable = context.getVariable( node.getName() );
         if( variable == null || variable.getExpr() == null ) {
-            context.setVariable( node.getVariable() );
+            context.setVariable( node );
         } else { // Handle the case where a variable has the value SCSS_NULL
             SassListItem value = variable.getExpr();
             if( value.getItemType() == SCSSLexicalUnit.SCSS_NULL ) {
-                context.setVariable( node.getVariable() );
+                context.setVariable( node );
             }
         }
     }
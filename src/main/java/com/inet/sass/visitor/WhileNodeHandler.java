@@ -16,13 +16,16 @@
  */
 package com.inet.sass.visitor;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import com.inet.sass.Scope;
 import com.inet.sass.ScssContext;
 import com.inet.sass.expression.BinaryOperator;
 import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.handler.SCSSProfiler;
 import com.inet.sass.parser.ParseException;
 import com.inet.sass.parser.SassListItem;
 import com.inet.sass.tree.Node;
@@ -40,16 +43,28 @@ public class WhileNodeHandler {
      *            node to replace
      */
     public static Collection<Node> traverse( ScssContext context, WhileNode whileNode ) {
+        SCSSProfiler profiler = context.getProfiler();
+        long start = profiler == null ? 0 : System.nanoTime();
         TemporaryNode tempParent = new TemporaryNode( whileNode.getParentNode() );
         List<Node> children = whileNode.getChildren();
-        while( evaluateCondition( context, whileNode ) ) {
-            if( children.size() == 0 ) {
-                SCSSErrorHandler.get().error( new ParseException( "@while loop iteration did nothing, infinite loop", whileNode ) );
-                return children;
+        Scope frame = null;
+        context.startLoop();
+        try {
+            while( evaluateCondition( context, whileNode ) ) {
+                if( children.size() == 0 ) {
+                    SCSSErrorHandler.reportError( new ParseException( "@while loop iteration did nothing, infinite loop", whileNode ), whileNode );
+                    return children;
+                }
+                frame = LoopNodeHandler.iteration( context, whileNode, tempParent, Collections.emptyList(), frame );
+            }
+        } finally {
+            context.endLoop( tempParent.getChildren().size() );
+            if( profiler != null ) {
+                profiler.add( SCSSProfiler.Category.LOOP, LoopNodeHandler.profileName( "@while", whileNode ), start );
             }
-            LoopNodeHandler.iteration( context, children, tempParent, Collections.emptyList() );
         }
-        return tempParent.getChildren();
+        // a copy, the caller moves the nodes to their new parent
+        return new ArrayList<>( tempParent.getChildren() );
     }
 
     private static boolean evaluateCondition( ScssContext context, WhileNode whileNode ) {
@@ -20,12 +20,15 @@ package com.inet.sass;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 
+import com.inet.sass.handler.SCSSErrorHandler;
 import com.inet.sass.resolver.FilesystemResolver;
 import com.inet.sass.resolver.ScssStylesheetResolver;
 import com.inet.sass.testcases.scss.AssertErrorHandler;
@@ -43,6 +46,72 @@ public abstract class AbstractTestBase {
         return new FilesystemResolver( StandardCharsets.UTF_8 );
     }
 
+    /**
+     * Create a resolver that returns the same content for every identifier.
+     * 
+     * @param scss
+     *            the content of the style sheet
+     * @return the resolver
+     */
+    public static ScssStylesheetResolver createResolver( String scss ) {
+        return new ScssStylesheetResolver() {
+            @Override
+            public InputSource resolve( ScssStylesheet parentStylesheet, String identifier ) {
+                return new InputSource( new StringReader( scss ) );
+            }
+        };
+    }
+
+    /**
+     * Create a resolver for style sheets in memory. The identifier is used as URI.
+     * 
+     * @param files
+     *            the content of the style sheets by identifier
+     * @return the resolver
+     */
+    public static ScssStylesheetResolver createResolver( Map<String, String> files ) {
+        return new ScssStylesheetResolver() {
+            @Override
+            public InputSource resolve( ScssStylesheet parentStylesheet, String identifier ) {
+                String content = files.get( identifier );
+                if( content == null ) {
+                    return null;
+                }
+                InputSource source = new InputSource( new StringReader( content ) );
+                source.setURI( identifier );
+                return source;
+            }
+        };
+    }
+
+    /**
+     * Parse a style sheet from a string. Errors fail the test.
+     * 
+     * @param scss
+     *            the content of the style sheet
+     * @return the parsed style sheet
+     * @throws IOException
+     *             if the parsing fails
+     */
+    public static ScssStylesheet parse( String scss ) throws IOException {
+        return parse( scss, new AssertErrorHandler() );
+    }
+
+    /**
+     * Parse a style sheet from a string.
+     * 
+     * @param scss
+     *            the content of the style sheet
+     * @param errorHandler
+     *            the handler for the errors of the parsing and the later compile
+     * @return the parsed style sheet
+     * @throws IOException
+     *             if the parsing fails
+     */
+    public static ScssStylesheet parse( String scss, SCSSErrorHandler errorHandler ) throws IOException {
+        return ScssStylesheet.get( "", errorHandler, createResolver( scss ) );
+    }
+
     public ScssStylesheet getStyleSheet(String filename)
             throws URISyntaxException, IOException {
         File file = getFile(filename);
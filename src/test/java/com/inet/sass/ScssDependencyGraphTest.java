@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.parser.ScssImportScanner;
+import com.inet.sass.resolver.AbstractResolver;
+
+public class ScssDependencyGraphTest {
+
+    private static class MapResolver extends AbstractResolver {
+
+        private final Map<String, String> files = new HashMap<>();
+
+        @Override
+        protected InputSource resolveNormalized( String identifier ) {
+            String uri = identifier + ".scss";
+            String content = files.get( uri );
+            if( content == null ) {
+                return null;
+            }
+            InputSource source = new InputSource( new StringReader( content ) );
+            source.setURI( uri );
+            return source;
+        }
+    }
+
+    @Test
+    public void testScanner() throws Exception {
+        InputSource source = new InputSource( new StringReader( "// @import \"comment\";\n"
+                        + "/* @import \"block\"; */ @import \"a\";\n"
+                        + "@import 'b.scss';\n"
+                        + "@import \"plain.css\";\n"
+                        + "@import url(foo.scss);\n"
+                        + "@import \"#{$theme}\";\n"
+                        + ".x { content: \"@import 'string';\"; @import \"nested\"; }\n"
+                        + "@if $x { @import \"branch\"; }" ) );
+        Assert.assertEquals( Arrays.asList( "a", "b.scss", "nested", "branch" ), ScssImportScanner.scan( source ) );
+    }
+
+    @Test
+    public void testGraph() throws Exception {
+        MapResolver resolver = new MapResolver();
+        resolver.files.put( "main.scss", "@import \"lib/base\";\n@import \"missing\";\n.a { color: red; }" );
+        resolver.files.put( "lib/base.scss", "@import \"colors\";\n@import \"../main\";" );
+        resolver.files.put( "lib/_colors.scss", "$red: red;" );
+        resolver.files.put( "other.scss", "@import \"lib/colors\";" );
+
+        ScssDependencyGraph graph = new ScssDependencyGraph( resolver );
+        Assert.assertEquals( "main.scss", graph.add( "main" ) );
+        Assert.assertEquals( "other.scss", graph.add( "other.scss" ) );
+        Assert.assertNull( graph.add( "unknown" ) );
+
+        Assert.assertEquals( Arrays.asList( "main.scss", "lib/base.scss", "lib/_colors.scss", "other.scss" ), Arrays.asList( graph.getUris().toArray() ) );
+        Assert.assertEquals( Arrays.asList( "lib/_colors.scss", "main.scss" ), graph.getImports( "lib/base.scss" ) );
+        Assert.assertEquals( Arrays.asList( "missing" ), graph.getUnresolvedImports( "main.scss" ) );
+        Assert.assertEquals( Arrays.asList( "lib/base.scss", "lib/_colors.scss" ), Arrays.asList( graph.getDependencies( "main.scss" ).toArray() ) );
+        Assert.assertEquals( Arrays.asList( "lib/base.scss", "other.scss", "main.scss" ), Arrays.asList( graph.getDependents( "lib/_colors.scss" ).toArray() ) );
+    }
+}
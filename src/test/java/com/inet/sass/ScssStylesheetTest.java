@@ -0,0 +1,168 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.parser.LexicalUnitImpl;
+import com.inet.sass.resolver.ScssStylesheetResolver;
+import com.inet.sass.testcases.scss.AssertErrorHandler;
+
+public class ScssStylesheetTest {
+
+    @Test
+    public void testCompileCopiesWithVariables() throws Exception {
+        Map<String, String> files = new HashMap<>();
+        files.put( "main", "@import \"variables\";\n.a { color: $primary; }" );
+        files.put( "variables", "$primary: red !default;" );
+        ScssStylesheetResolver fileResolver = AbstractTestBase.createResolver( files );
+        AtomicInteger parsedImports = new AtomicInteger();
+        ScssStylesheetResolver resolver = ( parentStylesheet, identifier ) -> {
+            if( identifier.equals( "variables" ) ) {
+                parsedImports.incrementAndGet();
+            }
+            return fileResolver.resolve( parentStylesheet, identifier );
+        };
+        ScssStylesheet stylesheet = ScssStylesheet.get( "main", new AssertErrorHandler(), resolver );
+
+        ScssStylesheet tenant = stylesheet.copy();
+        tenant.compile( ScssContext.UrlMode.MIXED, Collections.singletonMap( "primary", LexicalUnitImpl.createIdent( null, 0, 0, "blue" ) ) );
+        Assert.assertEquals( ".a {\n\tcolor: blue;\n}", tenant.printState() );
+
+        ScssStylesheet defaults = stylesheet.copy();
+        defaults.compile( ScssContext.UrlMode.MIXED, null );
+        Assert.assertEquals( ".a {\n\tcolor: red;\n}", defaults.printState() );
+
+        Assert.assertEquals( 1, parsedImports.get() );
+    }
+
+    @Test
+    public void testPrelude() throws Exception {
+        Scope prelude = AbstractTestBase.parse( "$primary: red !default;\n$count: 0;\n"
+                        + "@function double( $x ) { @return $x * 2; }\n"
+                        + "@mixin colored { color: $primary; }\n"
+                        + "@mixin count { $count: $count + 1; }" ).compilePrelude( ScssContext.UrlMode.MIXED, null );
+        Assert.assertTrue( prelude.isFrozen() );
+
+        ScssStylesheet tenant = AbstractTestBase.parse( "$primary: blue;\n@include count;\n.a { @include colored; width: double( 2px ); count: $count; }" );
+        tenant.compile( ScssContext.UrlMode.MIXED, null, prelude );
+        Assert.assertEquals( ".a {\n\tcolor: blue;\n\twidth: 4px;\n\tcount: 1;\n}", tenant.printState() );
+
+        // the changes of the first compile are not visible
+        ScssStylesheet other = AbstractTestBase.parse( ".a { @include colored; count: $count; }" );
+        other.compile( ScssContext.UrlMode.MIXED, null, prelude );
+        Assert.assertEquals( ".a {\n\tcolor: red;\n\tcount: 0;\n}", other.printState() );
+    }
+
+    /**
+     * Compile the file "main" of the map with or without prefetching.
+     */
+    private static String compile( Map<String, String> files, Set<String> resolved, List<String> errors, ExecutorService executor ) throws Exception {
+        ScssStylesheetResolver fileResolver = AbstractTestBase.createResolver( files );
+        ScssStylesheetResolver resolver = ( parentStylesheet, identifier ) -> {
+            InputSource source = fileResolver.resolve( parentStylesheet, identifier );
+            if( source != null ) {
+                resolved.add( identifier );
+            }
+            return source;
+        };
+        SCSSErrorHandler errorHandler = new SCSSErrorHandler() {
+            @Override
+            public void error( Throwable th ) {
+                synchronized( errors ) {
+                    errors.add( th.getMessage() );
+                }
+            }
+
+            @Override
+            public void error( String msg ) {
+                synchronized( errors ) {
+                    errors.add( msg );
+                }
+            }
+        };
+        try {
+            ScssStylesheet stylesheet = ScssStylesheet.get( "main", errorHandler, resolver, executor );
+            stylesheet.compile();
+            return stylesheet.printState();
+        } finally {
+            SCSSErrorHandler.set( null );
+        }
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        Map<String, String> files = new HashMap<>();
+        files.put( "main", "@import \"a\";\n@import \"b\";\n@if $enabled { @import \"unused\"; }\n@mixin m { @import \"unused\"; }\n.main { color: $color; width: $width; }" );
+        files.put( "a", "@import \"c\";\n$enabled: false;\n.a { color: $color; }" );
+        files.put( "b", "$color: blue;\n@import \"c\";\n.b { color: $color; }" );
+        files.put( "c", "$color: red !default;\n$width: 1px;\n.c { width: $width; }" );
+        files.put( "unused", ".unused { color: green; }" );
+
+        Set<String> serialResolved = ConcurrentHashMap.newKeySet();
+        List<String> serialErrors = new ArrayList<>();
+        String serial = compile( files, serialResolved, serialErrors, null );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try {
+            for( int i = 0; i < 10; i++ ) {
+                Set<String> resolved = ConcurrentHashMap.newKeySet();
+                List<String> errors = new ArrayList<>();
+                Assert.assertEquals( serial, compile( files, resolved, errors, executor ) );
+                Assert.assertEquals( serialErrors, errors );
+                // imports in control directives and mixins are not prefetched
+                Assert.assertEquals( serialResolved, resolved );
+                Assert.assertFalse( resolved.contains( "unused" ) );
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrefetchErrors() throws Exception {
+        Map<String, String> files = new HashMap<>();
+        files.put( "main", "@import \"a\";\n@import \"missing\";\n.main { color: red; }" );
+        files.put( "a", ".a { color: red; " );
+
+        List<String> serialErrors = new ArrayList<>();
+        compile( files, ConcurrentHashMap.newKeySet(), serialErrors, null );
+        Assert.assertEquals( serialErrors.toString(), 2, serialErrors.size() );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try {
+            List<String> errors = new ArrayList<>();
+            compile( files, ConcurrentHashMap.newKeySet(), errors, executor );
+            Assert.assertEquals( serialErrors, errors );
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
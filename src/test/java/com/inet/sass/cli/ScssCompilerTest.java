@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.cli;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScssCompilerTest {
+
+    private static void write( File file, String content ) throws Exception {
+        file.getParentFile().mkdirs();
+        Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    private static String read( File file ) throws Exception {
+        return new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+    }
+
+    private static void delete( File file ) {
+        File[] children = file.listFiles();
+        if( children != null ) {
+            for( File child : children ) {
+                delete( child );
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void testDirectory() throws Exception {
+        File dir = Files.createTempDirectory( "scss" ).toFile();
+        try {
+            File src = new File( dir, "src" );
+            File out = new File( dir, "out" );
+            write( new File( src, "a.scss" ), "@import \"colors\";\n.a { color: $color; }" );
+            write( new File( src, "sub/b.scss" ), ".b { width: $width; }" );
+            write( new File( src, "_colors.scss" ), "$color: red;" );
+
+            ScssCompiler compiler = new ScssCompiler();
+            compiler.parseArguments( new String[] { "--jobs", "2", "--define", "width=1px + 2px", src.getPath() + ':' + out.getPath() } );
+            Assert.assertTrue( compiler.run() );
+
+            Assert.assertEquals( ".a {\n\tcolor: red;\n}", read( new File( out, "a.css" ) ) );
+            Assert.assertEquals( ".b {\n\twidth: 3px;\n}", read( new File( out, "sub/b.css" ) ) );
+            Assert.assertFalse( new File( out, "_colors.css" ).exists() );
+        } finally {
+            delete( dir );
+        }
+    }
+
+    @Test
+    public void testGlob() throws Exception {
+        File dir = Files.createTempDirectory( "scss" ).toFile();
+        try {
+            write( new File( dir, "a.scss" ), ".a { color: red; }" );
+            write( new File( dir, "sub/b.scss" ), ".b { color: red; }" );
+            write( new File( dir, "sub/c.scss" ), ".c { color: red; }" );
+
+            ScssCompiler compiler = new ScssCompiler();
+            compiler.parseArguments( new String[] { "--out-dir", new File( dir, "out" ).getPath(), dir.getPath() + "/sub/*.scss" } );
+            List<?> jobs = compiler.collectJobs();
+            Assert.assertEquals( 2, jobs.size() );
+            Assert.assertTrue( compiler.run() );
+            Assert.assertTrue( new File( dir, "out/b.css" ).exists() );
+            Assert.assertTrue( new File( dir, "out/c.css" ).exists() );
+            Assert.assertFalse( new File( dir, "out/a.css" ).exists() );
+        } finally {
+            delete( dir );
+        }
+    }
+
+    @Test
+    public void testError() throws Exception {
+        File dir = Files.createTempDirectory( "scss" ).toFile();
+        try {
+            File source = new File( dir, "a.scss" );
+            write( source, ".a { color: $missing; }" );
+
+            ScssCompiler compiler = new ScssCompiler();
+            compiler.parseArguments( new String[] { source.getPath() + ':' + new File( dir, "a.css" ).getPath(), new File( dir, "missing.scss" ).getPath() } );
+            Assert.assertFalse( compiler.run() );
+        } finally {
+            delete( dir );
+        }
+    }
+
+    @Test
+    public void testWatchBrokenImport() throws Exception {
+        File dir = Files.createTempDirectory( "scss" ).toFile();
+        Thread thread = null;
+        try {
+            File main = new File( dir, "main.scss" );
+            File imported = new File( dir, "_a.scss" );
+            File target = new File( dir, "main.css" );
+            write( main, "@import \"a\";\n.main { color: $color; }" );
+            write( imported, "$color: red;\n.a { color: red; " );
+            long time = System.currentTimeMillis() - 60000;
+            main.setLastModified( time );
+            imported.setLastModified( time );
+
+            ScssCompiler compiler = new ScssCompiler();
+            compiler.parseArguments( new String[] { "--watch", main.getPath() + ':' + target.getPath() } );
+            thread = new Thread( () -> {
+                try {
+                    compiler.run();
+                } catch( InterruptedException ex ) {
+                    // stopped by the test
+                } catch( Exception ex ) {
+                    ex.printStackTrace();
+                }
+            } );
+            thread.setDaemon( true );
+            thread.start();
+            Thread.sleep( 1000 );
+            Assert.assertFalse( target.exists() );
+
+            // the import that has failed to parse is watched
+            write( imported, "$color: red;\n.a { color: red; }" );
+            imported.setLastModified( time + 2000 );
+            for( int i = 0; i < 100 && !target.exists(); i++ ) {
+                Thread.sleep( 100 );
+            }
+            Assert.assertEquals( ".a {\n\tcolor: red;\n}\n\n.main {\n\tcolor: red;\n}", read( target ) );
+        } finally {
+            if( thread != null ) {
+                thread.interrupt();
+                thread.join();
+            }
+            delete( dir );
+        }
+    }
+}
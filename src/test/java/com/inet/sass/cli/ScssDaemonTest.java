@@ -0,0 +1,152 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.ScssContext;
+
+public class ScssDaemonTest {
+
+    @Test
+    public void testCompile() throws Exception {
+        File dir = Files.createTempDirectory( "scss" ).toFile();
+        File main = new File( dir, "main.scss" );
+        File imported = new File( dir, "_colors.scss" );
+        Files.write( main.toPath(), "@import \"colors\";\n.a { color: $color; width: $width; }".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( imported.toPath(), "$color: red;".getBytes( StandardCharsets.UTF_8 ) );
+
+        try( ScssDaemon daemon = new ScssDaemon( 0 ) ) {
+            Thread thread = new Thread( () -> {
+                try {
+                    daemon.run();
+                } catch( Exception ex ) {
+                    ex.printStackTrace();
+                }
+            } );
+            thread.setDaemon( true );
+            thread.start();
+
+            ScssDaemonClient client = new ScssDaemonClient( daemon.getPort() );
+            ScssDaemon.Result result = client.compile( main.getAbsolutePath(), ScssContext.UrlMode.MIXED, Collections.singletonMap( "width", "2px * 3" ) );
+            Assert.assertEquals( result.getMessages().toString(), 0, result.getStatus() );
+            Assert.assertEquals( ".a {\n\tcolor: red;\n\twidth: 6px;\n}", result.getCss() );
+            Assert.assertEquals( 2, result.getDependencies().size() );
+
+            // a changed import is parsed again
+            Files.write( imported.toPath(), "$color: blue;".getBytes( StandardCharsets.UTF_8 ) );
+            imported.setLastModified( imported.lastModified() + 2000 );
+            result = client.compile( main.getAbsolutePath(), ScssContext.UrlMode.MIXED, Collections.singletonMap( "width", "1px" ) );
+            Assert.assertEquals( ".a {\n\tcolor: blue;\n\twidth: 1px;\n}", result.getCss() );
+
+            result = client.compile( new File( dir, "missing.scss" ).getAbsolutePath(), ScssContext.UrlMode.MIXED, null );
+            Assert.assertEquals( 1, result.getStatus() );
+        } finally {
+            main.delete();
+            imported.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testImportOfPreviousCompile() throws Exception {
+        File dir = Files.createTempDirectory( "scss" ).toFile();
+        File main = new File( dir, "main.scss" );
+        File dark = new File( dir, "_dark.scss" );
+        File light = new File( dir, "_light.scss" );
+        Files.write( main.toPath(), "@if $theme == dark {\n  @import \"dark\";\n} @else {\n  @import \"light\";\n}".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( dark.toPath(), ".d { color: black; }".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( light.toPath(), ".l { color: white; }".getBytes( StandardCharsets.UTF_8 ) );
+        long time = System.currentTimeMillis() - 60000;
+        for( File file : new File[] { main, dark, light } ) {
+            file.setLastModified( time );
+        }
+
+        try( ScssDaemon daemon = new ScssDaemon( 0 ) ) {
+            ScssDaemon.Result result = daemon.compile( main.getAbsolutePath(), ScssContext.UrlMode.MIXED, Collections.singletonMap( "theme", "dark" ) );
+            Assert.assertEquals( ".d {\n\tcolor: black;\n}", result.getCss() );
+            result = daemon.compile( main.getAbsolutePath(), ScssContext.UrlMode.MIXED, Collections.singletonMap( "theme", "light" ) );
+            Assert.assertEquals( ".l {\n\tcolor: white;\n}", result.getCss() );
+
+            // the import of the first compile is still checked
+            Files.write( dark.toPath(), ".d { color: gray; }".getBytes( StandardCharsets.UTF_8 ) );
+            dark.setLastModified( time + 2000 );
+            result = daemon.compile( main.getAbsolutePath(), ScssContext.UrlMode.MIXED, Collections.singletonMap( "theme", "dark" ) );
+            Assert.assertEquals( ".d {\n\tcolor: gray;\n}", result.getCss() );
+        } finally {
+            main.delete();
+            dark.delete();
+            light.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testInvalidRequests() throws Exception {
+        try( ScssDaemon daemon = new ScssDaemon( 0 ) ) {
+            Thread thread = new Thread( () -> {
+                try {
+                    daemon.run();
+                } catch( Exception ex ) {
+                    ex.printStackTrace();
+                }
+            } );
+            thread.setDaemon( true );
+            thread.start();
+
+            // the first bytes of an HTTP request are a length of about 1.3 GB
+            try( Socket socket = new Socket( InetAddress.getLoopbackAddress(), daemon.getPort() ) ) {
+                socket.getOutputStream().write( "POST / HTTP/1.1\r\n\r\n".getBytes( StandardCharsets.UTF_8 ) );
+                Assert.assertEquals( -1, socket.getInputStream().read() );
+            }
+
+            try( Socket socket = new Socket( InetAddress.getLoopbackAddress(), daemon.getPort() ) ) {
+                DataOutputStream out = new DataOutputStream( socket.getOutputStream() );
+                ScssDaemon.writeString( out, ScssDaemon.COMMAND_COMPILE );
+                ScssDaemon.writeString( out, "a.scss" );
+                ScssDaemon.writeString( out, "UNKNOWN" );
+                out.writeInt( 0 );
+                ScssDaemon.Result result = ScssDaemon.Result.read( new DataInputStream( socket.getInputStream() ) );
+                Assert.assertEquals( 1, result.getStatus() );
+                Assert.assertEquals( "[Unknown url mode: UNKNOWN]", result.getMessages().toString() );
+            }
+
+            ScssDaemonClient client = new ScssDaemonClient( daemon.getPort() );
+            try {
+                client.stop( "wrong" );
+                Assert.fail( "stopped with a wrong token" );
+            } catch( IOException ex ) {
+                // expected
+            }
+            Assert.assertEquals( 1, client.compile( "missing.scss", ScssContext.UrlMode.MIXED, null ).getStatus() );
+            client.stop( daemon.getToken() );
+            thread.join( 10000 );
+            Assert.assertFalse( thread.isAlive() );
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.ScssContext;
+
+public class ScssDevServerTest {
+
+    private static HttpURLConnection request( ScssDevServer server, String path, String etag ) throws Exception {
+        HttpURLConnection conn = (HttpURLConnection)new URL( "http://localhost:" + server.getPort() + path ).openConnection();
+        if( etag != null ) {
+            conn.setRequestProperty( "If-None-Match", etag );
+        }
+        return conn;
+    }
+
+    private static String read( HttpURLConnection conn ) throws Exception {
+        InputStream in = conn.getResponseCode() < 400 ? conn.getInputStream() : conn.getErrorStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for( int count; (count = in.read( buffer )) > 0; ) {
+            out.write( buffer, 0, count );
+        }
+        in.close();
+        return new String( out.toByteArray(), StandardCharsets.UTF_8 );
+    }
+
+    @Test
+    public void testServer() throws Exception {
+        File dir = Files.createTempDirectory( "scss" ).toFile();
+        File main = new File( dir, "main.scss" );
+        File imported = new File( dir, "_colors.scss" );
+        Files.write( main.toPath(), "@import \"colors\";\n.a { color: $color; }".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( imported.toPath(), "$color: red;".getBytes( StandardCharsets.UTF_8 ) );
+
+        try( ScssDevServer server = new ScssDevServer( dir, 0, ScssContext.UrlMode.MIXED ) ) {
+            HttpURLConnection conn = request( server, "/css/main.css", null );
+            Assert.assertEquals( 200, conn.getResponseCode() );
+            Assert.assertEquals( ".a {\n\tcolor: red;\n}", read( conn ) );
+            String etag = conn.getHeaderField( "ETag" );
+            Assert.assertNotNull( etag );
+
+            // not modified, without a compile
+            ScssDevServer.Cached cached = server.get( main.getCanonicalFile() );
+            conn = request( server, "/css/main.css", etag );
+            Assert.assertEquals( 304, conn.getResponseCode() );
+            Assert.assertSame( cached, server.get( main.getCanonicalFile() ) );
+
+            // a touched file with the same content is not compiled again
+            imported.setLastModified( imported.lastModified() + 2000 );
+            Assert.assertSame( cached, server.get( main.getCanonicalFile() ) );
+
+            // a changed import is compiled again
+            Files.write( imported.toPath(), "$color: blue;".getBytes( StandardCharsets.UTF_8 ) );
+            imported.setLastModified( imported.lastModified() + 4000 );
+            conn = request( server, "/css/main.css", etag );
+            Assert.assertEquals( 200, conn.getResponseCode() );
+            Assert.assertEquals( ".a {\n\tcolor: blue;\n}", read( conn ) );
+            Assert.assertFalse( etag.equals( conn.getHeaderField( "ETag" ) ) );
+
+            Assert.assertEquals( 404, request( server, "/css/missing.css", null ).getResponseCode() );
+            Assert.assertEquals( 404, request( server, "/css/../main.css", null ).getResponseCode() );
+
+            Files.write( main.toPath(), ".a { color: $missing; }".getBytes( StandardCharsets.UTF_8 ) );
+            main.setLastModified( main.lastModified() + 6000 );
+            conn = request( server, "/css/main.css", null );
+            Assert.assertEquals( 500, conn.getResponseCode() );
+            Assert.assertTrue( read( conn ).contains( "missing" ) );
+            Assert.assertNull( server.get( main.getCanonicalFile() ).getETag() );
+        } finally {
+            main.delete();
+            imported.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testBrokenImport() throws Exception {
+        File dir = Files.createTempDirectory( "scss" ).toFile();
+        File main = new File( dir, "main.scss" );
+        File imported = new File( dir, "_a.scss" );
+        Files.write( main.toPath(), "@import \"a\";\n.main { color: $color; }".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( imported.toPath(), "$color: red;\n.a { color: red; ".getBytes( StandardCharsets.UTF_8 ) );
+
+        try( ScssDevServer server = new ScssDevServer( dir, 0, ScssContext.UrlMode.MIXED ) ) {
+            Assert.assertEquals( 500, request( server, "/css/main.css", null ).getResponseCode() );
+
+            // the import that has failed to parse is checked
+            Files.write( imported.toPath(), "$color: red;\n.a { color: red; }".getBytes( StandardCharsets.UTF_8 ) );
+            imported.setLastModified( imported.lastModified() + 2000 );
+            HttpURLConnection conn = request( server, "/css/main.css", null );
+            Assert.assertEquals( 200, conn.getResponseCode() );
+            Assert.assertEquals( ".a {\n\tcolor: red;\n}\n\n.main {\n\tcolor: red;\n}", read( conn ) );
+        } finally {
+            main.delete();
+            imported.delete();
+            dir.delete();
+        }
+    }
+}
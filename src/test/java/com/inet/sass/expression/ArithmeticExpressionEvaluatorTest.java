@@ -69,8 +69,31 @@ public class ArithmeticExpressionEvaluatorTest {
 
     @Test(expected = ParseException.class)
     public void testIncompatibleUnit() {
-        // 2cm - 3px
-        evaluate(operand2cm, operatorMinus, operand3px);
+        // 2cm - 3%
+        evaluate(operand2cm, operatorMinus, LexicalUnitImpl.createPercentage( null, 0, 0, 3 ));
+    }
+
+    @Test
+    public void testConvertUnit() {
+        // 2cm - 3px = 1.92063cm
+        LexicalUnitImpl result = evaluate(operand2cm, operatorMinus, operand3px);
+        Assert.assertEquals(2 - 3 * 2.54 / 96, result.getDoubleValue(), 1E-10);
+        Assert.assertEquals(SCSSLexicalUnit.SAC_CENTIMETER,
+                result.getItemType());
+    }
+
+    @Test
+    public void testCompoundUnit() {
+        // 3px * 2cm / 4cm = 1.5px
+        LexicalUnitImpl result = evaluate(operand3px, operatorMultiply, operand2cm, operatorDivide, operand4cm);
+        Assert.assertEquals(1.5, result.getDoubleValue(), 1E-10);
+        Assert.assertEquals(SCSSLexicalUnit.SAC_PIXEL,
+                result.getItemType());
+
+        // 2cm * 3px = 0.15875cm*cm
+        result = evaluate(operand2cm, operatorMultiply, operand3px);
+        Assert.assertEquals(6 * 2.54 / 96, result.getDoubleValue(), 1E-10);
+        Assert.assertEquals("cm*cm", result.getDimensionUnitText());
     }
 
     @Test
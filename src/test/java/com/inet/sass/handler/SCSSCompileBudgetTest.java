@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.handler;
+
+import org.junit.Test;
+
+import com.inet.sass.AbstractTestBase;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.parser.ParseException;
+
+public class SCSSCompileBudgetTest extends AbstractTestBase {
+
+    private static void compile( String scss, SCSSCompileBudget budget ) throws Exception {
+        // errors are ignored like in a lenient server setup
+        ScssStylesheet stylesheet = parse( scss, new SCSSErrorHandler() {} );
+        SCSSCompileBudget.set( budget );
+        try {
+            stylesheet.compile();
+        } finally {
+            SCSSCompileBudget.set( null );
+        }
+    }
+
+    private void testCompiler( String name, SCSSCompileBudget budget ) throws Exception {
+        SCSSCompileBudget.set( budget );
+        try {
+            testCompiler( "/scss/budget/" + name + ".scss", "/css/budget/" + name + ".css" );
+        } finally {
+            SCSSCompileBudget.set( null );
+        }
+    }
+
+    @Test
+    public void testWithinBudget() throws Exception {
+        testCompiler( "within-budget", new SCSSCompileBudget( 3, 3, 0 ) );
+    }
+
+    @Test( expected = ParseException.class )
+    public void testMaxIterations() throws Exception {
+        compile( ".a { @while true { $x: 1; } }", new SCSSCompileBudget( 1000, 0, 0 ) );
+    }
+
+    @Test( expected = ParseException.class )
+    public void testMaxOutputNodes() throws Exception {
+        compile( "@for $i from 1 through 10 { @for $j from 1 through 10 { .a#{$i}-#{$j} { b: c; } } }", new SCSSCompileBudget( 0, 50, 0 ) );
+    }
+
+    @Test
+    public void testNestedLoopsAreCountedOnce() throws Exception {
+        testCompiler( "nested-loops", new SCSSCompileBudget( 0, 25, 0 ) );
+    }
+
+    @Test( expected = ParseException.class )
+    public void testMaxWallTime() throws Exception {
+        compile( "$i: 0; @while $i >= 0 { $i: $i + 1; }", new SCSSCompileBudget( 0, 0, 50 ) );
+    }
+}
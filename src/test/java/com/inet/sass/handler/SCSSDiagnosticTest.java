@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.AbstractTestBase;
+import com.inet.sass.parser.ParseException;
+
+public class SCSSDiagnosticTest {
+
+    @Test
+    public void testDiagnosticsMode() throws Exception {
+        List<SCSSDiagnostic> diagnostics = new ArrayList<>();
+        SCSSErrorHandler handler = new SCSSErrorHandler() {
+            @Override
+            public void diagnostic( SCSSDiagnostic diagnostic ) {
+                diagnostics.add( diagnostic );
+            }
+
+            @Override
+            public void error( Throwable th ) {
+                Assert.fail( th.toString() );
+            }
+        };
+        handler.setDiagnosticsMode( true );
+        AbstractTestBase.parse( ".a {\n  .b { @include unknown; }\n}", handler ).compile();
+
+        Assert.assertEquals( 1, diagnostics.size() );
+        SCSSDiagnostic diagnostic = diagnostics.get( 0 );
+        Assert.assertEquals( SCSSDiagnostic.Severity.ERROR, diagnostic.getSeverity() );
+        Assert.assertEquals( "Mixin Definition: unknown not found", diagnostic.getMessage() );
+        Assert.assertEquals( 2, diagnostic.getLineNumber() );
+        Assert.assertEquals( ".a .b > @include unknown", diagnostic.getPath() );
+    }
+
+    @Test
+    public void testCollector() throws Exception {
+        SCSSDiagnosticsCollector collector = new SCSSDiagnosticsCollector( 2 );
+        AbstractTestBase.parse( "@for $i from 1 through 10 { .a#{$i} { b: foo( $i ); } }\n"
+                        + "@warn one;\n@warn two;\n@warn three;", collector ).compile();
+
+        List<SCSSDiagnostic> diagnostics = collector.getDiagnostics();
+        Assert.assertEquals( 3, diagnostics.size() );
+        Assert.assertEquals( "unknown-function", diagnostics.get( 0 ).getCode() );
+        Assert.assertEquals( "Unknown function: foo", diagnostics.get( 0 ).getMessage() );
+        Assert.assertEquals( "one", diagnostics.get( 1 ).getMessage() );
+        Assert.assertEquals( "two", diagnostics.get( 2 ).getMessage() );
+        Assert.assertEquals( Integer.valueOf( 10 ), collector.getCounts().get( "unknown-function" ) );
+        Assert.assertEquals( Integer.valueOf( 3 ), collector.getCounts().get( "@warn" ) );
+        Assert.assertEquals( 10, collector.getSuppressedCount() );
+        Assert.assertTrue( collector.getExceptions().isEmpty() );
+    }
+
+    @Test
+    public void testStackTrace() {
+        SCSSErrorHandler handler = new SCSSErrorHandler() {};
+        SCSSErrorHandler.set( handler );
+        try {
+            Assert.assertTrue( new ParseException( "error" ).getStackTrace().length > 0 );
+            handler.setDiagnosticsMode( true );
+            Assert.assertEquals( 0, new ParseException( "error" ).getStackTrace().length );
+        } finally {
+            SCSSErrorHandler.set( null );
+        }
+    }
+}
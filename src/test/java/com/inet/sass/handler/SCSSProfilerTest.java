@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.handler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.AbstractTestBase;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.parser.ParseException;
+
+public class SCSSProfilerTest {
+
+    private static void compile( String scss, SCSSProfiler profiler, SCSSCompileBudget budget ) throws Exception {
+        SCSSProfiler.set( profiler );
+        SCSSCompileBudget.set( budget );
+        try {
+            ScssStylesheet stylesheet = AbstractTestBase.parse( scss, new SCSSErrorHandler() {} );
+            stylesheet.compile();
+            stylesheet.printState();
+        } finally {
+            SCSSCompileBudget.set( null );
+            SCSSProfiler.set( null );
+        }
+    }
+
+    private static SCSSProfiler.Entry entry( SCSSProfiler profiler, SCSSProfiler.Category category, String name ) {
+        for( SCSSProfiler.Entry entry : profiler.getEntries( category ) ) {
+            if( entry.getName().startsWith( name ) ) {
+                return entry;
+            }
+        }
+        Assert.fail( "Missing " + category + " entry: " + name );
+        return null;
+    }
+
+    @Test
+    public void testCategories() throws Exception {
+        SCSSProfiler profiler = new SCSSProfiler();
+        compile( "@function double($x) { @return $x * 2; }\n" //
+                        + "@mixin box($w) { width: double($w); color: darken(#fff, 10%); }\n" //
+                        + "@for $i from 1 through 3 { .a#{$i} { @include box($i * 1px); } }\n" //
+                        + "@each $n in x, y { .#{$n} { @include box(2px); } }\n" //
+                        + "$j: 0; @while $j < 2 { .w#{$j} { b: c; } $j: $j + 1; }", profiler, null );
+
+        List<String> phases = new ArrayList<>();
+        for( SCSSProfiler.Phase phase : profiler.getPhases() ) {
+            phases.add( phase.getName() );
+            Assert.assertTrue( phase.getNanos() >= 0 );
+        }
+        Assert.assertTrue( phases.toString(), phases.containsAll( Arrays.asList( "parse", "fold", "traverse", "extend", "print" ) ) );
+
+        Assert.assertEquals( 5, entry( profiler, SCSSProfiler.Category.MIXIN, "box" ).getCount() );
+        Assert.assertEquals( 5, entry( profiler, SCSSProfiler.Category.FUNCTION, "double" ).getCount() );
+        Assert.assertEquals( 5, entry( profiler, SCSSProfiler.Category.BUILTIN_FUNCTION, "darken" ).getCount() );
+        Assert.assertEquals( 1, entry( profiler, SCSSProfiler.Category.LOOP, "@for" ).getCount() );
+        Assert.assertEquals( 1, entry( profiler, SCSSProfiler.Category.LOOP, "@each" ).getCount() );
+        Assert.assertEquals( 1, entry( profiler, SCSSProfiler.Category.LOOP, "@while" ).getCount() );
+
+        String json = profiler.toJson();
+        Assert.assertTrue( json, json.contains( "\"mixin\": [" ) );
+        Assert.assertTrue( json, json.contains( "\"loop\": [" ) );
+    }
+
+    @Test
+    public void testFailingLoopIsRecorded() throws Exception {
+        SCSSProfiler profiler = new SCSSProfiler();
+        try {
+            compile( ".a { @while true { $x: 1; } }", profiler, new SCSSCompileBudget( 100, 0, 0 ) );
+            Assert.fail( "budget not exceeded" );
+        } catch( ParseException ex ) {
+            // expected
+        }
+        Assert.assertEquals( 1, entry( profiler, SCSSProfiler.Category.LOOP, "@while" ).getCount() );
+    }
+}
@@ -18,27 +18,48 @@
 package com.inet.sass.parser;
 
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.inet.sass.AbstractTestBase;
 import com.inet.sass.InputSource;
 import com.inet.sass.ScssStylesheet;
-import com.inet.sass.resolver.ScssStylesheetResolver;
-import com.inet.sass.testcases.scss.AssertErrorHandler;
+import com.inet.sass.handler.SCSSEventHandler;
+import com.inet.sass.selector.Selector;
 
 public class ParserTest {
 
     @Test
     public void testCanIngoreSingleLineComment() throws Exception {
-        ScssStylesheetResolver resolver = new ScssStylesheetResolver() {
+        ScssStylesheet stylesheet = AbstractTestBase.parse( "//kjaljsföajsfalkj\n@12abcg;" );
+        stylesheet.compile();
+        Assert.assertEquals( "@12abcg;", stylesheet.printState() );
+    }
+
+    @Test
+    public void testEventHandler() throws Exception {
+        List<String> events = new ArrayList<>();
+        SCSSEventHandler handler = new SCSSEventHandler() {
             @Override
-            public InputSource resolve( ScssStylesheet parentStylesheet, String identifier ) {
-                return new InputSource( new StringReader( "//kjaljsföajsfalkj\n@12abcg;" ) );
+            public void importStyle( String uri, MediaList media, boolean isURL ) {
+                events.add( "import " + uri );
+            }
+
+            @Override
+            public void startSelector( String uri, int line, int column, List<Selector> selectors ) {
+                events.add( "start " + selectors + " " + line );
+            }
+
+            @Override
+            public void endSelector() {
+                events.add( "end" );
             }
         };
-        ScssStylesheet stylesheet = ScssStylesheet.get( "", new AssertErrorHandler(), resolver );
-        stylesheet.compile();
-        Assert.assertEquals( "@12abcg;", stylesheet.printState() );
+        new ScssParser().parseStyleSheet( handler, new InputSource( new StringReader( "@import \"a\";\n@import \"b\";\n.x { color: red; .y { top: 0; } }" ) ) );
+        Assert.assertEquals( Arrays.asList( "import a", "import b", "start [.x] 3", "start [.y] 3", "end", "end" ), events );
     }
 }
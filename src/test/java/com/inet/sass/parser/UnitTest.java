@@ -0,0 +1,44 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UnitTest {
+
+    @Test
+    public void testQuarterMillimeter() {
+        Assert.assertEquals( 4, Unit.forText( "mm" ).getConversionFactor( Unit.forText( "Q" ) ), 1e-9 );
+    }
+
+    @Test
+    public void testKnownUnitsAreInterned() {
+        Assert.assertSame( Unit.forText( "px*px/s" ), Unit.forText( "px*px/s" ) );
+        Assert.assertSame( Unit.forText( "vw" ), Unit.forText( "px" ).multiply( Unit.forText( "vw" ) ).getUnit().divide( Unit.forText( "px" ) ).getUnit() );
+    }
+
+    @Test
+    public void testUnknownUnitsAreNotInterned() {
+        Unit unit = Unit.forText( "foo*px" );
+        Assert.assertNotSame( unit, Unit.forText( "foo*px" ) );
+        Assert.assertNotSame( unit, Unit.forText( "px*foo" ) );
+        Assert.assertEquals( "foo*px", unit.getText() );
+        Assert.assertEquals( 1, unit.getConversionFactor( Unit.forText( "px*foo" ) ), 0 );
+        Assert.assertEquals( "foo", unit.divide( Unit.forText( "px" ) ).getUnit().getText() );
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.inet.sass.sourcemap;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.AbstractTestBase;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.handler.SCSSErrorHandler;
+import com.inet.sass.tree.SourceLocation;
+
+public class SourceMapGeneratorTest {
+
+    private static SourceLocation location( String uri, int line, int column ) {
+        return new SourceLocation() {
+            @Override
+            public String getUri() {
+                return uri;
+            }
+
+            @Override
+            public int getLineNumber() {
+                return line;
+            }
+
+            @Override
+            public int getColumnNumber() {
+                return column;
+            }
+        };
+    }
+
+    private static String encode( int value ) {
+        StringBuilder builder = new StringBuilder();
+        Base64VLQ.encode( builder, value );
+        return builder.toString();
+    }
+
+    @Test
+    public void testVLQ() {
+        Assert.assertEquals( "A", encode( 0 ) );
+        Assert.assertEquals( "C", encode( 1 ) );
+        Assert.assertEquals( "D", encode( -1 ) );
+        Assert.assertEquals( "gB", encode( 16 ) );
+        Assert.assertEquals( "2H", encode( 123 ) );
+        Assert.assertEquals( "+/////D", encode( Integer.MAX_VALUE ) );
+    }
+
+    @Test
+    public void testMappings() {
+        SourceMapGenerator sourceMap = new SourceMapGenerator();
+        StringBuilder output = new StringBuilder();
+        sourceMap.addMapping( output, location( "a.scss", 2, 1 ) );
+        output.append( ".a {\n\t" );
+        sourceMap.addMapping( output, location( "a.scss", 3, 3 ) );
+        output.append( "color: red;\n}\n\n" );
+        sourceMap.addMapping( output, location( "b.scss", 1, 1 ) );
+        output.append( ".b {}" );
+        // locations without a source are ignored
+        sourceMap.addMapping( output, location( null, 0, 0 ) );
+
+        Assert.assertEquals( "AACA;CACE;;;ACFF", sourceMap.getMappings() );
+        Assert.assertArrayEquals( new String[] { "a.scss", "b.scss" }, sourceMap.getSources() );
+        Assert.assertEquals( "{\"version\":3,\"file\":\"a.css\",\"sources\":[\"a.scss\",\"b.scss\"],\"names\":[],\"mappings\":\"AACA;CACE;;;ACFF\"}", sourceMap.toJson( "a.css" ) );
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        String scss = ".a {\n  color: red;\n  .b { top: 0; }\n}\n@media print {\n  .c, .d {\n    x: y;\n  }\n}";
+        ScssStylesheet stylesheet = ScssStylesheet.get( "a.scss", new SCSSErrorHandler() {}, AbstractTestBase.createResolver( Collections.singletonMap( "a.scss", scss ) ) );
+        stylesheet.compile();
+        SourceMapGenerator sourceMap = new SourceMapGenerator();
+        stylesheet.printState( sourceMap );
+
+        // selectors and declarations are mapped to their first character:
+        // .a 1:1, color 2:3, .b 3:3, top 3:8, .c 6:3, x 7:5
+        Assert.assertEquals( "AAAA;CACE;;;AACA;CAAK;;;;CAGL;EACE", sourceMap.getMappings() );
+    }
+}
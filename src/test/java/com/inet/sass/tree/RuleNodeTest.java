@@ -0,0 +1,65 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.AbstractTestBase;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.handler.SCSSErrorHandler;
+
+public class RuleNodeTest {
+
+    private static String compile( String scss, List<String> errors ) throws Exception {
+        ScssStylesheet stylesheet = AbstractTestBase.parse( scss, new SCSSErrorHandler() {
+            @Override
+            public void error( Throwable th ) {
+                errors.add( th.getMessage() );
+            }
+        } );
+        stylesheet.compile();
+        return stylesheet.printState();
+    }
+
+    @Test
+    public void testCompoundUnitInOutput() throws Exception {
+        // a constant value that is folded before the traversal
+        List<String> errors = new ArrayList<>();
+        compile( ".a { width: 2px * 3px; }", errors );
+        Assert.assertEquals( 1, errors.size() );
+        Assert.assertTrue( errors.get( 0 ), errors.get( 0 ).startsWith( "6px*px isn't a valid CSS value." ) );
+
+        // a value with variables, also inside of a list
+        errors.clear();
+        compile( "$size: 1px;\n.a { margin: 0 $size * 2em; }", errors );
+        Assert.assertEquals( 1, errors.size() );
+        Assert.assertTrue( errors.get( 0 ), errors.get( 0 ).startsWith( "2em*px isn't a valid CSS value." ) );
+    }
+
+    @Test
+    public void testCompoundUnitInCalculation() throws Exception {
+        // the compound unit is canceled before the output
+        List<String> errors = new ArrayList<>();
+        String css = compile( "$size: 4px;\n.a { width: $size * $size / 2px; height: 2px * 3px / 1px; }", errors );
+        Assert.assertEquals( errors.toString(), 0, errors.size() );
+        Assert.assertEquals( ".a {\n\twidth: 8px;\n\theight: 6px;\n}", css );
+    }
+}
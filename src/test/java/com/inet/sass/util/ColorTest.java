@@ -0,0 +1,65 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.parser.ActualArgumentList;
+import com.inet.sass.parser.LexicalUnitImpl;
+import com.inet.sass.parser.SassList.Separator;
+
+public class ColorTest {
+
+    @Test
+    public void testHexColor() {
+        LexicalUnitImpl unit = LexicalUnitImpl.createIdent( null, 0, 0, "#1a2B3c" );
+        Color color = unit.getColor();
+        Assert.assertEquals( 0x1a2b3c, color.getRgb() );
+        Assert.assertEquals( 1, color.getAlpha(), 0 );
+        Assert.assertSame( color, unit.getColor() );
+        Assert.assertEquals( 0xaabbcc, LexicalUnitImpl.createIdent( null, 0, 0, "#abc" ).getColor().getRgb() );
+        Assert.assertEquals( 0xff0000, LexicalUnitImpl.createIdent( null, 0, 0, "red" ).getColor().getRgb() );
+        Assert.assertNull( LexicalUnitImpl.createIdent( null, 0, 0, "bold" ).getColor() );
+    }
+
+    @Test
+    public void testNotCachedWithVariables() {
+        ActualArgumentList args = new ActualArgumentList( Separator.COMMA, LexicalUnitImpl.createVariable( null, 0, 0, "r" ),
+                        LexicalUnitImpl.createNumber( null, 0, 0, 0 ), LexicalUnitImpl.createNumber( null, 0, 0, 0 ) );
+        LexicalUnitImpl unit = LexicalUnitImpl.createFunction( null, 0, 0, "rgb", args );
+        Assert.assertNotSame( unit.getColor(), unit.getColor() );
+    }
+
+    @Test
+    public void testHslCached() {
+        LexicalUnitImpl hsl = ColorUtil.createHslaOrHslColor( 120, 50, 40, 1, 0, 0 );
+        Color color = hsl.getColor();
+        Assert.assertEquals( 120, color.getHue(), 0 );
+        Assert.assertArrayEquals( ColorUtil.hslToRgb( new double[] { 120, 50, 40 } ), color.toRgbArray() );
+
+        LexicalUnitImpl darker = ColorUtil.darken( hsl, 10 );
+        Assert.assertEquals( 30, darker.getColor().getLightness(), 0 );
+        Assert.assertEquals( ColorUtil.rgbToColorString( ColorUtil.hslToRgb( new double[] { 120, 50, 30 } ) ), darker.printState() );
+    }
+
+    @Test
+    public void testColorString() {
+        Assert.assertEquals( "#0a0b0c", ColorUtil.rgbToColorString( 0x0a0b0c ) );
+        Assert.assertEquals( "white", ColorUtil.rgbToColorString( new int[] { 255, 255, 255 } ) );
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.util;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NumberUtilTest {
+
+    private static void assertFormat( DecimalFormat expected, double value ) {
+        Assert.assertEquals( "value: " + value, expected.format( value ), NumberUtil.format( value ) );
+    }
+
+    @Test
+    public void testSameAsDecimalFormat() {
+        DecimalFormat format = new DecimalFormat( "0.#####", DecimalFormatSymbols.getInstance( Locale.US ) );
+        double[] values = { 0, -0.0, 1, -1, 0.5, 1.5, 0.1, 0.2 + 0.1, 1 / 3.0, -2 / 3.0, 0.000004, 0.000005, 0.000015, 0.000035, -0.000001,
+                        0.123455, 0.123465, 2.5E-6, 99999.999996, 12345678.9, 1E15, 1E20, 1.7E308, Math.pow( 2, 60 ), 1E17 + 16, 123456789012.000005, 1234567.000015, Integer.MAX_VALUE + 0.5 };
+        for( double value : values ) {
+            assertFormat( format, value );
+        }
+        Random random = new Random( 42 );
+        for( int i = 0; i < 100000; i++ ) {
+            double value = (random.nextDouble() - 0.5) * Math.pow( 10, random.nextInt( 20 ) - 4 );
+            assertFormat( format, value );
+            // values with few fraction digits like 1.23455 are near to a rounding tie
+            assertFormat( format, Math.round( value * 1000000 ) / 1000000.0 );
+        }
+    }
+
+    @Test
+    public void testEdges() {
+        // DecimalFormat rounds the smallest tie down although the binary value is larger
+        Assert.assertEquals( "0", NumberUtil.format( 0.000005 ) );
+        Assert.assertEquals( "-0", NumberUtil.format( -0.000005 ) );
+        Assert.assertEquals( "0.00001", NumberUtil.format( 0.0000051 ) );
+        // large values are written with the shortest digits and not with the exact binary value
+        Assert.assertEquals( "4038617361079.287", NumberUtil.format( 4038617361079.287 ) );
+        Assert.assertEquals( "100000000000.00002", NumberUtil.format( 1E11 + 0.000015 ) );
+        Assert.assertEquals( "987654.32101", NumberUtil.format( 987654.321005 ) );
+    }
+
+    @Test
+    public void testAppend() {
+        StringBuilder builder = new StringBuilder( "width: " );
+        NumberUtil.append( builder, 12.5 );
+        builder.append( "px" );
+        Assert.assertEquals( "width: 12.5px", builder.toString() );
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.visitor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.AbstractTestBase;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.parser.LexicalUnitImpl;
+import com.inet.sass.parser.SassListItem;
+import com.inet.sass.resolver.ScssStylesheetResolver;
+import com.inet.sass.testcases.scss.AssertErrorHandler;
+
+public class DeadCodeEliminationHandlerTest {
+
+    private static Map<String, SassListItem> flags( boolean shadows ) {
+        Map<String, SassListItem> variables = new HashMap<>();
+        variables.put( "enable-shadows", LexicalUnitImpl.createIdent( null, 0, 0, String.valueOf( shadows ) ) );
+        return variables;
+    }
+
+    @Test
+    public void testPruneBranches() throws Exception {
+        // the dead branch would fail with an unknown mixin
+        ScssStylesheet stylesheet = AbstractTestBase.parse( "$enable-shadows: true !default;\n"
+                        + "@mixin box { @if $enable-shadows { @include unknown; } @else { a: b; } }\n"
+                        + ".x { @include box; }" );
+        stylesheet.eliminateDeadCode( flags( false ) );
+        stylesheet.compile();
+        Assert.assertEquals( ".x {\n\ta: b;\n}", stylesheet.printState() );
+    }
+
+    @Test
+    public void testAssignedVariableIsNotFolded() throws Exception {
+        ScssStylesheet stylesheet = AbstractTestBase.parse( "$enable-shadows: true;\n"
+                        + ".x { @if $enable-shadows { a: b; } @else { c: d; } }" );
+        stylesheet.eliminateDeadCode( flags( false ) );
+        stylesheet.compile();
+        Assert.assertEquals( ".x {\n\ta: b;\n}", stylesheet.printState() );
+    }
+
+    @Test
+    public void testArgumentIsNotFolded() throws Exception {
+        ScssStylesheet stylesheet = AbstractTestBase.parse( "@mixin box( $enable-shadows ) { @if $enable-shadows { a: b; } @else { c: d; } }\n"
+                        + ".x { @include box( true ); }" );
+        stylesheet.eliminateDeadCode( flags( false ) );
+        stylesheet.compile();
+        Assert.assertEquals( ".x {\n\ta: b;\n}", stylesheet.printState() );
+    }
+
+    @Test
+    public void testArgumentIsDefinedGlobally() throws Exception {
+        // the name is also a mixin argument, the global variable must be defined anyway
+        ScssStylesheet stylesheet = AbstractTestBase.parse( "@mixin box( $enable-shadows ) { @if $enable-shadows { a: b; } }\n"
+                        + ".x { @if $enable-shadows { c: d; } @else { e: f; } }\n"
+                        + ".y { @include box( true ); }" );
+        stylesheet.eliminateDeadCode( flags( false ) );
+        stylesheet.compile();
+        Assert.assertEquals( ".x {\n\te: f;\n}\n\n.y {\n\ta: b;\n}", stylesheet.printState() );
+    }
+
+    @Test
+    public void testAssignedInImportIsNotFolded() throws Exception {
+        Map<String, String> files = new HashMap<>();
+        files.put( "main", "@import \"config\";\n.x { @if $enable-shadows { a: on } @else { a: off } }" );
+        files.put( "config", "$enable-shadows: true;" );
+        ScssStylesheetResolver fileResolver = AbstractTestBase.createResolver( files );
+        AtomicInteger parsedConfigs = new AtomicInteger();
+        ScssStylesheetResolver resolver = ( parentStylesheet, identifier ) -> {
+            if( identifier.equals( "config" ) ) {
+                parsedConfigs.incrementAndGet();
+            }
+            return fileResolver.resolve( parentStylesheet, identifier );
+        };
+
+        ScssStylesheet stylesheet = ScssStylesheet.get( "main", new AssertErrorHandler(), resolver );
+        stylesheet.eliminateDeadCode( flags( false ) );
+        stylesheet.compile();
+        Assert.assertEquals( ".x {\n\ta: on;\n}", stylesheet.printState() );
+        // the import that was inspected before the traversal is used for the traversal
+        Assert.assertEquals( 1, parsedConfigs.get() );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try {
+            stylesheet = ScssStylesheet.get( "main", new AssertErrorHandler(), resolver, executor );
+            stylesheet.eliminateDeadCode( flags( false ) );
+            stylesheet.compile();
+            Assert.assertEquals( ".x {\n\ta: on;\n}", stylesheet.printState() );
+        } finally {
+            executor.shutdown();
+        }
+
+        ScssStylesheet copy = ScssStylesheet.get( "main", new AssertErrorHandler(), resolver ).copy();
+        copy.eliminateDeadCode( flags( false ) );
+        copy.compile();
+        Assert.assertEquals( ".x {\n\ta: on;\n}", copy.printState() );
+    }
+}
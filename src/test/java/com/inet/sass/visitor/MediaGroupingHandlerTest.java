@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.visitor;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.inet.sass.AbstractTestBase;
+import com.inet.sass.ScssStylesheet;
+import com.inet.sass.parser.MediaList;
+import com.inet.sass.parser.MediaQuery;
+
+public class MediaGroupingHandlerTest extends AbstractTestBase {
+
+    @Override
+    public ScssStylesheet getStyleSheet( String filename ) throws URISyntaxException, IOException {
+        ScssStylesheet stylesheet = super.getStyleSheet( filename );
+        stylesheet.groupMedia( true );
+        return stylesheet;
+    }
+
+    private void testCompiler( String name ) throws Exception {
+        testCompiler( "/scss/group-media/" + name + ".scss", "/css/group-media/" + name + ".css" );
+    }
+
+    private static MediaList media( String text ) {
+        MediaList media = new MediaList();
+        media.addItem( text );
+        return media;
+    }
+
+    @Test
+    public void testQueries() {
+        MediaQuery query = MediaQuery.parse( "only  screen AND (min-width:768px)" );
+        Assert.assertEquals( "only", query.getModifier() );
+        Assert.assertEquals( "screen", query.getType() );
+        Assert.assertEquals( "[(min-width: 768px)]", query.getFeatures().toString() );
+        Assert.assertEquals( "only screen and (min-width: 768px)", query.toString() );
+
+        Assert.assertNull( MediaQuery.parse( "(min-width: 1px) or (max-width: 2px)" ).getFeatures() );
+        Assert.assertEquals( media( "screen and (min-width: 768px)" ), media( "screen and (min-width:768px)" ) );
+        Assert.assertFalse( media( "screen" ).equals( media( "print" ) ) );
+
+        Assert.assertEquals( "screen and (min-width: 1px), print and (min-width: 1px)", media( "screen, print" ).merge( media( "(min-width: 1px)" ) ).toString() );
+        Assert.assertEquals( "(min-width: 1px) and (max-width: 2px)", media( "all and (min-width: 1px)" ).merge( media( "(max-width: 2px)" ) ).toString() );
+    }
+
+    @Test
+    public void testGroupMedia() throws Exception {
+        testCompiler( "group-media" );
+    }
+
+    @Test
+    public void testCascade() throws Exception {
+        testCompiler( "cascade" );
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 i-net software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.inet.sass.visitor;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.junit.Test;
+
+import com.inet.sass.AbstractTestBase;
+import com.inet.sass.ScssStylesheet;
+
+public class OutputOptimizationHandlerTest extends AbstractTestBase {
+
+    @Override
+    public ScssStylesheet getStyleSheet( String filename ) throws URISyntaxException, IOException {
+        ScssStylesheet stylesheet = super.getStyleSheet( filename );
+        stylesheet.optimizeOutput( true );
+        return stylesheet;
+    }
+
+    private void testCompiler( String name ) throws Exception {
+        testCompiler( "/scss/optimize/" + name + ".scss", "/css/optimize/" + name + ".css" );
+    }
+
+    @Test
+    public void testOverriddenDeclaration() throws Exception {
+        testCompiler( "overridden" );
+    }
+
+    @Test
+    public void testAdjacentBlocks() throws Exception {
+        testCompiler( "adjacent-blocks" );
+    }
+
+    @Test
+    public void testEqualBlocks() throws Exception {
+        testCompiler( "equal-blocks" );
+    }
+
+    @Test
+    public void testVendorPrefixedSelectors() throws Exception {
+        testCompiler( "vendor-prefixed-selectors" );
+    }
+
+    @Test
+    public void testUnsafeSelectors() throws Exception {
+        testCompiler( "unsafe-selectors" );
+    }
+
+    @Test
+    public void testAliases() throws Exception {
+        testCompiler( "aliases" );
+    }
+
+    @Test
+    public void testMedia() throws Exception {
+        testCompiler( "media" );
+    }
+}